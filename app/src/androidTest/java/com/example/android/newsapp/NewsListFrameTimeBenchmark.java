@@ -0,0 +1,232 @@
+package com.example.android.newsapp;
+
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.filters.LargeTest;
+import android.support.test.filters.SdkSuppress;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.Choreographer;
+import android.view.ViewConfiguration;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Flings through a few thousand news items on a device and records the time between frames,
+ * so a regression in the bind path of {@link NewsAdapter} shows up as dropped frames.
+ * <p>
+ * The text of the news items is measured ahead of time, as the {@link NewsLoader} does, unless
+ * the "precompute" instrumentation argument is false, so the time spent binding a list item can
+ * be compared with and without it. The frame and bind times are reported as instrumentation status and logged under the tag of
+ * this class.
+ */
+@LargeTest
+@SdkSuppress(minSdkVersion = 16)
+@RunWith(AndroidJUnit4.class)
+public class NewsListFrameTimeBenchmark {
+
+    private static final String LOG_TAG = NewsListFrameTimeBenchmark.class.getSimpleName();
+
+    private static final int ITEM_COUNT = 3000;
+
+    /**
+     * A frame is janky when it took longer than one and a half 60fps frames
+     */
+    private static final long JANK_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(16667 * 3 / 2);
+
+    /**
+     * Share of janky frames allowed before the benchmark fails
+     */
+    private static final double MAX_JANK_RATIO = 0.05;
+
+    private static final long FLING_TIMEOUT_SECONDS = 10;
+
+    @Rule
+    public ActivityTestRule<MainActivity> mActivityRule = new ActivityTestRule<>(MainActivity.class);
+
+    @Test
+    public void flingThroughNewsItems() throws Throwable {
+
+        final RecyclerView recyclerView =
+                (RecyclerView) mActivityRule.getActivity().findViewById(R.id.list);
+        final LinearLayoutManager layoutManager =
+                (LinearLayoutManager) recyclerView.getLayoutManager();
+        final int flingVelocity = ViewConfiguration.get(recyclerView.getContext())
+                .getScaledMaximumFlingVelocity();
+
+        // Show generated news items instead of the ones from the loader,
+        // mixing items with and without dates and authors
+        final List<News> newsItems = createNewsItems();
+        // Room for every news item, as the loader only keeps a few pages of them
+        final NewsTextPrecomputer textPrecomputer =
+                new NewsTextPrecomputer(recyclerView.getContext(), ITEM_COUNT);
+
+        // This is not the main thread, like the thread of the loader
+        if (!"false".equals(InstrumentationRegistry.getArguments().getString("precompute"))) {
+            textPrecomputer.precompute(newsItems);
+        }
+
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                NewsAdapter adapter = new NewsAdapter(
+                        ThumbnailLoader.getInstance(recyclerView.getContext()), textPrecomputer,
+                        new NewsAdapter.OnItemClickListener() {
+                            @Override
+                            public void onItemClick(News news) {
+                            }
+                        });
+                recyclerView.setAdapter(adapter);
+                adapter.submitList(newsItems);
+            }
+        });
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        NewsMetrics.getInstance().reset();
+
+        FrameRecorder frameRecorder = new FrameRecorder();
+        frameRecorder.start();
+
+        // Fling towards the end of the list until the last news item is visible
+        while (layoutManager.findLastVisibleItemPosition() < ITEM_COUNT - 1) {
+
+            final CountDownLatch idle = new CountDownLatch(1);
+            final RecyclerView.OnScrollListener idleListener = new RecyclerView.OnScrollListener() {
+                @Override
+                public void onScrollStateChanged(RecyclerView view, int newState) {
+                    if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                        idle.countDown();
+                    }
+                }
+            };
+
+            mActivityRule.runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    recyclerView.addOnScrollListener(idleListener);
+                    recyclerView.fling(0, flingVelocity);
+                }
+            });
+
+            assertTrue("Fling did not settle", idle.await(FLING_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+            mActivityRule.runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    recyclerView.removeOnScrollListener(idleListener);
+                }
+            });
+        }
+
+        long[] frameIntervals = frameRecorder.stop();
+        assertTrue("No frames were recorded", frameIntervals.length > 0);
+
+        int jankyFrames = 0;
+        for (long frameInterval : frameIntervals) {
+            if (frameInterval > JANK_THRESHOLD_NANOS) {
+                jankyFrames++;
+            }
+        }
+
+        Arrays.sort(frameIntervals);
+        double jankRatio = (double) jankyFrames / frameIntervals.length;
+
+        Bundle results = new Bundle();
+        results.putInt("frames", frameIntervals.length);
+        results.putInt("janky_frames", jankyFrames);
+        results.putLong("frame_p50_us", percentile(frameIntervals, 50) / 1000);
+        results.putLong("frame_p90_us", percentile(frameIntervals, 90) / 1000);
+        results.putLong("frame_p99_us", percentile(frameIntervals, 99) / 1000);
+
+        MetricsHistogram bindMicros = NewsMetrics.getInstance().getBindMicros();
+        results.putLong("bind_mean_us", bindMicros.getMean());
+        results.putLong("bind_p50_us", bindMicros.getValueAtPercentile(50));
+        results.putLong("bind_p90_us", bindMicros.getValueAtPercentile(90));
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+        Log.i(LOG_TAG, results.toString());
+
+        assertTrue("Janky frames: " + jankyFrames + " of " + frameIntervals.length,
+                jankRatio <= MAX_JANK_RATIO);
+    }
+
+    private static List<News> createNewsItems() {
+
+        List<News> newsItems = new ArrayList<>(ITEM_COUNT);
+
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            String author = i % 3 == 0 ? "" : i % 3 == 1
+                    ? "Larry Elliott" : "Larry Elliott\nRichard Partington\n";
+            long publicationTime = i % 5 == 0
+                    ? NewsDates.NO_PUBLICATION_TIME : NewsDates.parse("2018-09-25T15:45:34Z");
+            newsItems.add(new News("Business",
+                    "Headline number " + i + " about the economy, markets and the world of sport",
+                    author, publicationTime, "https://www.theguardian.com/business/" + i));
+        }
+
+        return newsItems;
+    }
+
+    private static long percentile(long[] sortedValues, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedValues.length) - 1;
+        return sortedValues[Math.max(0, index)];
+    }
+
+    /**
+     * Records the time between consecutive frames drawn on the main thread.
+     */
+    private static final class FrameRecorder implements Choreographer.FrameCallback {
+
+        private final long[] mFrameIntervals = new long[ITEM_COUNT * 10];
+        private volatile int mFrameCount;
+        private volatile boolean mRunning;
+        private long mLastFrameTimeNanos;
+
+        void start() {
+            mRunning = true;
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    Choreographer.getInstance().postFrameCallback(FrameRecorder.this);
+                }
+            });
+        }
+
+        long[] stop() {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+                @Override
+                public void run() {
+                    mRunning = false;
+                    Choreographer.getInstance().removeFrameCallback(FrameRecorder.this);
+                }
+            });
+            return Arrays.copyOf(mFrameIntervals, mFrameCount);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+
+            if (!mRunning) {
+                return;
+            }
+
+            if (mLastFrameTimeNanos != 0 && mFrameCount < mFrameIntervals.length) {
+                mFrameIntervals[mFrameCount++] = frameTimeNanos - mLastFrameTimeNanos;
+            }
+
+            mLastFrameTimeNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.android.newsapp;
+
+import android.os.Debug;
+import android.util.Log;
+
+/**
+ * {@link NewsPlatform} of the app: log messages go to logcat, and the CPU time is read from
+ * {@link Debug}.
+ */
+final class AndroidPlatform extends NewsPlatform {
+
+    @Override
+    public void log(int priority, String tag, String message, Throwable throwable) {
+        if (throwable != null) {
+            message += '\n' + Log.getStackTraceString(throwable);
+        }
+        Log.println(priority, tag, message);
+    }
+
+    @Override
+    public long threadCpuTimeNanos() {
+        return Debug.threadCpuTimeNanos();
+    }
+}
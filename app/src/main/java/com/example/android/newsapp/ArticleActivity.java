@@ -0,0 +1,117 @@
+package com.example.android.newsapp;
+
+import android.app.LoaderManager.LoaderCallbacks;
+import android.content.Context;
+import android.content.Intent;
+import android.content.Loader;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.TextView;
+
+/**
+ * Shows the text of one article. Articles prefetched by the {@link ArticlePrefetcher} are
+ * read from the {@link ArticleBodyCache}, without the network.
+ */
+public class ArticleActivity extends AppCompatActivity implements LoaderCallbacks<String> {
+
+    /**
+     * Extra of the intent holding the URL of the article on the Guardian website
+     */
+    public static final String EXTRA_URL = "com.example.android.newsapp.extra.URL";
+
+    /**
+     * Extra of the intent holding the title of the article
+     */
+    public static final String EXTRA_TITLE = "com.example.android.newsapp.extra.TITLE";
+
+    private static final int ARTICLE_LOADER_ID = 1;
+
+    /**
+     * URL of the article on the Guardian website
+     */
+    private String mUrl;
+
+    /**
+     * TextView in the activity_article.xml layout with the ID article_body_text_view
+     */
+    private TextView mBodyTextView;
+
+    /**
+     * Returns the intent opening the given news item in an {@link ArticleActivity}.
+     */
+    public static Intent newIntent(Context context, News news) {
+        Intent intent = new Intent(context, ArticleActivity.class);
+        intent.putExtra(EXTRA_URL, news.getUrl());
+        intent.putExtra(EXTRA_TITLE, news.getTitle());
+        return intent;
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_article);
+
+        mUrl = getIntent().getStringExtra(EXTRA_URL);
+        String title = getIntent().getStringExtra(EXTRA_TITLE);
+
+        setTitle(title);
+        ((TextView) findViewById(R.id.article_title_text_view)).setText(title);
+        mBodyTextView = (TextView) findViewById(R.id.article_body_text_view);
+
+        getLoaderManager().initLoader(ARTICLE_LOADER_ID, null, this);
+    }
+
+    @Override
+    public Loader<String> onCreateLoader(int id, Bundle bundle) {
+
+        // Only articles that are not cached need the network
+        ConnectivityManager connMgr = (ConnectivityManager)
+                getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
+        boolean networkAvailable = networkInfo != null && networkInfo.isConnected();
+
+        return new ArticleLoader(this, mUrl, networkAvailable);
+    }
+
+    @Override
+    public void onLoadFinished(Loader<String> loader, String body) {
+
+        findViewById(R.id.article_loading_indicator).setVisibility(View.GONE);
+
+        if (body != null) {
+            mBodyTextView.setText(body);
+        } else {
+            mBodyTextView.setText(R.string.article_unavailable);
+        }
+    }
+
+    @Override
+    public void onLoaderReset(Loader<String> loader) {
+        mBodyTextView.setText(null);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.article, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+
+        if (item.getItemId() == R.id.action_open_in_browser && mUrl != null) {
+
+            // Send an intent to a web browser to open the website with the full article
+            startActivity(new Intent(Intent.ACTION_VIEW, Uri.parse(mUrl)));
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Disk cache of the text of articles, so they can be read without a network connection.
+ * <p>
+ * Every article is stored gzip compressed in a {@link DiskLruCache}. The total size of the
+ * stored articles is bounded, and the least recently read articles are evicted first.
+ */
+public final class ArticleBodyCache {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticleBodyCache.class.getSimpleName();
+
+    /**
+     * Maximum size of the article bodies kept on disk by the app, in bytes
+     */
+    private static final long MAX_CACHED_BYTES = 5 * 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static ArticleBodyCache sInstance;
+
+    /**
+     * Compressed article bodies by URL
+     */
+    private final DiskLruCache mDiskCache;
+
+    /**
+     * Constructs a new {@link ArticleBodyCache}.
+     *
+     * @param directory is where the article bodies are stored, it is created if needed
+     * @param maxBytes  is the maximum total size of the stored article bodies
+     */
+    public ArticleBodyCache(File directory, long maxBytes) {
+        mDiskCache = new DiskLruCache(directory, maxBytes);
+    }
+
+    /**
+     * Returns the {@link ArticleBodyCache} shared by the whole app.
+     */
+    public static synchronized ArticleBodyCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticleBodyCache(
+                    new File(context.getApplicationContext().getCacheDir(), "article_bodies"),
+                    MAX_CACHED_BYTES);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns whether the body of the article with the given URL is stored.
+     */
+    public boolean contains(String url) {
+        return mDiskCache.contains(url);
+    }
+
+    /**
+     * Returns the stored body of the article with the given URL, or null if it is not stored.
+     * This reads from disk, so it must not be called on the main thread.
+     */
+    public String get(String url) {
+
+        byte[] compressed = mDiskCache.get(url);
+
+        if (compressed == null) {
+            return null;
+        }
+
+        try {
+            InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+            ByteArrayOutputStream body = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+            return new String(body.toByteArray(), UTF_8);
+
+        } catch (IOException e) {
+
+            Log.e(LOG_TAG, "Problem reading the cached article", e);
+            mDiskCache.remove(url);
+            return null;
+        }
+    }
+
+    /**
+     * Store the body of the article with the given URL, replacing the stored one.
+     * This writes to disk, so it must not be called on the main thread.
+     */
+    public void put(String url, String body) {
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try {
+            GZIPOutputStream out = new GZIPOutputStream(compressed);
+            out.write(body.getBytes(UTF_8));
+            out.close();
+
+        } catch (IOException e) {
+
+            // Only written to memory, so this never happens
+            throw new AssertionError(e);
+        }
+
+        mDiskCache.put(url, compressed.toByteArray());
+    }
+
+    /**
+     * Returns the total size of the stored article bodies, in bytes.
+     */
+    public long size() {
+        return mDiskCache.size();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.android.newsapp;
+
+import android.content.AsyncTaskLoader;
+import android.content.Context;
+import android.util.Log;
+
+/**
+ * Loads the text of one article, from the {@link ArticleBodyCache} if it is there and from
+ * the Guardian API otherwise. Downloaded text is added to the cache.
+ */
+public class ArticleLoader extends AsyncTaskLoader<String> {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ArticleLoader.class.getSimpleName();
+
+    /**
+     * URL of the article on the Guardian website
+     */
+    private final String mUrl;
+
+    /**
+     * Whether there was a network connection when the loader was created
+     */
+    private final boolean mNetworkAvailable;
+
+    private final ArticleBodyCache mCache;
+
+    /**
+     * The text delivered last, or null
+     */
+    private String mBody;
+
+    /**
+     * Constructs a new {@link ArticleLoader}.
+     *
+     * @param context          of the activity
+     * @param url              is the URL of the article on the Guardian website
+     * @param networkAvailable is whether the text may be downloaded if it is not cached
+     */
+    public ArticleLoader(Context context, String url, boolean networkAvailable) {
+        super(context);
+        mUrl = url;
+        mNetworkAvailable = networkAvailable;
+        mCache = ArticleBodyCache.getInstance(context);
+    }
+
+    @Override
+    protected void onStartLoading() {
+
+        // The text of an article does not change, so it is only loaded once
+        if (mBody != null) {
+            deliverResult(mBody);
+        } else {
+            forceLoad();
+        }
+    }
+
+    /**
+     * This is on a background thread.
+     */
+    @Override
+    public String loadInBackground() {
+
+        if (mUrl == null) {
+            return null;
+        }
+
+        long startNanos = System.nanoTime();
+        String body = mCache.get(mUrl);
+
+        if (body != null) {
+            Log.d(LOG_TAG, "Read " + mUrl + " from the cache in "
+                    + (System.nanoTime() - startNanos) / 1000 + " us");
+            return body;
+        }
+
+        if (!mNetworkAvailable) {
+            return null;
+        }
+
+        body = QueryUtils.fetchArticleBody(mUrl);
+
+        if (body != null) {
+            mCache.put(mUrl, body);
+        }
+
+        return body;
+    }
+
+    @Override
+    public void deliverResult(String body) {
+        mBody = body;
+        super.deliverResult(body);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Downloads the text of the articles shown on the screen into the {@link ArticleBodyCache}
+ * ahead of time, so they open without waiting for the network and can be read offline.
+ * <p>
+ * The downloads run one at a time with the lowest priority of the {@link NewsTaskScheduler},
+ * so they never hold up loading the list. Articles already cached are skipped, and at most
+ * {@link #MAX_PENDING} articles wait to be downloaded.
+ */
+public final class ArticlePrefetcher {
+
+    /**
+     * Maximum number of articles waiting to be downloaded, more are ignored until some are done
+     */
+    static final int MAX_PENDING = 20;
+
+    private static ArticlePrefetcher sInstance;
+
+    private final ArticleBodyCache mCache;
+
+    private final Executor mExecutor;
+
+    /**
+     * URLs of the articles waiting to be downloaded or being downloaded
+     */
+    private final Set<String> mPendingUrls = new HashSet<>();
+
+    /**
+     * Constructs a new {@link ArticlePrefetcher}.
+     *
+     * @param cache    is where the text of the articles is stored
+     * @param executor runs the downloads
+     */
+    public ArticlePrefetcher(ArticleBodyCache cache, Executor executor) {
+        mCache = cache;
+        mExecutor = executor;
+    }
+
+    /**
+     * Returns the {@link ArticlePrefetcher} shared by the whole app.
+     */
+    public static synchronized ArticlePrefetcher getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ArticlePrefetcher(ArticleBodyCache.getInstance(context),
+                    NewsTaskScheduler.getInstance().asExecutor(
+                            NewsTaskScheduler.Priority.ENRICHMENT));
+        }
+        return sInstance;
+    }
+
+    /**
+     * Download the text of the given articles that are not cached yet, in the given order.
+     */
+    public void prefetch(List<News> newsItems) {
+
+        for (News news : newsItems) {
+
+            final String url = news.getUrl();
+
+            synchronized (mPendingUrls) {
+                if (mPendingUrls.size() >= MAX_PENDING) {
+                    return;
+                }
+                if (url.isEmpty() || !mPendingUrls.add(url)) {
+                    continue;
+                }
+            }
+
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+
+                    try {
+                        // Checking the cache reads the directory, so it is done here too
+                        if (!mCache.contains(url)) {
+                            String body = QueryUtils.fetchArticleBody(url);
+
+                            if (body != null) {
+                                mCache.put(url, body);
+                            }
+                        }
+                    } finally {
+                        synchronized (mPendingUrls) {
+                            mPendingUrls.remove(url);
+                        }
+                    }
+                }
+            });
+        }
+    }
+}
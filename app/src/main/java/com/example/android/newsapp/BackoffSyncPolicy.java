@@ -0,0 +1,112 @@
+package com.example.android.newsapp;
+
+/**
+ * {@link SyncPolicy} that syncs once per interval after the last successful sync.
+ * After a failed sync it retries with an exponential backoff: the first retry waits
+ * {@code initialBackoffMillis}, and every further failure doubles the wait, up to
+ * {@code maxBackoffMillis} or the interval, whichever is shorter.
+ */
+public class BackoffSyncPolicy implements SyncPolicy {
+
+    private final Clock mClock;
+    private final long mIntervalMillis;
+    private final long mInitialBackoffMillis;
+    private final long mMaxBackoffMillis;
+
+    /**
+     * Time of the last successful sync, or 0 if there has been none
+     */
+    private long mLastSuccessTime;
+
+    /**
+     * Time of the last sync, successful or not, or 0 if there has been none
+     */
+    private long mLastAttemptTime;
+
+    /**
+     * Number of syncs that failed since the last successful one
+     */
+    private int mFailureCount;
+
+    /**
+     * Constructs a new {@link BackoffSyncPolicy} that continues from a saved state.
+     *
+     * @param clock                gives the current time
+     * @param intervalMillis       is the time between two successful syncs
+     * @param initialBackoffMillis is the time before retrying the first failed sync
+     * @param maxBackoffMillis     is the longest time before retrying a failed sync
+     * @param lastSuccessTime      is the time of the last successful sync, or 0
+     * @param lastAttemptTime      is the time of the last sync, or 0
+     * @param failureCount         is the number of syncs that failed since the last successful one
+     */
+    public BackoffSyncPolicy(Clock clock, long intervalMillis, long initialBackoffMillis,
+                             long maxBackoffMillis, long lastSuccessTime, long lastAttemptTime,
+                             int failureCount) {
+        mClock = clock;
+        mIntervalMillis = intervalMillis;
+        mInitialBackoffMillis = initialBackoffMillis;
+        mMaxBackoffMillis = Math.min(maxBackoffMillis, intervalMillis);
+        mLastSuccessTime = lastSuccessTime;
+        mLastAttemptTime = lastAttemptTime;
+        mFailureCount = failureCount;
+    }
+
+    @Override
+    public long getNextSyncTime() {
+
+        if (mFailureCount == 0) {
+            return mLastSuccessTime + mIntervalMillis;
+        }
+
+        return mLastAttemptTime + getBackoffMillis();
+    }
+
+    @Override
+    public long getNextSyncDelay() {
+        return Math.max(0, getNextSyncTime() - mClock.currentTimeMillis());
+    }
+
+    @Override
+    public boolean isSyncDue() {
+        return mClock.currentTimeMillis() >= getNextSyncTime();
+    }
+
+    @Override
+    public void onSyncSucceeded() {
+        mLastSuccessTime = mClock.currentTimeMillis();
+        mLastAttemptTime = mLastSuccessTime;
+        mFailureCount = 0;
+    }
+
+    @Override
+    public void onSyncFailed() {
+        mLastAttemptTime = mClock.currentTimeMillis();
+        mFailureCount++;
+    }
+
+    /**
+     * Returns the time to wait after the last failed sync.
+     */
+    long getBackoffMillis() {
+
+        long backoffMillis = mInitialBackoffMillis;
+
+        for (int i = 1; i < mFailureCount && backoffMillis < mMaxBackoffMillis; i++) {
+            backoffMillis *= 2;
+        }
+
+        return Math.min(backoffMillis, mMaxBackoffMillis);
+    }
+
+    public long getLastSuccessTime() {
+        return mLastSuccessTime;
+    }
+
+    public long getLastAttemptTime() {
+        return mLastAttemptTime;
+    }
+
+    public int getFailureCount() {
+        return mFailureCount;
+    }
+}
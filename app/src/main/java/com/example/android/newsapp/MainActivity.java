@@ -1,16 +1,24 @@
 package com.example.android.newsapp;
 
 import android.content.Intent;
-import android.net.Uri;
 
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.support.v4.content.ContextCompat;
+import android.support.v4.widget.SwipeRefreshLayout;
+import android.support.v7.widget.DividerItemDecoration;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.SearchView;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ListView;
 
-import java.util.ArrayList;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import android.app.LoaderManager;
 import android.app.LoaderManager.LoaderCallbacks;
@@ -31,9 +39,35 @@ public class MainActivity extends AppCompatActivity implements LoaderCallbacks<L
     private static final int NEWS_LOADER_ID = 1;
 
     /**
-     * String that will contain the URL to query the Guardian dataset for news information
+     * Number of news items requested from the Guardian API per page of each section's feed
      */
-    String GUARDIAN_REQUEST_URL;
+    static final int PAGE_SIZE = 10;
+
+    /**
+     * Number of pages fetched concurrently when the news items are first loaded
+     */
+    private static final int INITIAL_PAGE_COUNT = 3;
+
+    /**
+     * When the last visible news item is this close to the end of the list,
+     * the next page is fetched
+     */
+    private static final int PREFETCH_DISTANCE = 5;
+
+    /**
+     * Maximum size of the Guardian API responses kept on disk for conditional requests
+     */
+    private static final long RESPONSE_CACHE_SIZE = 2 * 1024 * 1024;
+
+    /**
+     * Maximum number of news items shown for a search, newest first
+     */
+    private static final int MAX_SEARCH_RESULTS = 200;
+
+    /**
+     * URLs to query the Guardian dataset for news information, one per section
+     */
+    List<String> GUARDIAN_FEED_URLS;
 
     /**
      * Adapter for the list of news items
@@ -47,102 +81,154 @@ public class MainActivity extends AppCompatActivity implements LoaderCallbacks<L
      */
     private TextView mEmptyStateTextView;
 
+    /**
+     * Whether there was a network connection when the activity was created
+     */
+    private boolean mNetworkAvailable;
+
+    /**
+     * The news items last delivered by the loader
+     */
+    private List<News> mLoadedNewsItems;
+
+    /**
+     * Text typed in the search box, or "" when the loaded news items are shown
+     */
+    private String mSearchQuery = "";
+
+    /**
+     * The search running in the background, or null
+     */
+    private NewsTaskScheduler.Task<Void> mSearchTask;
+
+    /**
+     * Layout around the list that reloads the news items when the list is pulled down
+     */
+    private SwipeRefreshLayout mSwipeRefreshLayout;
+
+    /**
+     * The list of news items and its layout manager, used to find the visible news items
+     */
+    private RecyclerView mNewsRecyclerView;
+    private LinearLayoutManager mLayoutManager;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
 
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        // Create a new adapter that takes an empty list of news items as input
-        mAdapter = new NewsAdapter(this, new ArrayList<News>());
-
-        // Get a reference to the ListView, and attach the adapter to the newsListView.
-        ListView newsListView = (ListView) findViewById(R.id.list);
+        // Keep the Guardian API responses in the cache directory, so unchanged news items
+        // are revalidated instead of downloaded and parsed again
+        if (QueryUtils.getResponseCache() == null) {
+            QueryUtils.setResponseCache(new NewsResponseCache(
+                    new File(getCacheDir(), "news_responses"), RESPONSE_CACHE_SIZE));
+        }
 
-        // Set the adapter on the {@link ListView}
+        // Create a new adapter that starts with an empty list of news items. Clicking a
+        // news item opens the full article in the app, from the cache if it was prefetched.
+        final ThumbnailLoader thumbnailLoader = ThumbnailLoader.getInstance(this);
+        mAdapter = new NewsAdapter(thumbnailLoader, NewsTextPrecomputer.getInstance(this),
+                new NewsAdapter.OnItemClickListener() {
+                    @Override
+                    public void onItemClick(News currentNews) {
+                        startActivity(ArticleActivity.newIntent(MainActivity.this, currentNews));
+                    }
+                });
+
+        // Get a reference to the RecyclerView, and lay the news items out in a vertical list
+        mNewsRecyclerView = (RecyclerView) findViewById(R.id.list);
+        final RecyclerView newsRecyclerView = mNewsRecyclerView;
+        mLayoutManager = new LinearLayoutManager(this);
+        final LinearLayoutManager layoutManager = mLayoutManager;
+        newsRecyclerView.setLayoutManager(layoutManager);
+
+        // Separate the news items with the same divider the list had before
+        DividerItemDecoration divider =
+                new DividerItemDecoration(this, DividerItemDecoration.VERTICAL);
+        divider.setDrawable(ContextCompat.getDrawable(this, R.drawable.list_divider));
+        newsRecyclerView.addItemDecoration(divider);
+
+        // Set the adapter on the {@link RecyclerView}
         // so the list can be populated in the user interface
-        newsListView.setAdapter(mAdapter);
+        newsRecyclerView.setAdapter(mAdapter);
 
         // Find the TextView in the activity_main.xml layout with the ID empty_view
         mEmptyStateTextView = (TextView) findViewById(R.id.empty_view);
-        newsListView.setEmptyView(mEmptyStateTextView);
 
-        // Set an item click listener on the ListView, which sends an intent to a web browser
-        // to open a website with the full article about the selected news item.
-        newsListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+        // Set a scroll listener on the RecyclerView, which fetches the next page of news items
+        // ahead of time when the user scrolls near the end of the list.
+        // Once the list stops scrolling, the articles left on the screen are prefetched.
+        // Thumbnails are not decoded during a fling, the list items fly past too fast to see them.
+        newsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
-            public void onItemClick(AdapterView<?> adapterView, View view, int position, long l) {
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                thumbnailLoader.setPaused(newState == RecyclerView.SCROLL_STATE_SETTLING);
 
-                // Find the current news item that was clicked on
-                News currentNews = mAdapter.getItem(position);
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    loadVisiblePages();
+                    prefetchVisibleArticles();
+                }
+            }
 
-                // Convert the String URL into a URI object (to pass into the Intent constructor)
-                Uri newsUri = Uri.parse(currentNews.getUrl());
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
 
-                // Create a new intent to view the news URI
-                Intent websiteIntent = new Intent(Intent.ACTION_VIEW, newsUri);
+                int totalItemCount = layoutManager.getItemCount();
+                int lastVisibleItem = layoutManager.findLastVisibleItemPosition();
 
-                // Send the intent to launch a new activity
-                startActivity(websiteIntent);
-            }
-        });
+                // Only the pages near the visible news items are kept in memory
+                loadVisiblePages();
 
-        // Get a reference to the ConnectivityManager to check state of network connectivity
-        ConnectivityManager connMgr = (ConnectivityManager)
-                getSystemService(Context.CONNECTIVITY_SERVICE);
+                // Search results come from the index, so they have no next page
+                if (totalItemCount > 0 && mSearchQuery.isEmpty()
+                        && lastVisibleItem >= totalItemCount - 1 - PREFETCH_DISTANCE) {
 
-        // Get details on the currently active default data network
-        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
+                    Loader<List<News>> loader = getLoaderManager().getLoader(NEWS_LOADER_ID);
 
-        // If there is a network connection, fetch data
-        if (networkInfo != null && networkInfo.isConnected()) {
+                    if (loader != null) {
+                        ((NewsLoader) loader).loadNextPage();
+                    }
+                }
+            }
+        });
 
-            // Get a reference to the LoaderManager, in order to interact with loaders.
-            LoaderManager loaderManager = getLoaderManager();
+        // Pulling the list down reloads the news items, cancelling the load that is running
+        mSwipeRefreshLayout = (SwipeRefreshLayout) findViewById(R.id.swipe_refresh);
+        mSwipeRefreshLayout.setOnRefreshListener(new SwipeRefreshLayout.OnRefreshListener() {
+            @Override
+            public void onRefresh() {
+                refreshNewsItems();
+            }
+        });
 
-            // Initialize the loader. Pass in the int ID constant defined above and pass in null for
-            // the bundle. Pass in this activity for the LoaderCallbacks parameter (which is valid
-            // because this activity implements the LoaderCallbacks interface).
-            loaderManager.initLoader(NEWS_LOADER_ID, null, this);
+        // If there is a network connection, the stored news items are revalidated
+        mNetworkAvailable = isNetworkAvailable();
 
-        } else {
+        // Keep the stored news items up to date in the background, so the next launch
+        // can show them without waiting for the network
+        NewsSyncScheduler.schedule(this);
 
-            // Otherwise, display error
-            // First, hide loading indicator so error message will be visible
-            View loadingIndicator = findViewById(R.id.loading_indicator);
-            loadingIndicator.setVisibility(View.GONE);
+        // Get a reference to the LoaderManager, in order to interact with loaders.
+        LoaderManager loaderManager = getLoaderManager();
 
-            // Update empty state with no connection error message
-            mEmptyStateTextView.setText(R.string.no_internet_connection);
-        }
+        // Initialize the loader. Pass in the int ID constant defined above and pass in null for
+        // the bundle. Pass in this activity for the LoaderCallbacks parameter (which is valid
+        // because this activity implements the LoaderCallbacks interface).
+        // Without a network connection the loader still shows the stored news items.
+        loaderManager.initLoader(NEWS_LOADER_ID, null, this);
     }
 
     @Override
     public Loader<List<News>> onCreateLoader(int i, Bundle bundle) {
 
-        //The URI.Builder is used to construct the URL to the Guardian API
-        //Below is the URL path and parameters:
-        //Parameters:
-        //"business OR sport", get articles containing the words business or sports
-        //"order-by", arranges the news items starting from the newest articles
-        //"show-tags", which gets the author(s)/contributor(s)
-        //            of the article and lastly the api-key to access the data
-        //Full URL: "https://content.guardianapis.com/search?
-        //           q=business%20OR%20sport&from-date=2018&order-by=newest&show-tags=contributor&
-        //           api-key=8444fda7-1779-4b41-8b4d-29fa2a30f115"
-        Uri.Builder uriBuilder = new Uri.Builder();
-        uriBuilder.scheme("https")
-                .authority("content.guardianapis.com")
-                .appendPath("search")
-                .appendQueryParameter("q", "business OR sport")
-                .appendQueryParameter("order-by", "newest")
-                .appendQueryParameter("show-tags", "contributor")
-                .appendQueryParameter("api-key", "8444fda7-1779-4b41-8b4d-29fa2a30f115");
-
-        GUARDIAN_REQUEST_URL = uriBuilder.build().toString();
-
-        // Create a new loader for the given URL
-        return new NewsLoader(this, GUARDIAN_REQUEST_URL);
+        // Build the URL of every section's feed, asking for PAGE_SIZE news items per page
+        GUARDIAN_FEED_URLS = QueryUtils.buildFeedUrls(
+                getResources().getStringArray(R.array.news_feed_sections), PAGE_SIZE);
+
+        // Create a new loader for the given feeds, fetching the first pages concurrently
+        return new NewsLoader(this, GUARDIAN_FEED_URLS, PAGE_SIZE, INITIAL_PAGE_COUNT,
+                mNetworkAvailable);
     }
 
     @Override
@@ -151,24 +237,234 @@ public class MainActivity extends AppCompatActivity implements LoaderCallbacks<L
         // Hide loading indicator because the data has been loaded
         View loadingIndicator = findViewById(R.id.loading_indicator);
         loadingIndicator.setVisibility(View.GONE);
+        mSwipeRefreshLayout.setRefreshing(false);
 
-        // Set empty state text to display "No news found."
-        mEmptyStateTextView.setText(R.string.no_news);
+        mLoadedNewsItems = newsItems;
+        showNewsItems();
 
-        // Clear the adapter of previous news item data
-        mAdapter.clear();
-
-        // If there is a valid list of {@link News}, then add them to the adapter's
-        // data set. This will trigger the ListView to update.
-        if (newsItems != null && !newsItems.isEmpty()) {
-            mAdapter.addAll(newsItems);
-        }
+        // The new news items are laid out on the next frame, then the visible ones are known
+        mNewsRecyclerView.post(new Runnable() {
+            @Override
+            public void run() {
+                prefetchVisibleArticles();
+            }
+        });
     }
 
     @Override
     public void onLoaderReset(Loader<List<News>> loader) {
 
         // Loader reset, so we can clear out our existing data.
-        mAdapter.clear();
+        mLoadedNewsItems = null;
+        mAdapter.submitList(null);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+
+        getMenuInflater().inflate(R.menu.main, menu);
+
+        // The metrics screen is only for debug builds
+        menu.findItem(R.id.action_metrics).setVisible(BuildConfig.DEBUG);
+
+        // Filter the news items already downloaded as the search text is typed,
+        // instead of asking the Guardian API again
+        SearchView searchView = (SearchView) menu.findItem(R.id.action_search).getActionView();
+        searchView.setQueryHint(getString(R.string.search_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                return false;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                mSearchQuery = newText.trim();
+                showNewsItems();
+                return true;
+            }
+        });
+
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+
+        if (item.getItemId() == R.id.action_metrics) {
+            startActivity(new Intent(this, MetricsActivity.class));
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        ThumbnailLoader.getInstance(this).trimMemory(level);
+
+        // The text is measured again when the news items are next loaded
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            NewsTextPrecomputer.getInstance(this).clear();
+        }
+    }
+
+    /**
+     * Adds the metrics to "adb shell dumpsys activity com.example.android.newsapp".
+     */
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.println(prefix + "NewsMetrics:");
+        NewsMetrics.getInstance().dump(writer);
+    }
+
+    /**
+     * Returns whether there is a network connection to download news items.
+     */
+    private boolean isNetworkAvailable() {
+
+        // Get a reference to the ConnectivityManager to check state of network connectivity
+        ConnectivityManager connMgr = (ConnectivityManager)
+                getSystemService(Context.CONNECTIVITY_SERVICE);
+
+        // Get details on the currently active default data network
+        NetworkInfo networkInfo = connMgr.getActiveNetworkInfo();
+
+        return networkInfo != null && networkInfo.isConnected();
+    }
+
+    /**
+     * Load the news items again, as asked by pulling the list down. The load that is running
+     * is cancelled, which stops its downloads and parsing, so it does not slow this one down.
+     */
+    private void refreshNewsItems() {
+
+        Loader<List<News>> loader = getLoaderManager().getLoader(NEWS_LOADER_ID);
+
+        if (loader == null) {
+            mSwipeRefreshLayout.setRefreshing(false);
+            return;
+        }
+
+        // The connection may have come back since the activity was created
+        mNetworkAvailable = isNetworkAvailable();
+        ((NewsLoader) loader).refresh(mNetworkAvailable);
+    }
+
+    /**
+     * Load the pages of news items that were let go of once the user scrolls near them again.
+     * The loader then keeps the pages around the visible news items and lets go of the others.
+     */
+    private void loadVisiblePages() {
+
+        int first = mLayoutManager.findFirstVisibleItemPosition();
+        int last = mLayoutManager.findLastVisibleItemPosition();
+
+        if (first == RecyclerView.NO_POSITION || !mSearchQuery.isEmpty()
+                || !mAdapter.hasPlaceholders(first - PREFETCH_DISTANCE, last + PREFETCH_DISTANCE)) {
+            return;
+        }
+
+        Loader<List<News>> loader = getLoaderManager().getLoader(NEWS_LOADER_ID);
+
+        if (loader != null) {
+            ((NewsLoader) loader).loadAround((first + last) / 2);
+        }
+    }
+
+    /**
+     * Download the text of the visible news items that is not cached yet, at a low priority,
+     * so the articles open instantly and can be read offline.
+     */
+    private void prefetchVisibleArticles() {
+
+        int first = mLayoutManager.findFirstVisibleItemPosition();
+        int last = mLayoutManager.findLastVisibleItemPosition();
+
+        if (!mNetworkAvailable || first == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        ArticlePrefetcher.getInstance(this).prefetch(mAdapter.getNewsItems(first, last));
+    }
+
+    /**
+     * Show the news items matching the search text, or the loaded ones when there is none.
+     */
+    private void showNewsItems() {
+
+        // Typing a new query makes the results of the previous one useless
+        if (mSearchTask != null) {
+            mSearchTask.cancel(true);
+            mSearchTask = null;
+        }
+
+        if (!mSearchQuery.isEmpty()) {
+            search(mSearchQuery);
+            return;
+        }
+
+        // Set empty state text to display "No news found.", or the no connection error message
+        // when nothing was stored and nothing could be downloaded
+        if (mNetworkAvailable) {
+            mEmptyStateTextView.setText(R.string.no_news);
+        } else {
+            mEmptyStateTextView.setText(R.string.no_internet_connection);
+        }
+
+        showNewsItems(mLoadedNewsItems);
+    }
+
+    /**
+     * Look the query up in the background and show the matching news items, unless the query
+     * has changed in the meantime.
+     */
+    private void search(final String query) {
+
+        final NewsStore store = NewsStore.getInstance(this);
+
+        mSearchTask = NewsTaskScheduler.getInstance().submit(NewsTaskScheduler.Priority.REFRESH,
+                new Callable<Void>() {
+                    @Override
+                    public Void call() {
+
+                        // The index answers without the network, and the matching news items
+                        // are read back from the store, as most of them are no longer in memory
+                        List<String> urls =
+                                NewsSearchIndex.getInstance().search(query, MAX_SEARCH_RESULTS);
+                        final List<News> newsItems = store.loadNews(urls);
+
+                        mNewsRecyclerView.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (query.equals(mSearchQuery)) {
+                                    mEmptyStateTextView.setText(R.string.no_matching_news);
+                                    showNewsItems(newsItems);
+                                }
+                            }
+                        });
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * Hand the news items to the adapter, showing the empty view if there are none.
+     */
+    private void showNewsItems(List<News> newsItems) {
+
+        // Search results come from the index, so there is nothing to refresh
+        mSwipeRefreshLayout.setEnabled(mSearchQuery.isEmpty());
+
+        // The empty view is only visible when there are no news items to show
+        boolean hasNewsItems = newsItems != null && !newsItems.isEmpty();
+        mEmptyStateTextView.setVisibility(hasNewsItems ? View.GONE : View.VISIBLE);
+
+        // Hand the new list of {@link News} to the adapter. The changes are worked out
+        // off the main thread, and only the news items that changed are rebound,
+        // so the scroll position is kept.
+        mAdapter.submitList(newsItems);
     }
 }
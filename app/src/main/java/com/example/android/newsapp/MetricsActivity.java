@@ -0,0 +1,54 @@
+package com.example.android.newsapp;
+
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+/**
+ * Debug screen showing the report of the {@link NewsMetrics}. The report is read again
+ * every time the screen is shown.
+ */
+public class MetricsActivity extends AppCompatActivity {
+
+    /**
+     * TextView in the activity_metrics.xml layout with the ID metrics_text_view
+     */
+    private TextView mMetricsTextView;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+        mMetricsTextView = (TextView) findViewById(R.id.metrics_text_view);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showReport();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.metrics, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+
+        if (item.getItemId() == R.id.action_reset_metrics) {
+            NewsMetrics.getInstance().reset();
+            showReport();
+            return true;
+        }
+
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void showReport() {
+        mMetricsTextView.setText(NewsMetrics.getInstance().getReport());
+    }
+}
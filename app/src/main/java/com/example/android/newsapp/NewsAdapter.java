@@ -1,105 +1,368 @@
 package com.example.android.newsapp;
 
-import android.content.Context;
-import android.support.annotation.NonNull;
+import android.support.v4.text.PrecomputedTextCompat;
+import android.support.v4.widget.TextViewCompat;
+import android.support.v7.recyclerview.extensions.ListAdapter;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 /**
- * {@link NewsAdapter} is an {@link ArrayAdapter} that can provide the layout for each list
+ * {@link NewsAdapter} is a {@link ListAdapter} that can provide the layout for each list
  * based on a data source, which is a list of {@link News} objects.
+ * <p>
+ * When a new list is submitted, the difference with the current one is computed on a
+ * background thread, and only the news items that were inserted, moved, changed or removed
+ * are rebound. Every news item keeps the same stable ID for as long as it has the same URL.
+ * <p>
+ * The news items of the pages the {@link NewsLoader} let go of are null, and are shown as
+ * empty list items until they are loaded again.
+ * <p>
+ * The titles and author(s)/contributor(s) are measured by the {@link NewsTextPrecomputer}
+ * when the news items are loaded, so binding does not measure them on the main thread.
  */
-public class NewsAdapter extends ArrayAdapter<News> {
+public class NewsAdapter extends ListAdapter<News, NewsAdapter.NewsViewHolder> {
 
     /**
-     * Create a new {@link NewsAdapter} object.
+     * Called when a news item in the list has been clicked.
+     */
+    public interface OnItemClickListener {
+
+        /**
+         * @param news is the {@link News} object that was clicked on
+         */
+        void onItemClick(News news);
+    }
+
+    /**
+     * Two news items are the same item if they have the same URL, and have the same
+     * contents if everything shown in the list item is equal.
+     */
+    private static final DiffUtil.ItemCallback<News> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<News>() {
+                @Override
+                public boolean areItemsTheSame(News oldNews, News newNews) {
+                    return oldNews.getUrl().equals(newNews.getUrl());
+                }
+
+                @Override
+                public boolean areContentsTheSame(News oldNews, News newNews) {
+                    return oldNews.hasSameContents(newNews);
+                }
+            };
+
+    /**
+     * Stable ID given to every URL in the list. IDs are handed out in order instead of
+     * hashing the URL, so two news items can never share one.
+     */
+    private Map<String, Long> mItemIds = new HashMap<>();
+
+    /**
+     * The stable ID given to the next URL
+     */
+    private long mNextItemId;
+
+    /**
+     * The list submitted last
+     */
+    private List<News> mNewsItems;
+
+    /**
+     * Receives the clicks on the news items
+     */
+    private final OnItemClickListener mOnItemClickListener;
+
+    /**
+     * Loads the thumbnail images of the news items
+     */
+    private final ThumbnailLoader mThumbnailLoader;
+
+    /**
+     * Holds the measured text of the news items
+     */
+    private final NewsTextPrecomputer mTextPrecomputer;
+
+    /**
+     * Create a new {@link NewsAdapter} object with an empty list of news items.
      *
-     * @param context   is the current context (i.e. Activity) that the adapter is being created in.
-     * @param newsItems is the list of {@link News} to be displayed, newsItems includes: Section,
-     *                  title, date published and author(s)/contributor(s).
+     * @param thumbnailLoader     loads the thumbnail images of the news items
+     * @param textPrecomputer     holds the text of the news items measured ahead of time
+     * @param onItemClickListener is called with the {@link News} of a list item that
+     *                            has been clicked on
      */
-    public NewsAdapter(Context context, ArrayList<News> newsItems) {
+    public NewsAdapter(ThumbnailLoader thumbnailLoader, NewsTextPrecomputer textPrecomputer,
+                       OnItemClickListener onItemClickListener) {
+        super(DIFF_CALLBACK);
+        mThumbnailLoader = thumbnailLoader;
+        mTextPrecomputer = textPrecomputer;
+        mOnItemClickListener = onItemClickListener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+
+        News news = getItem(position);
+
+        // A news item that is not loaded is identified by its position, with a negative ID
+        if (news == null) {
+            return -1 - position;
+        }
 
-        // Here, we initialize the ArrayAdapter's internal storage for the context and the list.
-        // the second argument is used when the ArrayAdapter is populating a single TextView.
-        // Because this is a custom adapter for four TextViews, the adapter is not
-        // going to use this second argument, so it can be any value. Here, we used 0.
-        super(context, 0, newsItems);
+        String url = news.getUrl();
+        Long itemId = mItemIds.get(url);
+
+        if (itemId == null) {
+            itemId = mNextItemId++;
+            mItemIds.put(url, itemId);
+        }
+
+        return itemId;
     }
 
-    @NonNull
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
+    public void submitList(List<News> newsItems) {
+
+        // Forget the IDs of the news items in neither the new list nor the one still shown,
+        // so they do not pile up however far the list is scrolled
+        Map<String, Long> itemIds = new HashMap<>();
+        keepItemIds(mNewsItems, itemIds);
+        keepItemIds(newsItems, itemIds);
+        mItemIds = itemIds;
+
+        mNewsItems = newsItems;
+        super.submitList(newsItems);
+    }
+
+    /**
+     * Copy the IDs given to the URLs of the given news items into {@code itemIds}.
+     */
+    private void keepItemIds(List<News> newsItems, Map<String, Long> itemIds) {
+
+        if (newsItems == null) {
+            return;
+        }
 
-        // Check if the existing view is being reused, otherwise inflate the view
-        View listItemView = convertView;
+        for (News news : newsItems) {
+            if (news != null) {
+                Long itemId = mItemIds.get(news.getUrl());
+                if (itemId != null) {
+                    itemIds.put(news.getUrl(), itemId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether a news item from position {@code first} to position {@code last}, both
+     * included, is not loaded.
+     */
+    public boolean hasPlaceholders(int first, int last) {
+
+        int end = Math.min(last + 1, getItemCount());
+
+        for (int position = Math.max(0, first); position < end; position++) {
+            if (getItem(position) == null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the news items shown from position {@code first} to position {@code last},
+     * both included, leaving out the positions that are not in the list or not loaded.
+     */
+    public List<News> getNewsItems(int first, int last) {
+
+        int end = Math.min(last + 1, getItemCount());
+        List<News> newsItems = new ArrayList<>(Math.max(0, end - first));
 
-        if (listItemView == null) {
-            listItemView = LayoutInflater.from(getContext()).inflate(
-                    R.layout.news_list_item, parent, false);
+        for (int position = Math.max(0, first); position < end; position++) {
+            News news = getItem(position);
+            if (news != null) {
+                newsItems.add(news);
+            }
         }
 
+        return newsItems;
+    }
+
+    @Override
+    public NewsViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+
+        View listItemView = LayoutInflater.from(parent.getContext()).inflate(
+                R.layout.news_list_item, parent, false);
+
+        return new NewsViewHolder(listItemView);
+    }
+
+    @Override
+    public void onBindViewHolder(NewsViewHolder holder, int position) {
+
+        long startNanos = System.nanoTime();
+
         // Get the {@link News} object located at this position in the list
-        News currentNews = getItem(position);
+        // and show it in the list item that is being reused
+        holder.bind(getItem(position));
 
-        // Find the TextView in the news_list_item.xml layout with the ID section_text_view
-        TextView sectionTextView = (TextView) listItemView.findViewById(R.id.section_text_view);
+        NewsMetrics.getInstance().recordBind(System.nanoTime() - startNanos);
+    }
 
-        // Get the section's name from the current News object and set this text on the section TextView
-        sectionTextView.setText(currentNews.getSection());
+    @Override
+    public void onViewRecycled(NewsViewHolder holder) {
 
-        // Find the TextView in the news_list_item.xml layout with the ID title_text_view
-        TextView titleTextView = (TextView) listItemView.findViewById(R.id.title_text_view);
+        // The list item is going to show another news item, so its thumbnail is not needed
+        holder.recycle();
+    }
 
-        // Get the title of the article from the current News object and set this text on the title TextView
-        titleTextView.setText(currentNews.getTitle());
+    /**
+     * Holds the views of one news item, which are looked up once when the layout is inflated,
+     * and forwards its clicks to the {@link OnItemClickListener}.
+     */
+    class NewsViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+
+        /**
+         * TextView in the news_list_item.xml layout with the ID section_text_view
+         */
+        private final TextView mSectionTextView;
 
-        // Find the TextView in the news_list_item.xml layout with the ID date_published_text_view
-        TextView dateTextView = (TextView) listItemView.findViewById(R.id.date_published_text_view);
+        /**
+         * TextView in the news_list_item.xml layout with the ID title_text_view
+         */
+        private final TextView mTitleTextView;
 
-        // Check if there is a date published provided for the news article
-        if (currentNews.hasDate()) {
+        /**
+         * TextView in the news_list_item.xml layout with the ID date_published_text_view
+         */
+        private final TextView mDateTextView;
 
-            // Get the date published from the current News object and set this text on the date published TextView
-            dateTextView.setText(currentNews.getDate());
+        /**
+         * TextView in the news_list_item.xml layout with the ID author_name_text_view
+         */
+        private final TextView mAuthorTextView;
 
-            // Make sure the view is visible
-            dateTextView.setVisibility(View.VISIBLE);
+        /**
+         * ImageView in the news_list_item.xml layout with the ID thumbnail_image_view
+         */
+        private final ImageView mThumbnailImageView;
 
-        } else {
+        /**
+         * How the title and author TextViews measure text, to check the measured text fits them
+         */
+        private final PrecomputedTextCompat.Params mTitleParams;
+        private final PrecomputedTextCompat.Params mAuthorParams;
 
-            //Otherwise hide the date published TextView (set visibility to GONE)
-            dateTextView.setVisibility(View.GONE);
+        NewsViewHolder(View listItemView) {
+            super(listItemView);
+            mSectionTextView = (TextView) listItemView.findViewById(R.id.section_text_view);
+            mTitleTextView = (TextView) listItemView.findViewById(R.id.title_text_view);
+            mDateTextView = (TextView) listItemView.findViewById(R.id.date_published_text_view);
+            mAuthorTextView = (TextView) listItemView.findViewById(R.id.author_name_text_view);
+            mThumbnailImageView =
+                    (ImageView) listItemView.findViewById(R.id.thumbnail_image_view);
+            mTitleParams = TextViewCompat.getTextMetricsParams(mTitleTextView);
+            mAuthorParams = TextViewCompat.getTextMetricsParams(mAuthorTextView);
+            listItemView.setOnClickListener(this);
         }
 
-        // Find the TextView in the news_list_item.xml layout with the ID author_name_text_view
-        TextView authorTextView = (TextView) listItemView.findViewById(R.id.author_name_text_view);
+        /**
+         * Show the given {@link News} in this list item, or nothing if it is not loaded.
+         */
+        void bind(News currentNews) {
+
+            if (currentNews == null) {
+                mSectionTextView.setText(null);
+                mTitleTextView.setText(null);
+                mDateTextView.setVisibility(View.GONE);
+                mAuthorTextView.setVisibility(View.GONE);
+                recycle();
+                mThumbnailImageView.setVisibility(View.GONE);
+                return;
+            }
+
+            // Get the section's name from the current News object and set this text on the section TextView
+            mSectionTextView.setText(currentNews.getSection());
+
+            // Get the title of the article from the current News object and set this text on the title TextView.
+            // It was measured when the news item was loaded, unless it was not loaded by the NewsLoader
+            NewsTextPrecomputer.setText(mTitleTextView, mTitleParams,
+                    mTextPrecomputer.getTitle(currentNews), currentNews.getTitle());
 
-        //Check if there is (an) author(s)/contributor(s) provided for this article
-        if (currentNews.hasAuthorName()) {
+            // Check if there is a date published provided for the news article
+            if (currentNews.hasDate()) {
 
-            //If there is (an) author(s)/contributor(s) provided.
-            // Get the author(s)/contributor(s) from the current News object and set this text on the author TextView
-            // If there is more than one author, the authors would have already been joined into one
-            authorTextView.setText(currentNews.getAuthor());
+                // Get the date published from the current News object and set this text on the date published TextView.
+                // The date is only formatted here, when the news item is shown
+                mDateTextView.setText(currentNews.getDate());
 
-            //Make sure the view is visible
-            authorTextView.setVisibility(View.VISIBLE);
+                // Make sure the view is visible
+                mDateTextView.setVisibility(View.VISIBLE);
 
-        } else {
+            } else {
 
-            // Otherwise hide the author TextView (set visibility to GONE)
-            authorTextView.setVisibility(View.GONE);
+                //Otherwise hide the date published TextView (set visibility to GONE)
+                mDateTextView.setVisibility(View.GONE);
+            }
+
+            //Check if there is (an) author(s)/contributor(s) provided for this article
+            if (currentNews.hasAuthorName()) {
+
+                //If there is (an) author(s)/contributor(s) provided.
+                // Get the author(s)/contributor(s) from the current News object and set this text on the author TextView
+                // If there is more than one author, the authors would have already been joined into one
+                NewsTextPrecomputer.setText(mAuthorTextView, mAuthorParams,
+                        mTextPrecomputer.getAuthor(currentNews), currentNews.getAuthor());
+
+                //Make sure the view is visible
+                mAuthorTextView.setVisibility(View.VISIBLE);
+
+            } else {
+
+                // Otherwise hide the author TextView (set visibility to GONE)
+                mAuthorTextView.setVisibility(View.GONE);
+            }
+
+            // Load the thumbnail image, which replaces the request of the news item
+            // this list item showed before
+            if (currentNews.hasThumbnail()) {
+                mThumbnailImageView.setVisibility(View.VISIBLE);
+                mThumbnailLoader.load(currentNews.getThumbnailUrl(), mThumbnailImageView);
+            } else {
+                recycle();
+                mThumbnailImageView.setVisibility(View.GONE);
+            }
         }
 
-        // Return the whole list item layout so that it can be shown in the ListView
-        return listItemView;
+        /**
+         * Cancel the thumbnail request of this list item and let go of its image.
+         */
+        void recycle() {
+            mThumbnailLoader.cancel(mThumbnailImageView);
+            mThumbnailImageView.setImageDrawable(null);
+        }
+
+        @Override
+        public void onClick(View view) {
+
+            // The news item may have been removed while the click was being delivered
+            int position = getAdapterPosition();
+
+            if (position != RecyclerView.NO_POSITION && getItem(position) != null) {
+                mOnItemClickListener.onItemClick(getItem(position));
+            }
+        }
     }
 }
@@ -0,0 +1,15 @@
+package com.example.android.newsapp;
+
+import android.app.Application;
+
+/**
+ * Sets up the fetch/parse core for Android before any activity or job runs.
+ */
+public class NewsApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        NewsPlatform.setInstance(new AndroidPlatform());
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.android.newsapp;
+
+import android.provider.BaseColumns;
+
+/**
+ * API Contract for the News app's local database of news items.
+ */
+public final class NewsContract {
+
+    /**
+     * Create a private constructor because no one should ever create a {@link NewsContract} object.
+     */
+    private NewsContract() {
+    }
+
+    /**
+     * Inner class that defines constant values for the news database table.
+     * Each entry in the table represents a single news item.
+     */
+    public static final class NewsEntry implements BaseColumns {
+
+        /**
+         * Name of database table for news items
+         */
+        public static final String TABLE_NAME = "news";
+
+        /**
+         * Unique ID number for the news item (only for use in the database table).
+         * <p>
+         * Type: INTEGER
+         */
+        public static final String _ID = BaseColumns._ID;
+
+        /**
+         * Section the news article belongs to.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_SECTION = "section";
+
+        /**
+         * Title of the news article.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_TITLE = "title";
+
+        /**
+         * Author(s)/contributor(s) who wrote the article, "" if there are none.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_AUTHOR = "author";
+
+        /**
+         * Time the article was published on the web, in milliseconds since the epoch,
+         * or {@link NewsDates#NO_PUBLICATION_TIME} if it is unknown.
+         * <p>
+         * Type: INTEGER
+         */
+        public static final String COLUMN_PUBLICATION_TIME = "publication_time";
+
+        /**
+         * Website (web)URL of the news item. Each URL is only stored once.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_URL = "url";
+
+        /**
+         * URL of the thumbnail image of the news item, "" if it has none.
+         * <p>
+         * Type: TEXT
+         */
+        public static final String COLUMN_THUMBNAIL_URL = "thumbnail_url";
+
+        /**
+         * Time the news item was last downloaded, in milliseconds since the epoch.
+         * <p>
+         * Type: INTEGER
+         */
+        public static final String COLUMN_FETCHED_AT = "fetched_at";
+
+        /**
+         * Page of the list the news item was last downloaded on, counted from 1, or 0 if it
+         * is no longer in the list and only kept to be searched.
+         * <p>
+         * Type: INTEGER
+         */
+        public static final String COLUMN_PAGE = "page";
+    }
+}
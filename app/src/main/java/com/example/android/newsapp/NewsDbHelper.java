@@ -0,0 +1,77 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import com.example.android.newsapp.NewsContract.NewsEntry;
+
+/**
+ * Database helper for the News app. Manages database creation and version management.
+ */
+public class NewsDbHelper extends SQLiteOpenHelper {
+
+    /**
+     * Name of the database file
+     */
+    private static final String DATABASE_NAME = "news.db";
+
+    /**
+     * Database version. If you change the database schema, you must increment the database version.
+     */
+    private static final int DATABASE_VERSION = 4;
+
+    /**
+     * Constructs a new instance of {@link NewsDbHelper}.
+     *
+     * @param context of the app
+     */
+    public NewsDbHelper(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    /**
+     * This is called when the database is created for the first time.
+     */
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+
+        // Create a String that contains the SQL statement to create the news table
+        String SQL_CREATE_NEWS_TABLE = "CREATE TABLE " + NewsEntry.TABLE_NAME + " ("
+                + NewsEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + NewsEntry.COLUMN_SECTION + " TEXT NOT NULL, "
+                + NewsEntry.COLUMN_TITLE + " TEXT NOT NULL, "
+                + NewsEntry.COLUMN_AUTHOR + " TEXT NOT NULL DEFAULT '', "
+                + NewsEntry.COLUMN_PUBLICATION_TIME + " INTEGER NOT NULL, "
+                + NewsEntry.COLUMN_URL + " TEXT NOT NULL UNIQUE, "
+                + NewsEntry.COLUMN_THUMBNAIL_URL + " TEXT NOT NULL DEFAULT '', "
+                + NewsEntry.COLUMN_FETCHED_AT + " INTEGER NOT NULL, "
+                + NewsEntry.COLUMN_PAGE + " INTEGER NOT NULL DEFAULT 0);";
+
+        // The UNIQUE constraint already indexes the URL, the publication time is indexed for ordering
+        String SQL_CREATE_DATE_INDEX = "CREATE INDEX news_publication_time_index ON "
+                + NewsEntry.TABLE_NAME + " (" + NewsEntry.COLUMN_PUBLICATION_TIME + ");";
+
+        // The news items of the list are read page by page
+        String SQL_CREATE_PAGE_INDEX = "CREATE INDEX news_page_index ON "
+                + NewsEntry.TABLE_NAME + " (" + NewsEntry.COLUMN_PAGE + ");";
+
+        // Execute the SQL statements
+        db.execSQL(SQL_CREATE_NEWS_TABLE);
+        db.execSQL(SQL_CREATE_DATE_INDEX);
+        db.execSQL(SQL_CREATE_PAGE_INDEX);
+    }
+
+    /**
+     * This is called when the database needs to be upgraded.
+     */
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+
+        // Version 2 keeps the publication time instead of the date text, version 3 adds the
+        // thumbnail URL, version 4 the page of the list. The table only holds a copy of downloaded news items, so it is
+        // created again instead of migrated.
+        db.execSQL("DROP TABLE IF EXISTS " + NewsEntry.TABLE_NAME);
+        onCreate(db);
+    }
+}
@@ -1,54 +1,975 @@
 package com.example.android.newsapp;
 
-import android.content.AsyncTaskLoader;
 import android.content.Context;
+import android.content.Loader;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+import android.util.Log;
 
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Loads a list of news items by using an AsyncTask to perform the
- * network request to the given URL.
+ * Loads a list of news items by running the network requests to the given feed URLs on the
+ * {@link NewsTaskScheduler}.
+ * <p>
+ * Loads the user waits for, such as the first load, a refresh or the pages scrolled back to,
+ * run with the {@link NewsTaskScheduler.Priority#REFRESH} priority, and the next page with
+ * {@link NewsTaskScheduler.Priority#NEXT_PAGE}, so they never wait behind work done ahead of
+ * time. The pages of a load are fetched with the priority of the load.
+ * <p>
+ * The news items are requested one page at a time. The first pages are fetched
+ * concurrently, and further pages are appended when {@link #loadNextPage()} is called.
+ * Each page is fetched from every feed through the {@link NewsFeedFetcher}, which merges
+ * them newest first and leaves out the feeds that are too slow. Pages are appended in page
+ * order, so the list is newest first within each page, and a page always holds the same news
+ * items when the {@link NewsPageWindow} downloads it again.
+ * <p>
+ * When the loader starts without any news items, the ones kept in the {@link NewsStore}
+ * are delivered first and then revalidated over the network.
+ * <p>
+ * Once news items are held, a reload only asks for the ones published since the newest
+ * date held ("from-date") and merges them into the list, removing duplicates by URL.
+ * <p>
+ * Downloaded news items are kept in the {@link NewsResultCache}. While they are fresh, starting
+ * the loader again, for example after a configuration change, delivers them straight away
+ * without a load.
+ * <p>
+ * Only a window of pages around the position the user is looking at is kept in the
+ * {@link NewsPageWindow}, so scrolling through many pages does not use more memory. The
+ * delivered list holds null for the news items of the other pages, and {@link #loadAround(int)}
+ * moves the window, downloading them again. The Guardian API usually answers that with
+ * "304 Not Modified", so they are read from the {@link NewsResponseCache}.
+ * <p>
+ * A load that is no longer wanted, because it was cancelled or replaced by {@link #refresh},
+ * is stopped: the thread running it is interrupted, which cancels its page and feed requests,
+ * closes their connections and stops their parsing. A cancelled load leaves the news items
+ * and the paging as they were.
  */
-public class NewsLoader extends AsyncTaskLoader<List<News>> {
+public class NewsLoader extends Loader<List<News>> {
 
     /**
-     * Query URL
+     * Tag for the log messages
      */
-    private String mUrl;
+    private static final String LOG_TAG = NewsLoader.class.getSimpleName();
+
+    /**
+     * How long the feeds of one page are waited for before the slow ones are left out
+     */
+    private static final long FEED_TIMEOUT_MILLIS = 6000;
+
+    /**
+     * Whether the stored news items have been handed to the search index
+     */
+    private static final AtomicBoolean sStoreIndexRequested = new AtomicBoolean();
+
+    /**
+     * Number of pages of news items kept in memory around the position the user is looking at
+     */
+    static final int MAX_RESIDENT_PAGES = 5;
+
+    /**
+     * Query URL of every feed
+     */
+    private List<String> mFeedUrls;
+
+    /**
+     * Key of the news items in the {@link NewsResultCache}
+     */
+    private String mCacheKey;
+
+    /**
+     * Fetches one page of every feed and merges them
+     */
+    private NewsFeedFetcher mFeedFetcher;
+
+    /**
+     * Number of news items the Guardian API returns per page of each feed
+     */
+    private int mPageSize;
+
+    /**
+     * Number of pages fetched when the loader starts
+     */
+    private int mInitialPageCount;
+
+    /**
+     * The news items delivered last, a snapshot of {@link #mWindow}
+     */
+    private volatile List<News> mNewsItems;
+
+    /**
+     * The pages loaded so far, of which only the ones around the position the user is
+     * looking at are kept in memory
+     */
+    private NewsPageWindow mWindow;
+
+    /**
+     * Whether the next load should move the window to {@link #mRequestedPosition}
+     */
+    private volatile boolean mWindowMoveRequested;
+
+    /**
+     * Position of the news item the user is looking at
+     */
+    private volatile int mRequestedPosition;
+
+    /**
+     * Number of pages the current news items were built from
+     */
+    private volatile int mLoadedPageCount;
+
+    /**
+     * Whether the next load should append one page instead of starting over
+     */
+    private volatile boolean mNextPageRequested;
+
+    /**
+     * Whether the last page returned fewer items than a full page
+     */
+    private volatile boolean mLastPageReached;
+
+    /**
+     * Whether a page could not be fetched during the last call to {@link #fetchPages}
+     */
+    private volatile boolean mPageFailed;
+
+    /**
+     * Whether a feed was left out of a page during the last call to {@link #fetchPages}
+     */
+    private volatile boolean mFeedMissed;
+
+    /**
+     * Newest publication time of the news items held, used as the "from-date" of the next
+     * reload, or {@link NewsDates#NO_PUBLICATION_TIME} if it is not known
+     */
+    private volatile long mNewestPublicationTime = NewsDates.NO_PUBLICATION_TIME;
+
+    /**
+     * Whether a load is currently running
+     */
+    private boolean mLoading;
+
+    /**
+     * Local copy of the downloaded news items
+     */
+    private NewsStore mStore;
+
+    /**
+     * Downloaded news items shared by every loader of the process
+     */
+    private NewsResultCache mResultCache;
+
+    /**
+     * Index the loaded news items are added to, so they can be searched on the device
+     */
+    private NewsSearchIndex mSearchIndex;
+
+    /**
+     * Measures the text of the loaded news items off the main thread
+     */
+    private NewsTextPrecomputer mTextPrecomputer;
+
+    /**
+     * Whether news items can be downloaded, otherwise only the stored ones are shown
+     */
+    private boolean mNetworkAvailable;
+
+    /**
+     * Whether the next load should read the stored news items instead of the network
+     */
+    private volatile boolean mReadFromStore;
+
+    /**
+     * Whether the delivered news items came from the store and must be revalidated
+     */
+    private volatile boolean mRevalidatePending;
+
+    /**
+     * Whether the last load failed with an error. Only used on the main thread
+     */
+    private boolean mLoadFailed;
+
+    /**
+     * Runs the loads and fetches their pages
+     */
+    private final NewsTaskScheduler mScheduler = NewsTaskScheduler.getInstance();
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * The load that was asked for last, or null. Only used on the main thread
+     */
+    private LoadTask mTask;
+
+    /**
+     * A cancelled load that is still running, or null. The next load only starts once it is
+     * done, so they never change the news items at the same time. Only used on the main thread
+     */
+    private LoadTask mCancellingTask;
+
+    /**
+     * Priority of the next load. Only used on the main thread
+     */
+    private NewsTaskScheduler.Priority mNextPriority = NewsTaskScheduler.Priority.REFRESH;
+
+    /**
+     * Priority of the running load, which its pages are fetched with
+     */
+    private volatile NewsTaskScheduler.Priority mLoadPriority = NewsTaskScheduler.Priority.REFRESH;
 
     /**
      * Constructs a new {@link NewsLoader}.
      *
-     * @param context of the activity
-     * @param url     to load data from
+     * @param context          of the activity
+     * @param feedUrls         are the feeds to load data from, each ordered newest first
+     * @param pageSize         is the number of news items requested per page of each feed
+     * @param initialPageCount is the number of pages fetched concurrently when loading starts
+     * @param networkAvailable is whether there is a network connection to download news items
      */
-    public NewsLoader(Context context, String url) {
+    public NewsLoader(Context context, List<String> feedUrls, int pageSize, int initialPageCount,
+                      boolean networkAvailable) {
         super(context);
-        mUrl = url;
+        mFeedUrls = feedUrls;
+        mCacheKey = feedUrls == null ? null : TextUtils.join(" ", feedUrls);
+        mFeedFetcher = new NewsFeedFetcher(NewsFeedFetcher.GUARDIAN_SOURCE, FEED_TIMEOUT_MILLIS);
+        mPageSize = pageSize;
+        mInitialPageCount = initialPageCount;
+        mNetworkAvailable = networkAvailable;
+        mStore = NewsStore.getInstance(context);
+        mResultCache = NewsResultCache.getInstance();
+        mSearchIndex = NewsSearchIndex.getInstance();
+        mTextPrecomputer = NewsTextPrecomputer.getInstance(context);
+
+        // Make the news items stored by an earlier run searchable, once per process
+        if (sStoreIndexRequested.compareAndSet(false, true)) {
+            final NewsStore store = mStore;
+            final NewsSearchIndex searchIndex = mSearchIndex;
+            mScheduler.submit(NewsTaskScheduler.Priority.ENRICHMENT, new Callable<Void>() {
+                @Override
+                public Void call() {
+                    searchIndex.addAll(store);
+                    return null;
+                }
+            });
+        }
+        mWindow = new NewsPageWindow(new NewsPageWindow.PageSource() {
+            @Override
+            public List<News> loadPage(int page) {
+                return fetchPage(page + 1);
+            }
+        }, MAX_RESIDENT_PAGES);
     }
 
     @Override
     protected void onStartLoading() {
 
+        // Deliver the news items downloaded a moment ago without loading them again
+        List<News> cachedItems = mCacheKey == null ? null : mResultCache.get(mCacheKey);
+
+        if (cachedItems != null) {
+            Log.d(LOG_TAG, "Result cache hit for " + mCacheKey);
+
+            // The loader was created again, so work out where paging continues from
+            if (mNewsItems != cachedItems) {
+                mWindow.restore(cachedItems);
+                mLoadedPageCount = mWindow.getPageCount();
+                mNewestPublicationTime = findNewestPublicationTime(cachedItems);
+            }
+
+            deliverResult(cachedItems);
+            return;
+        }
+
+        // Show the stored news items first if nothing has been loaded yet
+        mReadFromStore = mNewsItems == null;
+
         //Force an asynchronous load.
         // This will ignore a previously loaded data set and load a new one.
+        mNextPageRequested = false;
+        mWindowMoveRequested = false;
         forceLoad();
     }
 
+    @Override
+    protected void onForceLoad() {
+        mLoading = true;
+        super.onForceLoad();
+
+        // The running load is replaced by this one
+        cancelTask();
+        mTask = new LoadTask(mNextPriority);
+        mNextPriority = NewsTaskScheduler.Priority.REFRESH;
+        executePendingTask();
+    }
+
     /**
-     * This is on a background thread.
+     * Called on Android 4.1 and newer when the load is no longer wanted.
      */
     @Override
-    public List<News> loadInBackground() {
+    protected boolean onCancelLoad() {
+        return cancelTask();
+    }
+
+    @Override
+    protected void onReset() {
+        super.onReset();
+        cancelTask();
+    }
+
+    /**
+     * Cancel the load that was asked for last. A load that has not started is dropped, and
+     * a running one is interrupted, which stops its downloads and parsing.
+     *
+     * @return whether a running load was cancelled, which is then delivered to
+     * {@link #onCanceled(List)} once it is done
+     */
+    private boolean cancelTask() {
+
+        LoadTask task = mTask;
+        mTask = null;
+
+        // Not submitted yet, it was waiting for a cancelled load to finish
+        if (task == null || task.mFuture == null) {
+            return false;
+        }
+
+        // Claiming the task keeps it from starting if no thread has taken it yet
+        if (task.mStarted.compareAndSet(false, true)) {
+            task.mFuture.cancel(false);
+            return false;
+        }
+
+        Log.d(LOG_TAG, "Cancelling the running load");
+        task.mFuture.cancel(true);
+        mCancellingTask = task;
+        return true;
+    }
+
+    /**
+     * Submit the load that was asked for last, unless a cancelled load is still running.
+     */
+    private void executePendingTask() {
+        if (mCancellingTask == null && mTask != null && mTask.mFuture == null) {
+            mTask.mFuture = mScheduler.submit(mTask.mPriority, mTask);
+        }
+    }
+
+    /**
+     * Called on the main thread when a load is done, with the news items it loaded. A load that
+     * failed delivers the news items held before it again.
+     */
+    private void onTaskDone(LoadTask task, List<News> newsItems, boolean failed) {
+
+        if (task == mCancellingTask) {
+            mCancellingTask = null;
+            onCanceled(newsItems);
+
+            // Lets the LoaderManager go on with a loader waiting for this one to stop
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                deliverCancellation();
+            }
+
+            executePendingTask();
+
+        } else if (task == mTask) {
+            mTask = null;
+            mLoadFailed = failed;
+
+            // Keep the news items held, and deliver them again so the list stops loading
+            if (failed && mNewsItems != null) {
+                mWindow.restore(mNewsItems);
+                newsItems = mWindow.snapshot();
+            } else if (failed) {
+                newsItems = null;
+            }
+
+            if (isAbandoned()) {
+                onCanceled(newsItems);
+            } else {
+                deliverResult(newsItems);
+            }
+        }
+    }
+
+    /**
+     * Fetch the page after the last one loaded and append it to the news items.
+     * Does nothing while a load is running or once the last page has been reached.
+     */
+    public void loadNextPage() {
+
+        if (mLoading || mLastPageReached || mNewsItems == null || mNewsItems.isEmpty()) {
+            return;
+        }
+
+        mNextPageRequested = true;
+        mNextPriority = NewsTaskScheduler.Priority.NEXT_PAGE;
+        forceLoad();
+    }
+
+    /**
+     * Load the pages around the given position that are no longer in memory, and let go of
+     * the ones far from it. Does nothing while a load is running.
+     */
+    public void loadAround(int position) {
+
+        if (mLoading || mNewsItems == null) {
+            return;
+        }
+
+        mRequestedPosition = position;
+        mWindowMoveRequested = true;
+        forceLoad();
+    }
+
+    /**
+     * Load the news items again, replacing the load that is running, as asked by the user.
+     * A running load is cancelled first, so it does not hold up this one.
+     *
+     * @param networkAvailable is whether there is a network connection now
+     */
+    public void refresh(boolean networkAvailable) {
+        mNetworkAvailable = networkAvailable;
+        mNextPageRequested = false;
+        mWindowMoveRequested = false;
+        forceLoad();
+    }
+
+    /**
+     * Returns whether the last load failed with an error, in which case the news items held
+     * before it were delivered again. Must be called on the main thread.
+     */
+    public boolean isLoadFailed() {
+        return mLoadFailed;
+    }
+
+    /**
+     * This is on a thread of the {@link NewsTaskScheduler}.
+     */
+    List<News> loadInBackground() {
+
+        // A cancelled load may have already changed where paging continues from
+        int loadedPageCount = mLoadedPageCount;
+        boolean lastPageReached = mLastPageReached;
+
+        long startNanos = System.nanoTime();
+        List<News> newsItems;
+
+        try {
+            newsItems = loadNews();
+
+        } catch (RuntimeException e) {
 
-        //Return null if mURL is null
-        if (mUrl == null) {
+            // A failed load leaves the paging as it was, like a cancelled one
+            mLoadedPageCount = loadedPageCount;
+            mLastPageReached = lastPageReached;
+            throw e;
+        }
+
+        if (isLoadCancelled()) {
+            mLoadedPageCount = loadedPageCount;
+            mLastPageReached = lastPageReached;
             return null;
         }
 
-        // Perform the network request, parse the response, and extract a list of newsItems.
-        List<News> newsItems = QueryUtils.fetchNewsData(mUrl);
+        // Keep the search index up to date while still off the main thread. It only keeps
+        // the URLs, so the evicted pages can be freed and still be found.
+        // The text is measured here too, so the list only sets it
+        if (newsItems != null) {
+            List<News> residentItems = mWindow.getResidentItems();
+            mSearchIndex.addAll(residentItems);
+            mTextPrecomputer.precompute(residentItems);
+        }
+
+        NewsMetrics.getInstance().recordLoad(System.nanoTime() - startNanos,
+                newsItems == null ? 0 : newsItems.size());
         return newsItems;
     }
+
+    /**
+     * Returns whether the load running on the calling thread was cancelled.
+     */
+    private static boolean isLoadCancelled() {
+        return Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Load the news items from the store or the network, as decided by the state of the loader.
+     */
+    private List<News> loadNews() {
+
+        //Return null if there are no feed URLs
+        if (mFeedUrls == null || mFeedUrls.isEmpty()) {
+            return null;
+        }
+
+        // Deliver the stored news items straight away, then revalidate them
+        if (mReadFromStore) {
+            mReadFromStore = false;
+
+            List<List<News>> storedPages = mStore.loadPages();
+
+            if (!storedPages.isEmpty() || !mNetworkAvailable) {
+                mLoadedPageCount = storedPages.size();
+                mNewestPublicationTime = findNewestPublicationTime(flatten(storedPages));
+                mRevalidatePending = mNetworkAvailable;
+                mWindow.reset(storedPages);
+                return mWindow.snapshot();
+            }
+        }
+
+        // Bring back the pages around the position the user scrolled to
+        if (mWindowMoveRequested && mNewsItems != null) {
+            mWindow.moveTo(mRequestedPosition);
+            return mWindow.snapshot();
+        }
+
+        // Without a network connection only the stored news items can be shown
+        if (!mNetworkAvailable) {
+            List<List<News>> storedPages = mStore.loadPages();
+            mLoadedPageCount = storedPages.size();
+            mWindow.reset(storedPages);
+            return mWindow.snapshot();
+        }
+
+        List<News> previousItems = mNewsItems;
+
+        // Append the next page to the items that have already been loaded. News items published
+        // since the list was loaded shift the pages, so items already held are skipped.
+        if (mNextPageRequested && previousItems != null) {
+
+            List<List<News>> pages = new ArrayList<>();
+            fetchPages(mFeedUrls, mLoadedPageCount + 1, 1, pages);
+
+            if (isLoadCancelled()) {
+                return null;
+            }
+
+            if (pages.isEmpty()) {
+                return previousItems;
+            }
+
+            // Only the pages in memory can be checked for news items already held. The page is
+            // appended even if they are all held, so every page stays at its own number.
+            List<News> residentItems = mWindow.getResidentItems();
+            List<News> newsItems = appendByUrl(residentItems, flatten(pages));
+            List<News> pageItems = newsItems.subList(residentItems.size(), newsItems.size());
+
+            mWindow.appendPage(pageItems);
+            mStore.savePages(Collections.singletonList(pageItems), mLoadedPageCount);
+
+            newsItems = mWindow.snapshot();
+            mResultCache.put(mCacheKey, newsItems);
+            return newsItems;
+        }
+
+        // Only download the news items published since the newest one held. Once pages have
+        // been evicted the new items cannot be merged with them, so the list starts over.
+        long newestPublicationTime = mNewestPublicationTime;
+        if (previousItems != null && !previousItems.isEmpty() && mWindow.isFullyResident()
+                && newestPublicationTime != NewsDates.NO_PUBLICATION_TIME) {
+            return loadNewerItems(previousItems, newestPublicationTime);
+        }
+
+        // Otherwise start over and fetch the first pages concurrently
+        List<List<News>> pages = new ArrayList<>();
+        mLoadedPageCount = 0;
+        mLastPageReached = false;
+        fetchPages(mFeedUrls, 1, mInitialPageCount, pages);
+
+        if (isLoadCancelled()) {
+            return null;
+        }
+
+        // Keep the original behaviour of returning null when nothing could be fetched,
+        // unless the stored news items are already being shown
+        if (mLoadedPageCount == 0) {
+            return previousItems;
+        }
+
+        mWindow.reset(pages);
+
+        List<News> newsItems = flatten(pages);
+        mStore.savePages(pages, 1);
+        List<News> snapshot = mWindow.snapshot();
+        mResultCache.put(mCacheKey, snapshot);
+
+        // A feed that was left out may have newer news items than the others, so the next
+        // reload starts over instead of asking for the ones since the newest held
+        mNewestPublicationTime = mFeedMissed
+                ? NewsDates.NO_PUBLICATION_TIME : findNewestPublicationTime(newsItems);
+        return snapshot;
+    }
+
+    /**
+     * Fetch the news items published on or after {@code newestPublicationTime} and merge them in
+     * front of the {@code heldItems}. If there are more new items than the first pages can hold,
+     * they replace the held items, just like a full reload would.
+     */
+    private List<News> loadNewerItems(List<News> heldItems, long newestPublicationTime) {
+
+        List<String> deltaUrls = appendQueryParameter(mFeedUrls,
+                "from-date", NewsDates.formatInstant(newestPublicationTime));
+
+        boolean lastPageReached = mLastPageReached;
+        int loadedPageCount = mLoadedPageCount;
+
+        List<List<News>> pages = new ArrayList<>();
+        mLoadedPageCount = 0;
+        mLastPageReached = false;
+        fetchPages(deltaUrls, 1, mInitialPageCount, pages);
+        List<News> newItems = flatten(pages);
+
+        // Nothing could be fetched, or the load was cancelled, so keep the news items held
+        if (mLoadedPageCount == 0 || isLoadCancelled()) {
+            mLastPageReached = lastPageReached;
+            mLoadedPageCount = loadedPageCount;
+            return heldItems;
+        }
+
+        // Not every new item was fetched, so there may be a gap between them and the held items.
+        // The new items are the first pages of the full query, so they are shown on their own.
+        if (!mLastPageReached || mPageFailed) {
+            mStore.savePages(pages, 1);
+            mWindow.reset(pages);
+            List<News> snapshot = mWindow.snapshot();
+            mResultCache.put(mCacheKey, snapshot);
+            mLastPageReached = false;
+            mNewestPublicationTime = mFeedMissed
+                    ? NewsDates.NO_PUBLICATION_TIME : findNewestPublicationTime(newItems);
+            return snapshot;
+        }
+
+        // The new items join the first page, so the held pages keep their numbers. Every page
+        // is held, as the list starts over once pages have been evicted.
+        List<List<News>> newsPages = mergeIntoFirstPage(newItems, mWindow.getPages());
+        List<News> newsItems = flatten(newsPages);
+        mStore.savePages(newsPages, 1);
+        mWindow.reset(newsPages);
+        List<News> snapshot = mWindow.snapshot();
+        mResultCache.put(mCacheKey, snapshot);
+
+        // The new items pushed the held ones further down the full query's pages, so asking
+        // for the page after the held ones again may return news items already held, which are
+        // skipped, but none are missed
+        mLastPageReached = lastPageReached;
+        mLoadedPageCount = loadedPageCount;
+
+        // Ask for the news items of a feed that was left out again on the next reload
+        if (!mFeedMissed) {
+            mNewestPublicationTime = findNewestPublicationTime(newsItems);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the {@code newItems} followed by the {@code heldItems} that do not have the same
+     * URL as one of the new items, so updated news items replace the ones held.
+     */
+    static List<News> mergeByUrl(List<News> newItems, List<News> heldItems) {
+
+        List<News> newsItems = new ArrayList<>(newItems.size() + heldItems.size());
+        Set<String> urls = new HashSet<>();
+
+        for (News news : newItems) {
+            if (urls.add(news.getUrl())) {
+                newsItems.add(news);
+            }
+        }
+
+        for (News news : heldItems) {
+            if (urls.add(news.getUrl())) {
+                newsItems.add(news);
+            }
+        }
+
+        return newsItems;
+    }
+
+    /**
+     * Returns the {@code heldPages} with the {@code newItems} in front of the first one. The held
+     * news items with the same URL as a new item are removed, so updated news items replace them.
+     */
+    static List<List<News>> mergeIntoFirstPage(List<News> newItems, List<List<News>> heldPages) {
+
+        if (heldPages.isEmpty()) {
+            return Collections.singletonList(mergeByUrl(newItems, Collections.<News>emptyList()));
+        }
+
+        Set<String> newUrls = new HashSet<>();
+        for (News news : newItems) {
+            newUrls.add(news.getUrl());
+        }
+
+        List<List<News>> pages = new ArrayList<>(heldPages.size());
+        pages.add(mergeByUrl(newItems, heldPages.get(0)));
+
+        for (List<News> heldPage : heldPages.subList(1, heldPages.size())) {
+
+            List<News> page = new ArrayList<>(heldPage.size());
+            for (News news : heldPage) {
+                if (!newUrls.contains(news.getUrl())) {
+                    page.add(news);
+                }
+            }
+            pages.add(page);
+        }
+
+        return pages;
+    }
+
+    /**
+     * Returns the {@code heldItems} followed by the {@code pageItems} that are not held yet.
+     */
+    static List<News> appendByUrl(List<News> heldItems, List<News> pageItems) {
+
+        List<News> newsItems = new ArrayList<>(heldItems.size() + pageItems.size());
+        Set<String> urls = new HashSet<>();
+
+        for (News news : heldItems) {
+            urls.add(news.getUrl());
+            newsItems.add(news);
+        }
+
+        for (News news : pageItems) {
+            if (urls.add(news.getUrl())) {
+                newsItems.add(news);
+            }
+        }
+
+        return newsItems;
+    }
+
+    /**
+     * Returns the news items of the given pages, in page order.
+     */
+    private static List<News> flatten(List<List<News>> pages) {
+
+        List<News> newsItems = new ArrayList<>();
+
+        for (List<News> page : pages) {
+            newsItems.addAll(page);
+        }
+
+        return newsItems;
+    }
+
+    /**
+     * Returns the newest publication time of the given news items, or
+     * {@link NewsDates#NO_PUBLICATION_TIME} if none has a date.
+     */
+    static long findNewestPublicationTime(List<News> newsItems) {
+
+        long newestPublicationTime = NewsDates.NO_PUBLICATION_TIME;
+
+        for (News news : newsItems) {
+
+            // The news items of evicted pages are not known
+            if (news != null) {
+                newestPublicationTime = Math.max(newestPublicationTime, news.getPublicationTime());
+            }
+        }
+
+        return newestPublicationTime;
+    }
+
+    @Override
+    public void deliverResult(List<News> newsItems) {
+        mLoading = false;
+        mNextPageRequested = false;
+        mWindowMoveRequested = false;
+        mNewsItems = newsItems;
+        super.deliverResult(newsItems);
+
+        // Stored news items were delivered, now download the current ones
+        if (mRevalidatePending && isStarted()) {
+            mRevalidatePending = false;
+            onContentChanged();
+        }
+    }
+
+    /**
+     * Called on the main thread with the news items of a load that was cancelled.
+     */
+    private void onCanceled(List<News> newsItems) {
+
+        // The load was cancelled by forceLoad(), so the load replacing it is still running
+        // and mLoading stays set until that one is delivered
+        mNextPageRequested = false;
+        mWindowMoveRequested = false;
+    }
+
+    /**
+     * Fetch {@code pageCount} pages of the feeds {@code feedUrls} starting at {@code firstPage} on
+     * the {@link NewsTaskScheduler}, with the priority of the load, and append them to
+     * {@code pages} in page order. Once a page failed or was the last page of every feed, the
+     * later pages are cancelled and left out, because they cannot follow it.
+     * A page fails only if none of the feeds could be fetched. A failed page sets
+     * {@link #mPageFailed} but not {@link #mLastPageReached}, so the next scroll asks for it again.
+     */
+    private void fetchPages(List<String> feedUrls, int firstPage, int pageCount,
+                            List<List<News>> pages) {
+
+        List<NewsTaskScheduler.Task<NewsFeedFetcher.Result>> futures = new ArrayList<>();
+        mPageFailed = false;
+        mFeedMissed = false;
+
+        // Submit every page request at once so they are downloaded in parallel
+        for (int i = 0; i < pageCount; i++) {
+
+            final List<String> pageUrls = appendQueryParameter(feedUrls,
+                    "page", String.valueOf(firstPage + i));
+
+            futures.add(mScheduler.submit(mLoadPriority, new Callable<NewsFeedFetcher.Result>() {
+                @Override
+                public NewsFeedFetcher.Result call() {
+                    return mFeedFetcher.fetch(pageUrls);
+                }
+            }));
+        }
+
+        // Wait for the pages in order, so the merged list keeps the API's ordering
+        for (int i = 0; i < futures.size(); i++) {
+
+            // A previous page was the last one or failed, so this request is no longer needed
+            if (mLastPageReached || mPageFailed) {
+                futures.get(i).cancel(true);
+                continue;
+            }
+
+            List<News> page = null;
+            NewsFeedFetcher.Result result = null;
+
+            try {
+                // Fetch the page on this thread if every thread of the scheduler is busy
+                futures.get(i).runIfQueued();
+                result = futures.get(i).get();
+                page = result.getNewsItems();
+
+                if (!result.isComplete()) {
+                    mFeedMissed = true;
+                }
+
+            } catch (InterruptedException e) {
+
+                // The load was cancelled, so the pages still being fetched are cancelled too,
+                // which closes their connections and stops their parsing
+                Thread.currentThread().interrupt();
+                for (int j = i; j < futures.size(); j++) {
+                    futures.get(j).cancel(true);
+                }
+                mPageFailed = true;
+                return;
+            } catch (ExecutionException e) {
+
+                Log.e(LOG_TAG, "Problem fetching page " + (firstPage + i), e);
+            }
+
+            if (page == null) {
+                mPageFailed = true;
+                continue;
+            }
+
+            pages.add(page);
+            mLoadedPageCount = firstPage + i;
+
+            // Each feed has its own number of pages, so the merged page cannot tell
+            if (result.isLastPage(mPageSize)) {
+                mLastPageReached = true;
+            }
+        }
+    }
+
+    /**
+     * Download the given page of every feed again, as asked by the {@link NewsPageWindow}.
+     * Returns null if no feed could be fetched.
+     */
+    private List<News> fetchPage(int page) {
+        return mFeedFetcher.fetch(appendQueryParameter(mFeedUrls,
+                "page", String.valueOf(page))).getNewsItems();
+    }
+
+    /**
+     * A load run on the {@link NewsTaskScheduler}, which hands its news items to the main thread.
+     */
+    private final class LoadTask implements Callable<Void> {
+
+        final NewsTaskScheduler.Priority mPriority;
+
+        /**
+         * Set when the load starts, or when it is cancelled before it started
+         */
+        final AtomicBoolean mStarted = new AtomicBoolean();
+
+        /**
+         * The submitted task, or null until it is submitted. Only used on the main thread
+         */
+        NewsTaskScheduler.Task<Void> mFuture;
+
+        LoadTask(NewsTaskScheduler.Priority priority) {
+            mPriority = priority;
+        }
+
+        @Override
+        public Void call() {
+
+            // Cancelled before it started
+            if (!mStarted.compareAndSet(false, true)) {
+                return null;
+            }
+
+            List<News> newsItems = null;
+            boolean failed = false;
+
+            try {
+                mLoadPriority = mPriority;
+                newsItems = loadInBackground();
+
+            } catch (RuntimeException e) {
+
+                Log.e(LOG_TAG, "Problem loading the news items", e);
+                failed = true;
+            } finally {
+
+                final List<News> result = newsItems;
+                final boolean loadFailed = failed;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onTaskDone(LoadTask.this, result, loadFailed);
+                    }
+                });
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Returns the query URLs with the given parameter appended to each of them.
+     */
+    private static List<String> appendQueryParameter(List<String> urls, String key,
+                                                     String value) {
+
+        List<String> newUrls = new ArrayList<>(urls.size());
+
+        for (String url : urls) {
+            newUrls.add(Uri.parse(url).buildUpon()
+                    .appendQueryParameter(key, value)
+                    .build()
+                    .toString());
+        }
+
+        return newUrls;
+    }
 }
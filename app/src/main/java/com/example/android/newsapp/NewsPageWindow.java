@@ -0,0 +1,357 @@
+package com.example.android.newsapp;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The pages of news items shown in the endless list, of which only a sliding window around
+ * the position the user is looking at is kept in memory.
+ * <p>
+ * Pages further away than the window are evicted, and are loaded again from the
+ * {@link PageSource} when the user scrolls back to them. Only the size of an evicted page is
+ * kept, one int, so every position stays where it was and the heap used stays the same
+ * however far the user scrolls.
+ * <p>
+ * The list shown by the adapter is a {@link #snapshot()}, in which the news items of the
+ * evicted pages are null. Pages are loaded on the thread calling {@link #moveTo(int)}, which
+ * must not be the main thread.
+ */
+public final class NewsPageWindow {
+
+    /**
+     * Loads one page of news items again after it was evicted.
+     */
+    public interface PageSource {
+
+        /**
+         * Returns the news items of the given page, counted from 0, or null if it failed.
+         */
+        List<News> loadPage(int page);
+    }
+
+    private final PageSource mSource;
+
+    /**
+     * Maximum number of pages kept in memory
+     */
+    private final int mMaxResidentPages;
+
+    /**
+     * Position of the first news item of every page, followed by the total number of news
+     * items, so the page of the news item at position p is the last one starting at or
+     * before p
+     */
+    private int[] mPageStarts = new int[16];
+
+    private int mPageCount;
+
+    /**
+     * News items of the pages kept in memory by page
+     */
+    private final Map<Integer, List<News>> mResidentPages = new HashMap<>();
+
+    /**
+     * Incremented when the pages are replaced, so a page loaded for the previous ones is
+     * not added to the new ones
+     */
+    private int mGeneration;
+
+    /**
+     * Constructs a new empty {@link NewsPageWindow}.
+     *
+     * @param source           loads the evicted pages again
+     * @param maxResidentPages is the maximum number of pages kept in memory
+     */
+    public NewsPageWindow(PageSource source, int maxResidentPages) {
+        mSource = source;
+        mMaxResidentPages = Math.max(1, maxResidentPages);
+    }
+
+    /**
+     * Replace the pages with the given ones, as they were fetched, and evict the ones after
+     * the window starting at the first page. Page {@code i} must be the news items
+     * {@link PageSource#loadPage(int)} gives for {@code i}, so evicted pages come back the same.
+     */
+    public synchronized void reset(List<List<News>> pages) {
+
+        mGeneration++;
+        mResidentPages.clear();
+        mPageCount = 0;
+        mPageStarts[0] = 0;
+
+        for (List<News> page : pages) {
+            addPage(new ArrayList<>(page));
+            if (mPageCount > mMaxResidentPages) {
+                mResidentPages.remove(mPageCount - 1);
+            }
+        }
+    }
+
+    /**
+     * Replace the pages with the ones of a {@link #snapshot()}, including the evicted ones.
+     *
+     * @throws IllegalArgumentException if the news items are not a snapshot
+     */
+    public synchronized void restore(List<News> snapshot) {
+
+        if (!(snapshot instanceof Snapshot)) {
+            throw new IllegalArgumentException("Not a snapshot of a window");
+        }
+
+        Snapshot pages = (Snapshot) snapshot;
+
+        mGeneration++;
+        mResidentPages.clear();
+        mPageStarts = Arrays.copyOf(pages.mPageStarts, pages.mPageStarts.length + 16);
+        mPageCount = pages.mPageStarts.length - 1;
+        mResidentPages.putAll(pages.mPages);
+    }
+
+    /**
+     * Add a page after the last one. The user is at the end of the list, so the pages
+     * furthest from it are evicted.
+     */
+    public synchronized void appendPage(List<News> page) {
+        addPage(new ArrayList<>(page));
+        trimAround(mPageCount - 1);
+    }
+
+    /**
+     * Load the pages of the window around the given position that are not in memory, nearest
+     * first, and evict the pages outside of it. A page that cannot be loaded stays evicted.
+     * This may download, so it must not be called on the main thread.
+     *
+     * @return whether a page was loaded
+     */
+    public boolean moveTo(int position) {
+
+        List<Integer> missingPages = new ArrayList<>();
+        int generation;
+
+        synchronized (this) {
+            if (mPageCount == 0) {
+                return false;
+            }
+
+            int center = findPage(Math.max(0, Math.min(position, size() - 1)));
+            trimAround(center);
+            generation = mGeneration;
+
+            // Nearest pages first, so the one being looked at is shown as soon as possible
+            int first = getFirstPage(center);
+            for (int distance = 0; distance < mMaxResidentPages; distance++) {
+                for (int page : new int[]{center + distance, center - distance}) {
+                    if (page >= first && page < first + mMaxResidentPages && page < mPageCount
+                            && !mResidentPages.containsKey(page) && !missingPages.contains(page)) {
+                        missingPages.add(page);
+                    }
+                }
+            }
+        }
+
+        boolean loaded = false;
+
+        for (int page : missingPages) {
+
+            // The load was cancelled, the pages still missing are loaded by the next one
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+
+            List<News> newsItems = mSource.loadPage(page);
+
+            if (newsItems == null) {
+                continue;
+            }
+
+            synchronized (this) {
+                if (generation != mGeneration) {
+                    return loaded;
+                }
+
+                setPage(page, new ArrayList<>(newsItems));
+                loaded = true;
+            }
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Returns the news items of the list as it is now, in which the news items of the evicted
+     * pages are null. The snapshot does not change when the window does.
+     */
+    public synchronized List<News> snapshot() {
+        return new Snapshot(Arrays.copyOf(mPageStarts, mPageCount + 1),
+                new HashMap<>(mResidentPages));
+    }
+
+    /**
+     * Returns the news items of the pages in memory, in page order.
+     */
+    public synchronized List<News> getResidentItems() {
+
+        List<News> newsItems = new ArrayList<>();
+
+        for (int page = 0; page < mPageCount; page++) {
+            List<News> pageItems = mResidentPages.get(page);
+            if (pageItems != null) {
+                newsItems.addAll(pageItems);
+            }
+        }
+
+        return newsItems;
+    }
+
+    /**
+     * Returns every page in page order, null for the evicted ones.
+     */
+    public synchronized List<List<News>> getPages() {
+
+        List<List<News>> pages = new ArrayList<>(mPageCount);
+
+        for (int page = 0; page < mPageCount; page++) {
+            pages.add(mResidentPages.get(page));
+        }
+
+        return pages;
+    }
+
+    /**
+     * Returns whether every page is in memory.
+     */
+    public synchronized boolean isFullyResident() {
+        return mResidentPages.size() == mPageCount;
+    }
+
+    /**
+     * Returns the number of pages, including the evicted ones.
+     */
+    public synchronized int getPageCount() {
+        return mPageCount;
+    }
+
+    /**
+     * Returns the number of pages in memory.
+     */
+    public synchronized int getResidentPageCount() {
+        return mResidentPages.size();
+    }
+
+    /**
+     * Returns the number of news items, including the ones of the evicted pages.
+     */
+    public synchronized int size() {
+        return mPageStarts[mPageCount];
+    }
+
+    private void addPage(List<News> page) {
+
+        if (mPageCount + 1 >= mPageStarts.length) {
+            mPageStarts = Arrays.copyOf(mPageStarts, mPageStarts.length * 2);
+        }
+
+        mPageStarts[mPageCount + 1] = mPageStarts[mPageCount] + page.size();
+        mResidentPages.put(mPageCount, page);
+        mPageCount++;
+    }
+
+    /**
+     * Put a page loaded again back in memory. The news items of a feed may have moved since
+     * the page was first loaded, so the positions of the following pages move with its size.
+     */
+    private void setPage(int page, List<News> newsItems) {
+
+        int difference = newsItems.size() - (mPageStarts[page + 1] - mPageStarts[page]);
+
+        if (difference != 0) {
+            for (int i = page + 1; i <= mPageCount; i++) {
+                mPageStarts[i] += difference;
+            }
+        }
+
+        mResidentPages.put(page, newsItems);
+    }
+
+    /**
+     * Evict the pages outside of the window around the given page.
+     */
+    private void trimAround(int center) {
+
+        int first = getFirstPage(center);
+        int last = first + mMaxResidentPages - 1;
+
+        for (Integer page : new ArrayList<>(mResidentPages.keySet())) {
+            if (page < first || page > last) {
+                mResidentPages.remove(page);
+            }
+        }
+    }
+
+    /**
+     * Returns the first page of the window around the given page, which is centered on it
+     * unless it is near the start or the end of the list.
+     */
+    private int getFirstPage(int center) {
+        int first = center - (mMaxResidentPages - 1) / 2;
+        return Math.max(0, Math.min(first, mPageCount - mMaxResidentPages));
+    }
+
+    /**
+     * Returns the page of the news item at the given position.
+     */
+    private int findPage(int position) {
+        return findPage(mPageStarts, mPageCount, position);
+    }
+
+    private static int findPage(int[] pageStarts, int pageCount, int position) {
+
+        int index = Arrays.binarySearch(pageStarts, 0, pageCount, position);
+
+        if (index < 0) {
+            return -index - 2;
+        }
+
+        // Skip the empty pages starting at the same position
+        while (index + 1 < pageCount && pageStarts[index + 1] == position) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Unmodifiable copy of the list, null at the positions of the evicted pages.
+     */
+    private static final class Snapshot extends AbstractList<News> {
+
+        final int[] mPageStarts;
+        final Map<Integer, List<News>> mPages;
+
+        Snapshot(int[] pageStarts, Map<Integer, List<News>> pages) {
+            mPageStarts = pageStarts;
+            mPages = Collections.unmodifiableMap(pages);
+        }
+
+        @Override
+        public News get(int position) {
+
+            if (position < 0 || position >= size()) {
+                throw new IndexOutOfBoundsException("Position " + position + ", size " + size());
+            }
+
+            int page = findPage(mPageStarts, mPageStarts.length - 1, position);
+            List<News> newsItems = mPages.get(page);
+            return newsItems == null ? null : newsItems.get(position - mPageStarts[page]);
+        }
+
+        @Override
+        public int size() {
+            return mPageStarts[mPageStarts.length - 1];
+        }
+    }
+}
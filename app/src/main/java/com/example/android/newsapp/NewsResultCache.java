@@ -0,0 +1,156 @@
+package com.example.android.newsapp;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory cache of the parsed news items by request URL, shared by the whole process, so
+ * a {@link NewsLoader} that starts again, for example after the screen is rotated, can show
+ * the news items it already has instead of downloading them again.
+ * <p>
+ * A result is fresh for a fixed time after it was stored. At most {@link #MAX_CACHED_NEWS}
+ * news items are kept in total, and the least recently used results are evicted first.
+ */
+public final class NewsResultCache {
+
+    /**
+     * Maximum number of news items kept in the process-wide cache
+     */
+    static final int MAX_CACHED_NEWS = 1000;
+
+    /**
+     * How long a result of the process-wide cache stays fresh
+     */
+    static final long TIME_TO_LIVE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final NewsResultCache sInstance =
+            new NewsResultCache(Clock.SYSTEM, MAX_CACHED_NEWS, TIME_TO_LIVE_MILLIS);
+
+    private final Clock mClock;
+    private final int mMaxNews;
+    private final long mTimeToLiveMillis;
+
+    /**
+     * Cached results by request URL, ordered from least to most recently used
+     */
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<>(8, 0.75f, true);
+
+    /**
+     * Total number of news items in the cached results
+     */
+    private int mNewsCount;
+
+    private int mHitCount;
+    private int mMissCount;
+
+    /**
+     * Constructs a new {@link NewsResultCache}.
+     *
+     * @param clock            gives the time results are stored and looked up at
+     * @param maxNews          is the maximum number of news items kept in total
+     * @param timeToLiveMillis is how long a result stays fresh after it is stored
+     */
+    NewsResultCache(Clock clock, int maxNews, long timeToLiveMillis) {
+        mClock = clock;
+        mMaxNews = maxNews;
+        mTimeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * Returns the {@link NewsResultCache} shared by the whole process.
+     */
+    public static NewsResultCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Returns the news items stored for the given URL if they are still fresh, otherwise null.
+     */
+    public synchronized List<News> get(String url) {
+
+        Entry entry = mEntries.get(url);
+
+        if (entry == null) {
+            mMissCount++;
+            return null;
+        }
+
+        if (mClock.currentTimeMillis() - entry.mStoredAt >= mTimeToLiveMillis) {
+            remove(url);
+            mMissCount++;
+            return null;
+        }
+
+        mHitCount++;
+        return entry.mNewsItems;
+    }
+
+    /**
+     * Store the news items loaded from the given URL. The list must not be changed afterwards.
+     */
+    public synchronized void put(String url, List<News> newsItems) {
+
+        remove(url);
+
+        // A result that can never fit is not cached at all
+        if (newsItems.size() > mMaxNews) {
+            return;
+        }
+
+        mEntries.put(url, new Entry(newsItems, mClock.currentTimeMillis()));
+        mNewsCount += newsItems.size();
+
+        // Evict the least recently used results until the news items fit
+        Iterator<Entry> entries = mEntries.values().iterator();
+        while (mNewsCount > mMaxNews && entries.hasNext()) {
+            mNewsCount -= entries.next().mNewsItems.size();
+            entries.remove();
+        }
+    }
+
+    /**
+     * Remove the result stored for the given URL, so the next load downloads it again.
+     */
+    public synchronized void remove(String url) {
+
+        Entry entry = mEntries.remove(url);
+
+        if (entry != null) {
+            mNewsCount -= entry.mNewsItems.size();
+        }
+    }
+
+    /**
+     * Returns how many lookups found a fresh result.
+     */
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns how many lookups found no result, or only a stale one.
+     */
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Returns the total number of news items cached.
+     */
+    public synchronized int getNewsCount() {
+        return mNewsCount;
+    }
+
+    private static final class Entry {
+
+        final List<News> mNewsItems;
+        final long mStoredAt;
+
+        Entry(List<News> newsItems, long storedAt) {
+            mNewsItems = newsItems;
+            mStoredAt = storedAt;
+        }
+    }
+}
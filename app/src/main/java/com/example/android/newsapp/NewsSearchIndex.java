@@ -0,0 +1,409 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over the titles, sections and author(s)/contributor(s) of every news item
+ * the app has loaded, so they can be searched without asking the Guardian API again.
+ * <p>
+ * Every word of a query matches the words of a news item that start with it, ignoring case,
+ * and a news item is found when it matches every word of the query. News items are added as
+ * they are loaded. Adding a news item with the same URL as an indexed one replaces it.
+ * <p>
+ * Only the URL and publication time of a news item are kept, not the news item itself, so the
+ * pages let go of by the {@link NewsPageWindow} can be freed and are still found. A search
+ * returns URLs, which are read back from the {@link NewsStore} every loaded news item is
+ * saved in.
+ */
+public final class NewsSearchIndex {
+
+    /**
+     * Newest documents first
+     */
+    private static final Comparator<Document> NEWEST_FIRST = new Comparator<Document>() {
+        @Override
+        public int compare(Document a, Document b) {
+            long timeA = a.mPublicationTime;
+            long timeB = b.mPublicationTime;
+            return timeA < timeB ? 1 : (timeA == timeB ? 0 : -1);
+        }
+    };
+
+    /**
+     * Replaced news items are only dropped from the postings once there are this many
+     */
+    private static final int MIN_DELETED_FOR_COMPACTION = 1000;
+
+    private static final NewsSearchIndex sInstance = new NewsSearchIndex();
+
+    /**
+     * Indexed news items by document number, null for the ones that have been replaced
+     */
+    private final ArrayList<Document> mDocuments = new ArrayList<>();
+
+    /**
+     * Document number of every indexed URL
+     */
+    private final Map<String, Integer> mDocumentsByUrl = new HashMap<>();
+
+    /**
+     * Document numbers containing each word, sorted so words sharing a prefix are next to
+     * each other
+     */
+    private final TreeMap<String, Postings> mPostings = new TreeMap<>();
+
+    /**
+     * Number of replaced news items still in {@link #mDocuments}
+     */
+    private int mDeletedCount;
+
+    /**
+     * Returns the {@link NewsSearchIndex} shared by the whole process.
+     */
+    public static NewsSearchIndex getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Add the given news items to the index, replacing the indexed ones with the same URL.
+     */
+    public synchronized void addAll(List<News> newsItems) {
+
+        for (News news : newsItems) {
+            add(news);
+        }
+
+        compactIfNeeded();
+    }
+
+    /**
+     * Add every news item kept in the store, {@link NewsStore#MAX_LOADED_NEWS} at a time,
+     * so the news items loaded before the app started can be found. Stops early if the
+     * calling thread is interrupted. This reads from disk, so it must not be called on the
+     * main thread.
+     */
+    public void addAll(NewsStore store) {
+
+        int pageSize = NewsStore.MAX_LOADED_NEWS;
+
+        for (int offset = 0; !Thread.currentThread().isInterrupted(); offset += pageSize) {
+
+            List<News> newsItems = store.loadNews(offset, pageSize);
+            addAll(newsItems);
+
+            if (newsItems.size() < pageSize) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the URLs of the indexed news items that match every word of the query, newest
+     * first. Returns an empty list if the query has no words.
+     */
+    public List<String> search(String query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the URLs of the newest {@code maxResults} indexed news items that match every
+     * word of the query, newest first. Returns an empty list if the query has no words.
+     */
+    public synchronized List<String> search(String query, int maxResults) {
+
+        List<String> words = tokenize(query);
+
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        BitSet matches = null;
+
+        for (String word : words) {
+
+            BitSet wordMatches = new BitSet(mDocuments.size());
+
+            // Every indexed word that starts with the query word
+            for (Postings postings : mPostings.subMap(word, word + Character.MAX_VALUE).values()) {
+                postings.addTo(wordMatches);
+            }
+
+            if (matches == null) {
+                matches = wordMatches;
+            } else {
+                matches.and(wordMatches);
+            }
+
+            if (matches.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Document> documents = new ArrayList<>(matches.cardinality());
+
+        for (int document = matches.nextSetBit(0); document >= 0;
+             document = matches.nextSetBit(document + 1)) {
+
+            Document indexed = mDocuments.get(document);
+
+            if (indexed != null) {
+                documents.add(indexed);
+            }
+        }
+
+        Collections.sort(documents, NEWEST_FIRST);
+
+        List<String> urls = new ArrayList<>(Math.min(maxResults, documents.size()));
+        for (int i = 0; i < documents.size() && i < maxResults; i++) {
+            urls.add(documents.get(i).mUrl);
+        }
+        return urls;
+    }
+
+    /**
+     * Returns the number of news items that can be found.
+     */
+    public synchronized int size() {
+        return mDocumentsByUrl.size();
+    }
+
+    /**
+     * Returns the number of distinct words indexed.
+     */
+    public synchronized int getWordCount() {
+        return mPostings.size();
+    }
+
+    /**
+     * Returns an estimate of the memory used by the index, in bytes, including the URLs it
+     * keeps.
+     */
+    public synchronized long estimateMemoryBytes() {
+
+        // Object headers and references as laid out by a 32 bit runtime
+        long bytes = 16 + 4L * mDocuments.size();
+
+        for (Document document : mDocuments) {
+            if (document != null) {
+
+                // Document, URL string and characters
+                bytes += 32 + 24 + 16 + 2L * document.mUrl.length();
+            }
+        }
+
+        // Each URL entry is a map entry and a boxed document number
+        bytes += mDocumentsByUrl.size() * (32L + 16);
+
+        for (Map.Entry<String, Postings> entry : mPostings.entrySet()) {
+
+            // Tree map entry, word string and characters, postings object and array
+            bytes += 40 + 24 + 2L * entry.getKey().length()
+                    + 24 + 16 + 4L * entry.getValue().mDocuments.length;
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Index a single news item.
+     */
+    private void add(News news) {
+
+        int contentHash = hashContents(news);
+        Integer indexed = mDocumentsByUrl.get(news.getUrl());
+
+        if (indexed != null) {
+
+            Document indexedDocument = mDocuments.get(indexed);
+
+            // The same words are indexed, so only the publication time may need updating
+            if (indexedDocument.mContentHash == contentHash) {
+                if (indexedDocument.mPublicationTime != news.getPublicationTime()) {
+                    mDocuments.set(indexed, new Document(news.getUrl(),
+                            news.getPublicationTime(), contentHash));
+                }
+                return;
+            }
+
+            // Otherwise the old words must stop matching, so it is indexed again as a new document
+            mDocuments.set(indexed, null);
+            mDeletedCount++;
+        }
+
+        int document = mDocuments.size();
+        mDocuments.add(new Document(news.getUrl(), news.getPublicationTime(), contentHash));
+        mDocumentsByUrl.put(news.getUrl(), document);
+
+        for (String text : new String[]{news.getTitle(), news.getSection(), news.getAuthor()}) {
+            for (String word : tokenize(text)) {
+                Postings postings = mPostings.get(word);
+
+                if (postings == null) {
+                    postings = new Postings();
+                    mPostings.put(word, postings);
+                }
+
+                postings.add(document);
+            }
+        }
+    }
+
+    /**
+     * Returns a hash of the indexed text of the news item, to tell whether a news item added
+     * again has the same words.
+     */
+    private static int hashContents(News news) {
+        return Arrays.hashCode(new String[]{news.getTitle(), news.getSection(), news.getAuthor()});
+    }
+
+    /**
+     * Drop the replaced news items from the postings once they take too much room.
+     */
+    private void compactIfNeeded() {
+        if (mDeletedCount >= MIN_DELETED_FOR_COMPACTION && mDeletedCount * 2 > mDocuments.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Number the news items again without the replaced ones, and renumber the postings.
+     */
+    private void compact() {
+
+        // New number of every document, or -1 for the replaced ones
+        int[] newNumbers = new int[mDocuments.size()];
+        ArrayList<Document> liveDocuments = new ArrayList<>(mDocumentsByUrl.size());
+
+        for (int i = 0; i < mDocuments.size(); i++) {
+            Document document = mDocuments.get(i);
+
+            if (document == null) {
+                newNumbers[i] = -1;
+            } else {
+                newNumbers[i] = liveDocuments.size();
+                liveDocuments.add(document);
+                mDocumentsByUrl.put(document.mUrl, newNumbers[i]);
+            }
+        }
+
+        Iterator<Postings> postings = mPostings.values().iterator();
+        while (postings.hasNext()) {
+            if (!postings.next().renumber(newNumbers)) {
+                postings.remove();
+            }
+        }
+
+        mDocuments.clear();
+        mDocuments.addAll(liveDocuments);
+        mDocuments.trimToSize();
+        mDeletedCount = 0;
+    }
+
+    /**
+     * Split the text into lower case words made of letters and digits.
+     */
+    static List<String> tokenize(String text) {
+
+        List<String> words = new ArrayList<>();
+
+        if (text == null) {
+            return words;
+        }
+
+        StringBuilder word = new StringBuilder();
+
+        for (int i = 0; i <= text.length(); i++) {
+
+            char c = i < text.length() ? text.charAt(i) : ' ';
+
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+
+        return words;
+    }
+
+    /**
+     * Growable, ascending array of document numbers.
+     */
+    private static final class Postings {
+
+        int[] mDocuments = new int[2];
+        int mSize;
+
+        void add(int document) {
+
+            // A word can appear several times in the same news item
+            if (mSize > 0 && mDocuments[mSize - 1] == document) {
+                return;
+            }
+
+            if (mSize == mDocuments.length) {
+                int[] documents = new int[mSize * 2];
+                System.arraycopy(mDocuments, 0, documents, 0, mSize);
+                mDocuments = documents;
+            }
+
+            mDocuments[mSize++] = document;
+        }
+
+        void addTo(BitSet documents) {
+            for (int i = 0; i < mSize; i++) {
+                documents.set(mDocuments[i]);
+            }
+        }
+
+        /**
+         * Replace every document number by its new number, dropping the ones whose new
+         * number is -1. Returns false if no document is left.
+         */
+        boolean renumber(int[] newNumbers) {
+
+            int size = 0;
+
+            // New numbers keep the order of the old ones, so the array stays ascending
+            for (int i = 0; i < mSize; i++) {
+                int document = newNumbers[mDocuments[i]];
+                if (document >= 0) {
+                    mDocuments[size++] = document;
+                }
+            }
+
+            mSize = size;
+            return size > 0;
+        }
+    }
+
+    /**
+     * What is kept of an indexed news item.
+     */
+    private static final class Document {
+
+        final String mUrl;
+        final long mPublicationTime;
+
+        /**
+         * Hash of the indexed text, see {@link #hashContents(News)}
+         */
+        final int mContentHash;
+
+        Document(String url, long publicationTime, int contentHash) {
+            mUrl = url;
+            mPublicationTime = publicationTime;
+            mContentHash = contentHash;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.example.android.newsapp;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.util.Log;
+
+import com.example.android.newsapp.NewsContract.NewsEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores the downloaded news items in the local database, so they can be shown
+ * straight away the next time the app starts, even without a network connection.
+ * <p>
+ * The news items of the list are kept with the page they were downloaded on, so the list
+ * comes back with the pages it had, and a page evicted by the {@link NewsPageWindow} is
+ * downloaded again as the same page.
+ * <p>
+ * News items are kept for {@link #MAX_AGE_MILLIS} after they were last downloaded,
+ * and at most {@link #MAX_STORED_NEWS} of the newest ones are kept. That is more than the
+ * list shows, {@link #MAX_LOADED_NEWS}, because every stored news item can be searched:
+ * the {@link NewsSearchIndex} is rebuilt from the store when the app starts, and the
+ * news items it finds are read back from here.
+ */
+public final class NewsStore {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = NewsStore.class.getSimpleName();
+
+    /**
+     * Maximum number of news items kept in the database, and so searchable
+     */
+    static final int MAX_STORED_NEWS = 30000;
+
+    /**
+     * Maximum number of news items read at once, such as the pages of the list shown when
+     * the app starts
+     */
+    static final int MAX_LOADED_NEWS = 500;
+
+    /**
+     * News items that have not been downloaded again for this long are deleted
+     */
+    static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    /**
+     * Newest news items first, in the order they were returned by the Guardian API
+     */
+    private static final String SORT_ORDER = NewsEntry.COLUMN_PUBLICATION_TIME + " DESC, "
+            + NewsEntry.COLUMN_FETCHED_AT + " DESC, " + NewsEntry._ID + " ASC";
+
+    /**
+     * Pages of the list in order, each newest first like the merged feeds
+     */
+    private static final String PAGE_SORT_ORDER = NewsEntry.COLUMN_PAGE + " ASC, " + SORT_ORDER;
+
+    /**
+     * Columns read back into a news item
+     */
+    private static final String[] PROJECTION = {
+            NewsEntry.COLUMN_SECTION,
+            NewsEntry.COLUMN_TITLE,
+            NewsEntry.COLUMN_AUTHOR,
+            NewsEntry.COLUMN_PUBLICATION_TIME,
+            NewsEntry.COLUMN_URL,
+            NewsEntry.COLUMN_THUMBNAIL_URL};
+
+    /**
+     * Most URLs looked up by a single query, below the SQLite limit of 999 arguments
+     */
+    private static final int MAX_QUERY_ARGUMENTS = 500;
+
+    private static NewsStore sInstance;
+
+    private final NewsDbHelper mDbHelper;
+
+    private NewsStore(Context context) {
+        mDbHelper = new NewsDbHelper(context.getApplicationContext());
+    }
+
+    /**
+     * Returns the {@link NewsStore} shared by the whole app.
+     */
+    public static synchronized NewsStore getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new NewsStore(context);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the pages of the list as they were last downloaded, up to
+     * {@link #MAX_LOADED_NEWS} news items. Page {@code i} of the result is page {@code i + 1}
+     * of the list, empty if none of its news items are kept. This reads from disk, so it must
+     * not be called on the main thread.
+     */
+    public List<List<News>> loadPages() {
+
+        List<List<News>> pages = new ArrayList<>();
+        Cursor cursor = null;
+
+        try {
+            SQLiteDatabase database = mDbHelper.getReadableDatabase();
+
+            String[] projection = Arrays.copyOf(PROJECTION, PROJECTION.length + 1);
+            projection[PROJECTION.length] = NewsEntry.COLUMN_PAGE;
+
+            cursor = database.query(NewsEntry.TABLE_NAME, projection,
+                    NewsEntry.COLUMN_PAGE + " > 0", null, null, null, PAGE_SORT_ORDER,
+                    String.valueOf(MAX_LOADED_NEWS));
+
+            int pageColumnIndex = cursor.getColumnIndex(NewsEntry.COLUMN_PAGE);
+            List<News> newsItems = new ArrayList<>();
+            readNews(cursor, newsItems);
+
+            for (int i = 0; i < newsItems.size(); i++) {
+                cursor.moveToPosition(i);
+                int page = cursor.getInt(pageColumnIndex);
+
+                while (pages.size() < page) {
+                    pages.add(new ArrayList<News>());
+                }
+                pages.get(page - 1).add(newsItems.get(i));
+            }
+
+            // The limit may have cut the last page short
+            if (newsItems.size() == MAX_LOADED_NEWS && pages.size() > 1) {
+                pages.remove(pages.size() - 1);
+            }
+
+        } catch (SQLiteException e) {
+
+            Log.e(LOG_TAG, "Problem reading the stored pages", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return pages;
+    }
+
+    /**
+     * Returns at most {@code limit} stored news items, newest first, skipping the newest
+     * {@code offset} ones. This reads from disk, so it must not be called on the main thread.
+     */
+    public List<News> loadNews(int offset, int limit) {
+
+        List<News> newsItems = new ArrayList<>();
+        Cursor cursor = null;
+
+        try {
+            SQLiteDatabase database = mDbHelper.getReadableDatabase();
+
+            cursor = database.query(NewsEntry.TABLE_NAME, PROJECTION, null, null,
+                    null, null, SORT_ORDER, offset + "," + limit);
+
+            readNews(cursor, newsItems);
+
+        } catch (SQLiteException e) {
+
+            Log.e(LOG_TAG, "Problem reading the stored news items", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        return newsItems;
+    }
+
+    /**
+     * Returns the stored news items with the given URLs, in the order of the URLs.
+     * URLs that are not stored are skipped. This reads from disk, so it must not be
+     * called on the main thread.
+     */
+    public List<News> loadNews(List<String> urls) {
+
+        Map<String, News> newsByUrl = new HashMap<>();
+        Cursor cursor = null;
+
+        try {
+            SQLiteDatabase database = mDbHelper.getReadableDatabase();
+
+            // SQLite limits the number of arguments of a statement
+            for (int start = 0; start < urls.size(); start += MAX_QUERY_ARGUMENTS) {
+
+                List<String> chunk =
+                        urls.subList(start, Math.min(urls.size(), start + MAX_QUERY_ARGUMENTS));
+
+                StringBuilder selection = new StringBuilder(NewsEntry.COLUMN_URL + " IN (");
+                for (int i = 0; i < chunk.size(); i++) {
+                    selection.append(i == 0 ? "?" : ",?");
+                }
+                selection.append(')');
+
+                cursor = database.query(NewsEntry.TABLE_NAME, PROJECTION, selection.toString(),
+                        chunk.toArray(new String[chunk.size()]), null, null, null);
+
+                List<News> newsItems = new ArrayList<>();
+                readNews(cursor, newsItems);
+                cursor.close();
+                cursor = null;
+
+                for (News news : newsItems) {
+                    newsByUrl.put(news.getUrl(), news);
+                }
+            }
+
+        } catch (SQLiteException e) {
+
+            Log.e(LOG_TAG, "Problem reading the stored news items", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        List<News> newsItems = new ArrayList<>(newsByUrl.size());
+        for (String url : urls) {
+            News news = newsByUrl.get(url);
+            if (news != null) {
+                newsItems.add(news);
+            }
+        }
+        return newsItems;
+    }
+
+    /**
+     * Add a news item for every row of the cursor, which must have the {@link #PROJECTION}
+     * columns.
+     */
+    private static void readNews(Cursor cursor, List<News> newsItems) {
+
+        // Figure out the index of each column
+        int sectionColumnIndex = cursor.getColumnIndex(NewsEntry.COLUMN_SECTION);
+        int titleColumnIndex = cursor.getColumnIndex(NewsEntry.COLUMN_TITLE);
+        int authorColumnIndex = cursor.getColumnIndex(NewsEntry.COLUMN_AUTHOR);
+        int publicationTimeColumnIndex =
+                cursor.getColumnIndex(NewsEntry.COLUMN_PUBLICATION_TIME);
+        int urlColumnIndex = cursor.getColumnIndex(NewsEntry.COLUMN_URL);
+        int thumbnailUrlColumnIndex = cursor.getColumnIndex(NewsEntry.COLUMN_THUMBNAIL_URL);
+
+        // Iterate through all the returned rows in the cursor
+        while (cursor.moveToNext()) {
+            newsItems.add(new News(
+                    cursor.getString(sectionColumnIndex),
+                    cursor.getString(titleColumnIndex),
+                    cursor.getString(authorColumnIndex),
+                    cursor.getLong(publicationTimeColumnIndex),
+                    cursor.getString(urlColumnIndex),
+                    cursor.getString(thumbnailUrlColumnIndex)));
+        }
+    }
+
+    /**
+     * Insert the news items of the given pages of the list, numbered from {@code firstPage},
+     * replacing the stored ones with the same URL, then delete the news items that fall outside
+     * the retention policy. Saving page 1 starts the list over, so the news items of the
+     * previous list are only kept to be searched.
+     * This writes to disk, so it must not be called on the main thread.
+     */
+    public void savePages(List<List<News>> pages, int firstPage) {
+
+        long now = System.currentTimeMillis();
+
+        try {
+            SQLiteDatabase database = mDbHelper.getWritableDatabase();
+            database.beginTransaction();
+
+            try {
+                ContentValues values = new ContentValues();
+
+                if (firstPage == 1) {
+                    values.put(NewsEntry.COLUMN_PAGE, 0);
+                    database.update(NewsEntry.TABLE_NAME, values,
+                            NewsEntry.COLUMN_PAGE + " > 0", null);
+                }
+
+                for (int i = 0; i < pages.size(); i++) {
+                    for (News news : pages.get(i)) {
+                        values.put(NewsEntry.COLUMN_SECTION, news.getSection());
+                        values.put(NewsEntry.COLUMN_TITLE, news.getTitle());
+                        values.put(NewsEntry.COLUMN_AUTHOR, news.getAuthor());
+                        values.put(NewsEntry.COLUMN_PUBLICATION_TIME, news.getPublicationTime());
+                        values.put(NewsEntry.COLUMN_URL, news.getUrl());
+                        values.put(NewsEntry.COLUMN_THUMBNAIL_URL, news.getThumbnailUrl());
+                        values.put(NewsEntry.COLUMN_FETCHED_AT, now);
+                        values.put(NewsEntry.COLUMN_PAGE, firstPage + i);
+
+                        database.insertWithOnConflict(NewsEntry.TABLE_NAME, null, values,
+                                SQLiteDatabase.CONFLICT_REPLACE);
+                    }
+                }
+
+                applyRetention(database, now);
+                database.setTransactionSuccessful();
+
+            } finally {
+                database.endTransaction();
+            }
+
+        } catch (SQLiteException e) {
+
+            Log.e(LOG_TAG, "Problem saving the news items", e);
+        }
+    }
+
+    /**
+     * Delete the news items that are too old, then everything after the newest
+     * {@link #MAX_STORED_NEWS}.
+     */
+    private static void applyRetention(SQLiteDatabase database, long now) {
+
+        database.delete(NewsEntry.TABLE_NAME, NewsEntry.COLUMN_FETCHED_AT + " < ?",
+                new String[]{String.valueOf(now - MAX_AGE_MILLIS)});
+
+        // Sorting every stored news item is only worth it when there are too many
+        if (DatabaseUtils.queryNumEntries(database, NewsEntry.TABLE_NAME) <= MAX_STORED_NEWS) {
+            return;
+        }
+
+        database.execSQL("DELETE FROM " + NewsEntry.TABLE_NAME + " WHERE " + NewsEntry._ID
+                + " NOT IN (SELECT " + NewsEntry._ID + " FROM " + NewsEntry.TABLE_NAME
+                + " ORDER BY " + SORT_ORDER + " LIMIT " + MAX_STORED_NEWS + ")");
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.android.newsapp;
+
+import android.annotation.TargetApi;
+import android.app.job.JobParameters;
+import android.app.job.JobService;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Downloads the newest news items in the background and saves them in the {@link NewsStore},
+ * then schedules the next sync. Scheduled by {@link NewsSyncScheduler}.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP)
+public class NewsSyncJobService extends JobService {
+
+    /**
+     * Number of news items downloaded from each feed by a sync. A sync runs on an unmetered
+     * network or while charging, so it asks for more than one page of the list.
+     */
+    private static final int SYNC_PAGE_SIZE = 25;
+
+    /**
+     * How long a sync waits for the feeds before saving the ones that were downloaded
+     */
+    private static final long SYNC_FEED_TIMEOUT_MILLIS = 30000;
+
+    /**
+     * Runs the syncs one at a time, off the main thread
+     */
+    private static final ExecutorService SYNC_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * The sync that is running, or null
+     */
+    private volatile Future<?> mSync;
+
+    @Override
+    public boolean onStartJob(final JobParameters params) {
+
+        // A sync is already running, and it schedules both jobs once it is done
+        if (mSync != null) {
+            return false;
+        }
+
+        // The other job may have just synced. This job is still running until this returns,
+        // and scheduling it now would stop it, so the next sync is scheduled afterwards
+        if (!NewsSyncScheduler.loadPolicy(this).isSyncDue()) {
+            new Handler(Looper.getMainLooper()).post(new Runnable() {
+                @Override
+                public void run() {
+                    NewsSyncScheduler.schedule(NewsSyncJobService.this);
+                }
+            });
+            return false;
+        }
+
+        NewsSyncScheduler.setRunningJob(params.getJobId());
+        mSync = SYNC_EXECUTOR.submit(new Runnable() {
+            @Override
+            public void run() {
+
+                List<String> feedUrls = QueryUtils.buildFeedUrls(
+                        getResources().getStringArray(R.array.news_feed_sections), SYNC_PAGE_SIZE);
+                List<News> newsItems = new NewsFeedFetcher(NewsFeedFetcher.GUARDIAN_SOURCE,
+                        SYNC_FEED_TIMEOUT_MILLIS).fetch(feedUrls).getNewsItems();
+
+                // The job was stopped by the system, which runs it again later. That is not a
+                // failure of the sync, so the policy is left as it was
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                BackoffSyncPolicy policy = NewsSyncScheduler.loadPolicy(NewsSyncJobService.this);
+
+                // The newest news items start the list over. The sync asks for larger pages
+                // than the list, so they are all kept as its first page
+                if (newsItems != null) {
+                    NewsStore.getInstance(NewsSyncJobService.this)
+                            .savePages(Collections.singletonList(newsItems), 1);
+                    policy.onSyncSucceeded();
+                } else {
+                    policy.onSyncFailed();
+                }
+
+                NewsSyncScheduler.savePolicy(NewsSyncJobService.this, policy);
+
+                // Finish the job before scheduling it again, which would stop it otherwise
+                finish(params);
+                NewsSyncScheduler.schedule(NewsSyncJobService.this);
+            }
+        });
+
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+
+        // The network or charging constraint is no longer met, so stop downloading and let
+        // JobScheduler run the job again once it is. The sync did not fail, so it does not
+        // count towards the backoff of the policy.
+        Future<?> sync = mSync;
+        if (sync != null) {
+            sync.cancel(true);
+        }
+        mSync = null;
+        NewsSyncScheduler.setRunningJob(NewsSyncScheduler.NO_RUNNING_JOB);
+        return true;
+    }
+
+    private void finish(final JobParameters params) {
+        mSync = null;
+        NewsSyncScheduler.setRunningJob(NewsSyncScheduler.NO_RUNNING_JOB);
+        jobFinished(params, false);
+    }
+}
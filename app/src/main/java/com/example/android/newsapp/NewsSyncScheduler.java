@@ -0,0 +1,149 @@
+package com.example.android.newsapp;
+
+import android.annotation.TargetApi;
+import android.app.job.JobInfo;
+import android.app.job.JobScheduler;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules {@link NewsSyncJobService} to download the news items in the background, so they
+ * are already stored when the app is opened.
+ * <p>
+ * A sync only runs on an unmetered network or while the device is charging. JobScheduler
+ * constraints must all be met, so one job is scheduled for each case and whichever runs
+ * first does the sync. When to run is decided by a {@link BackoffSyncPolicy}, whose state is
+ * kept in shared preferences between syncs. Background sync needs JobScheduler, so it is
+ * only available from API level 21.
+ * <p>
+ * Scheduling a job again stops it if it is running, so the job running a sync is left as it is
+ * and schedules the jobs itself once it has finished.
+ */
+public final class NewsSyncScheduler {
+
+    /**
+     * Job ID of the sync that waits for an unmetered network
+     */
+    static final int UNMETERED_JOB_ID = 1001;
+
+    /**
+     * Job ID of the sync that waits for the device to be charging
+     */
+    static final int CHARGING_JOB_ID = 1002;
+
+    /**
+     * Time before retrying the first failed sync
+     */
+    private static final long INITIAL_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Longest time before retrying a failed sync
+     */
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Value of {@link #sRunningJobId} while no sync is running
+     */
+    static final int NO_RUNNING_JOB = 0;
+
+    private static final String PREFERENCES_NAME = "news_sync";
+    private static final String KEY_LAST_SUCCESS_TIME = "last_success_time";
+    private static final String KEY_LAST_ATTEMPT_TIME = "last_attempt_time";
+    private static final String KEY_FAILURE_COUNT = "failure_count";
+
+    /**
+     * Job ID of the job running a sync, or {@link #NO_RUNNING_JOB}
+     */
+    private static volatile int sRunningJobId = NO_RUNNING_JOB;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link NewsSyncScheduler} object.
+     */
+    private NewsSyncScheduler() {
+    }
+
+    /**
+     * Schedule the next background sync, replacing the jobs already scheduled except one
+     * running a sync.
+     * Does nothing before API level 21.
+     */
+    public static void schedule(Context context) {
+
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return;
+        }
+
+        scheduleJobs(context, loadPolicy(context).getNextSyncDelay());
+    }
+
+    /**
+     * Remember the job running a sync, or forget it with {@link #NO_RUNNING_JOB}, so scheduling
+     * the next sync meanwhile does not stop it.
+     */
+    static void setRunningJob(int jobId) {
+        sRunningJobId = jobId;
+    }
+
+    /**
+     * Returns the sync policy, continuing from the state saved after the last sync.
+     */
+    static BackoffSyncPolicy loadPolicy(Context context) {
+
+        SharedPreferences preferences = getPreferences(context);
+        long intervalMillis = TimeUnit.MINUTES.toMillis(
+                context.getResources().getInteger(R.integer.sync_interval_minutes));
+
+        return new BackoffSyncPolicy(Clock.SYSTEM, intervalMillis,
+                INITIAL_BACKOFF_MILLIS, MAX_BACKOFF_MILLIS,
+                preferences.getLong(KEY_LAST_SUCCESS_TIME, 0),
+                preferences.getLong(KEY_LAST_ATTEMPT_TIME, 0),
+                preferences.getInt(KEY_FAILURE_COUNT, 0));
+    }
+
+    /**
+     * Save the state of the sync policy for the next sync.
+     */
+    static void savePolicy(Context context, BackoffSyncPolicy policy) {
+        getPreferences(context).edit()
+                .putLong(KEY_LAST_SUCCESS_TIME, policy.getLastSuccessTime())
+                .putLong(KEY_LAST_ATTEMPT_TIME, policy.getLastAttemptTime())
+                .putInt(KEY_FAILURE_COUNT, policy.getFailureCount())
+                .apply();
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private static void scheduleJobs(Context context, long delayMillis) {
+
+        JobScheduler jobScheduler =
+                (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        ComponentName service = new ComponentName(context, NewsSyncJobService.class);
+        int runningJobId = sRunningJobId;
+
+        // Run on an unmetered network, whether or not the device is charging
+        if (runningJobId != UNMETERED_JOB_ID) {
+            jobScheduler.schedule(new JobInfo.Builder(UNMETERED_JOB_ID, service)
+                    .setMinimumLatency(delayMillis)
+                    .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                    .setPersisted(true)
+                    .build());
+        }
+
+        // Or on any network while the device is charging
+        if (runningJobId != CHARGING_JOB_ID) {
+            jobScheduler.schedule(new JobInfo.Builder(CHARGING_JOB_ID, service)
+                    .setMinimumLatency(delayMillis)
+                    .setRequiredNetworkType(JobInfo.NETWORK_TYPE_ANY)
+                    .setRequiresCharging(true)
+                    .setPersisted(true)
+                    .build());
+        }
+    }
+}
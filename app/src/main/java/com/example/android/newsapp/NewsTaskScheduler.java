@@ -0,0 +1,295 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs the background data work of the app on a bounded set of threads, taking the queued
+ * tasks by {@link Priority}: what the user is waiting for first, then the next page, then
+ * work done ahead of time.
+ * <p>
+ * A refresh never waits behind lower priority work. Refreshes may use every thread, while the
+ * lower priorities together always leave one free for them, and work done ahead of time runs
+ * one task at a time. Tasks of the same priority run in the order they were submitted.
+ * <p>
+ * A task waiting for tasks it submitted should call {@link Task#runIfQueued()} first, which
+ * runs them on its own thread if no thread has taken them yet, so the threads can never all
+ * be waiting. Cancelling a queued task removes it from the queue, and cancelling a running one
+ * interrupts its thread. The interrupt is cleared once the task is done, so it never reaches
+ * the next task run on that thread.
+ * <p>
+ * A task runs with the thread priority of its lane. The pools of the fetch/parse core, such as
+ * the ones fetching the feeds of a page, are {@link NewsThreadPool}s, which run the work a task
+ * hands them with that thread priority and queue it by that priority, so the lane reaches every
+ * thread the task uses.
+ */
+public final class NewsTaskScheduler {
+
+    /**
+     * Priority lanes of the tasks, most urgent first.
+     */
+    public enum Priority {
+
+        /**
+         * Loads the user is waiting for, such as the first load, a refresh, or the pages
+         * scrolled back to
+         */
+        REFRESH(Thread.NORM_PRIORITY),
+
+        /**
+         * The next page, fetched before the user reaches the end of the list
+         */
+        NEXT_PAGE(Thread.NORM_PRIORITY - 1),
+
+        /**
+         * Work done ahead of time that nothing waits for, such as prefetching articles
+         */
+        ENRICHMENT(Thread.MIN_PRIORITY);
+
+        /**
+         * Priority of the thread while it runs a task of this lane
+         */
+        final int mThreadPriority;
+
+        Priority(int threadPriority) {
+            mThreadPriority = threadPriority;
+        }
+    }
+
+    /**
+     * Number of threads of the scheduler shared by the whole app: a load, and the pages it
+     * fetches concurrently
+     */
+    static final int THREAD_COUNT = 4;
+
+    private static final NewsTaskScheduler sInstance = new NewsTaskScheduler(THREAD_COUNT);
+
+    private final int mThreadCount;
+
+    /**
+     * Queued tasks of every priority, by ordinal. Guarded by this scheduler, and it is
+     * notified when a task is queued or done
+     */
+    private final List<ArrayDeque<Task<?>>> mQueues = new ArrayList<>();
+
+    /**
+     * Number of tasks running on the threads of the scheduler, by priority ordinal
+     */
+    private final int[] mRunningCounts = new int[Priority.values().length];
+
+    /**
+     * Constructs a new {@link NewsTaskScheduler} and starts its threads.
+     *
+     * @param threadCount is the number of tasks run at the same time, at least 2
+     */
+    public NewsTaskScheduler(int threadCount) {
+
+        if (threadCount < 2) {
+            throw new IllegalArgumentException("At least 2 threads are needed, got " + threadCount);
+        }
+
+        mThreadCount = threadCount;
+
+        for (int i = 0; i < Priority.values().length; i++) {
+            mQueues.add(new ArrayDeque<Task<?>>());
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    runTasks();
+                }
+            }, "NewsTaskScheduler-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Returns the {@link NewsTaskScheduler} shared by the whole app.
+     */
+    public static NewsTaskScheduler getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Queue the callable with the given priority.
+     *
+     * @return the task, to get its result or cancel it
+     */
+    public <T> Task<T> submit(Priority priority, Callable<T> callable) {
+
+        Task<T> task = new Task<>(priority, callable);
+        int queueDepth;
+
+        synchronized (this) {
+            ArrayDeque<Task<?>> queue = mQueues.get(priority.ordinal());
+            queue.add(task);
+            queueDepth = queue.size();
+            notifyAll();
+        }
+
+        NewsMetrics.getInstance().recordQueueDepth(queueDepth);
+        return task;
+    }
+
+    /**
+     * Returns an {@link Executor} that queues its runnables with the given priority.
+     */
+    public Executor asExecutor(final Priority priority) {
+        return new Executor() {
+            @Override
+            public void execute(final Runnable runnable) {
+                submit(priority, new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        runnable.run();
+                        return null;
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Returns the number of queued tasks of the given priority.
+     */
+    public synchronized int getQueueDepth(Priority priority) {
+        return mQueues.get(priority.ordinal()).size();
+    }
+
+    /**
+     * Returns the number of tasks of the given priority running on the threads of the scheduler.
+     */
+    public synchronized int getRunningCount(Priority priority) {
+        return mRunningCounts[priority.ordinal()];
+    }
+
+    /**
+     * Run the queued tasks, forever. This is on a thread of the scheduler.
+     */
+    private void runTasks() {
+
+        Thread thread = Thread.currentThread();
+
+        while (true) {
+
+            Task<?> task;
+
+            try {
+                task = take();
+            } catch (InterruptedException e) {
+
+                // A cancelled task is interrupted while running, never while waiting, but a
+                // late interrupt must not stop the thread
+                continue;
+            }
+
+            thread.setPriority(task.mPriority.mThreadPriority);
+            NewsMetrics.getInstance().recordQueueWait(System.nanoTime() - task.mSubmitNanos);
+
+            try {
+                task.run();
+            } finally {
+
+                // Clear the interrupt of a cancelled task, the thread goes on to the next one
+                Thread.interrupted();
+
+                synchronized (this) {
+                    mRunningCounts[task.mPriority.ordinal()]--;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait for the most urgent queued task that may run now and take it.
+     */
+    private synchronized Task<?> take() throws InterruptedException {
+
+        while (true) {
+
+            for (Priority priority : Priority.values()) {
+
+                ArrayDeque<Task<?>> queue = mQueues.get(priority.ordinal());
+
+                if (!queue.isEmpty() && mayRun(priority)) {
+                    mRunningCounts[priority.ordinal()]++;
+                    return queue.poll();
+                }
+            }
+
+            wait();
+        }
+    }
+
+    /**
+     * Returns whether a task of the given priority may start on a free thread.
+     */
+    private boolean mayRun(Priority priority) {
+
+        if (priority == Priority.REFRESH) {
+            return true;
+        }
+
+        // Leave one thread for refreshes
+        int lowerPriorityCount = 0;
+        for (Priority running : Priority.values()) {
+            if (running != Priority.REFRESH) {
+                lowerPriorityCount += mRunningCounts[running.ordinal()];
+            }
+        }
+        if (lowerPriorityCount >= mThreadCount - 1) {
+            return false;
+        }
+
+        return priority != Priority.ENRICHMENT
+                || mRunningCounts[Priority.ENRICHMENT.ordinal()] == 0;
+    }
+
+    /**
+     * Remove the task from its queue. Returns false if it is not queued any more.
+     */
+    private synchronized boolean dequeue(Task<?> task) {
+        return mQueues.get(task.mPriority.ordinal()).remove(task);
+    }
+
+    /**
+     * A task of the scheduler.
+     */
+    public final class Task<T> extends FutureTask<T> {
+
+        final Priority mPriority;
+        final long mSubmitNanos = System.nanoTime();
+
+        Task(Priority priority, Callable<T> callable) {
+            super(callable);
+            mPriority = priority;
+        }
+
+        /**
+         * Run the task on the calling thread if no thread of the scheduler has taken it yet.
+         * Called before waiting for the task, so a task waiting for the tasks it submitted
+         * runs them itself when every thread is busy.
+         */
+        public void runIfQueued() {
+            if (dequeue(this)) {
+                run();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+
+            // A queued task is dropped straight away, so it does not count as queued work
+            dequeue(this);
+            return super.cancel(mayInterruptIfRunning);
+        }
+    }
+}
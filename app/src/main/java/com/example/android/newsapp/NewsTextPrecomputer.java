@@ -0,0 +1,218 @@
+package com.example.android.newsapp;
+
+import android.content.Context;
+import android.support.v4.text.PrecomputedTextCompat;
+import android.support.v4.widget.TextViewCompat;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.TextView;
+
+import java.util.List;
+
+/**
+ * Measures the titles and author(s)/contributor(s) of the news items on a background thread,
+ * once they are loaded, so binding a list item only sets text that is already measured.
+ * <p>
+ * The text is measured with {@link PrecomputedTextCompat}, which keeps the measurements with
+ * the text on Android 9 and newer, and fills the text layout cache of the system on older
+ * versions. It is measured with the paint of the TextViews of news_list_item.xml, and a list
+ * item whose TextViews paint differently, for example after the font size was changed, sets
+ * the plain text instead.
+ */
+public final class NewsTextPrecomputer {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = NewsTextPrecomputer.class.getSimpleName();
+
+    private static NewsTextPrecomputer sInstance;
+
+    private final Context mContext;
+
+    /**
+     * Measured text of the news items by URL
+     */
+    private final LruCache<String, Texts> mTexts;
+
+    /**
+     * How the title and the author TextViews of a list item measure text, or null until a
+     * list item has been inflated to find out
+     */
+    private PrecomputedTextCompat.Params mTitleParams;
+    private PrecomputedTextCompat.Params mAuthorParams;
+
+    /**
+     * Constructs a new {@link NewsTextPrecomputer}.
+     *
+     * @param context       of the app
+     * @param maxCachedNews is the maximum number of news items whose text is kept
+     */
+    NewsTextPrecomputer(Context context, int maxCachedNews) {
+        mContext = context.getApplicationContext();
+        mTexts = new LruCache<>(maxCachedNews);
+    }
+
+    /**
+     * Returns the {@link NewsTextPrecomputer} shared by the whole app.
+     */
+    public static synchronized NewsTextPrecomputer getInstance(Context context) {
+        if (sInstance == null) {
+            int pageItemCount = MainActivity.PAGE_SIZE
+                    * context.getResources().getStringArray(R.array.news_feed_sections).length;
+            sInstance = new NewsTextPrecomputer(context, getMaxCachedNews(pageItemCount));
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the maximum number of news items whose text is kept: the pages kept by the
+     * {@link NewsLoader}, and one more for the page fetched once the list comes within the
+     * prefetch distance of its end or of a page that was let go. That page is measured before
+     * the window lets go of another one, and without room for it the texts of pages still
+     * shown would be evicted and measured again.
+     *
+     * @param pageItemCount is the number of news items in a page of every feed
+     */
+    static int getMaxCachedNews(int pageItemCount) {
+        return (NewsLoader.MAX_RESIDENT_PAGES + 1) * pageItemCount;
+    }
+
+    /**
+     * Measure the text of the given news items that is not measured yet. This measures text,
+     * so it must not be called on the main thread. Stops early if the thread is interrupted.
+     */
+    public void precompute(List<News> newsItems) {
+
+        long startNanos = System.nanoTime();
+        int count = 0;
+
+        if (!ensureParams()) {
+            return;
+        }
+
+        for (News news : newsItems) {
+
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+
+            if (news == null || getTexts(news) != null) {
+                continue;
+            }
+
+            PrecomputedTextCompat author = news.hasAuthorName()
+                    ? PrecomputedTextCompat.create(news.getAuthor(), mAuthorParams) : null;
+
+            mTexts.put(news.getUrl(), new Texts(news.getTitle(),
+                    PrecomputedTextCompat.create(news.getTitle(), mTitleParams),
+                    news.getAuthor(), author));
+            count++;
+        }
+
+        Log.d(LOG_TAG, "Measured the text of " + count + " news items in "
+                + (System.nanoTime() - startNanos) / 1000 + " us");
+    }
+
+    /**
+     * Returns the measured title of the news item, or null if it has not been measured.
+     */
+    public PrecomputedTextCompat getTitle(News news) {
+        Texts texts = getTexts(news);
+        return texts == null ? null : texts.mTitle;
+    }
+
+    /**
+     * Returns the measured author(s)/contributor(s) of the news item, or null if they have not
+     * been measured or there are none.
+     */
+    public PrecomputedTextCompat getAuthor(News news) {
+        Texts texts = getTexts(news);
+        return texts == null ? null : texts.mAuthor;
+    }
+
+    /**
+     * Forget every measured text, for example when the memory runs low.
+     */
+    public void clear() {
+        mTexts.evictAll();
+    }
+
+    /**
+     * Show the measured text in the TextView if it was measured with the same paint,
+     * otherwise the plain text, which the TextView then measures itself.
+     */
+    static void setText(TextView textView, PrecomputedTextCompat.Params params,
+                        PrecomputedTextCompat precomputedText, String text) {
+
+        if (precomputedText != null && precomputedText.getParams().equals(params)) {
+            TextViewCompat.setPrecomputedText(textView, precomputedText);
+        } else {
+            textView.setText(text);
+        }
+    }
+
+    /**
+     * Returns the measured text of the news item, or null if it was not measured or the news
+     * item has changed since.
+     */
+    private Texts getTexts(News news) {
+
+        Texts texts = mTexts.get(news.getUrl());
+
+        if (texts == null || !texts.mTitleText.equals(news.getTitle())
+                || !texts.mAuthorText.equals(news.getAuthor())) {
+            return null;
+        }
+
+        return texts;
+    }
+
+    /**
+     * Find out how a list item measures text by inflating one, which can be done off the main
+     * thread as long as it is not attached. Returns false if it cannot be inflated.
+     */
+    private synchronized boolean ensureParams() {
+
+        if (mTitleParams != null) {
+            return true;
+        }
+
+        try {
+            View listItemView = LayoutInflater.from(mContext).inflate(
+                    R.layout.news_list_item, null, false);
+
+            mTitleParams = TextViewCompat.getTextMetricsParams(
+                    (TextView) listItemView.findViewById(R.id.title_text_view));
+            mAuthorParams = TextViewCompat.getTextMetricsParams(
+                    (TextView) listItemView.findViewById(R.id.author_name_text_view));
+            return true;
+
+        } catch (RuntimeException e) {
+
+            Log.e(LOG_TAG, "Problem inflating a list item to measure text with", e);
+            return false;
+        }
+    }
+
+    /**
+     * The text of one news item and its measured version.
+     */
+    private static final class Texts {
+
+        final String mTitleText;
+        final PrecomputedTextCompat mTitle;
+        final String mAuthorText;
+        final PrecomputedTextCompat mAuthor;
+
+        Texts(String titleText, PrecomputedTextCompat title, String authorText,
+              PrecomputedTextCompat author) {
+            mTitleText = titleText;
+            mTitle = title;
+            mAuthorText = authorText;
+            mAuthor = author;
+        }
+    }
+}
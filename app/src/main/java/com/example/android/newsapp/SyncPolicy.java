@@ -0,0 +1,32 @@
+package com.example.android.newsapp;
+
+/**
+ * Decides when the news items should next be synced in the background.
+ */
+public interface SyncPolicy {
+
+    /**
+     * Returns the time, in milliseconds since the epoch, at which the next sync should run.
+     */
+    long getNextSyncTime();
+
+    /**
+     * Returns how long to wait from now before the next sync, in milliseconds, never negative.
+     */
+    long getNextSyncDelay();
+
+    /**
+     * Returns whether a sync should run now.
+     */
+    boolean isSyncDue();
+
+    /**
+     * Record that a sync downloaded the news items.
+     */
+    void onSyncSucceeded();
+
+    /**
+     * Record that a sync could not download the news items.
+     */
+    void onSyncFailed();
+}
@@ -0,0 +1,466 @@
+package com.example.android.newsapp;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads the thumbnail images of the news items into the {@link ImageView}s of the list.
+ * <p>
+ * Images are downsampled while they are decoded, to the smallest power of two that still
+ * covers the view, and decoded without an alpha channel. Decoded thumbnails are kept in a
+ * memory cache bounded to an eighth of the memory class of the app, and the downloaded images
+ * as they were downloaded in a {@link DiskLruCache}. Loading a view again cancels its previous
+ * request, and decoding waits while the list is flung, see {@link #setPaused(boolean)}.
+ * <p>
+ * {@link #load(String, ImageView)}, {@link #cancel(ImageView)} and
+ * {@link #setPaused(boolean)} must be called on the main thread.
+ */
+public final class ThumbnailLoader {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = ThumbnailLoader.class.getSimpleName();
+
+    /**
+     * Number of thumbnails downloaded and decoded at the same time
+     */
+    private static final int THREAD_COUNT = 2;
+
+    /**
+     * Largest image downloaded, thumbnails of the Guardian API are far smaller
+     */
+    private static final int MAX_IMAGE_BYTES = 1024 * 1024;
+
+    /**
+     * Maximum size of the downloaded images kept on disk by the app, in bytes
+     */
+    private static final long MAX_DISK_CACHE_BYTES = 10 * 1024 * 1024;
+
+    private static ThumbnailLoader sInstance;
+
+    /**
+     * Decoded thumbnails by URL and size, sized by the bytes of their pixels
+     */
+    private final LruCache<String, Bitmap> mMemoryCache;
+
+    /**
+     * Downloaded images by URL, already compressed, so a thumbnail evicted from the memory
+     * cache is decoded again without the network
+     */
+    private final DiskLruCache mDiskCache;
+
+    private final ExecutorService mExecutor;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * HTTP client and retries of the thumbnail downloads. The images come from another host
+     * than the Guardian API, so they do not share the latencies the API timeouts are based on.
+     */
+    private final NewsHttpClient mHttpClient = new NewsHttpClient(
+            NewsRequestExecutor.DEFAULT_CONNECT_TIMEOUT_MILLIS,
+            NewsRequestExecutor.DEFAULT_READ_TIMEOUT_MILLIS);
+    private final NewsRequestExecutor mRequestExecutor =
+            new NewsRequestExecutor(2, 500 /* milliseconds */, 500 /* milliseconds */,
+                    false, new Random());
+
+    /**
+     * The request of every view that is still loading. Views are weakly referenced, here and by
+     * their requests, so a view that is gone does not keep its request
+     */
+    private final Map<ImageView, Request> mRequests = new WeakHashMap<>();
+
+    /**
+     * Guards {@link #mPaused} and {@link #mPendingDecodes}
+     */
+    private final Object mPauseLock = new Object();
+
+    private boolean mPaused;
+
+    /**
+     * Requests whose image was loaded while decoding was paused, holding the image until
+     * decoding resumes, so the threads are free to go on downloading meanwhile
+     */
+    private final List<Request> mPendingDecodes = new ArrayList<>();
+
+    /**
+     * Constructs a new {@link ThumbnailLoader}.
+     *
+     * @param memoryCacheBytes is the maximum size of the decoded thumbnails kept in memory
+     * @param diskCache        keeps the downloaded images
+     */
+    public ThumbnailLoader(int memoryCacheBytes, DiskLruCache diskCache) {
+
+        mMemoryCache = new LruCache<String, Bitmap>(memoryCacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+        mDiskCache = diskCache;
+        mExecutor = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "ThumbnailLoader");
+            }
+        });
+    }
+
+    /**
+     * Returns the {@link ThumbnailLoader} shared by the whole app.
+     */
+    public static ThumbnailLoader getInstance(Context context) {
+
+        if (sInstance == null) {
+
+            // The memory class is smaller on devices with less memory, 1/8 of it leaves plenty
+            // for the rest of the app
+            ActivityManager activityManager =
+                    (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            int memoryCacheBytes = activityManager.getMemoryClass() * 1024 * 1024 / 8;
+
+            sInstance = new ThumbnailLoader(memoryCacheBytes, new DiskLruCache(
+                    new File(context.getApplicationContext().getCacheDir(), "thumbnails"),
+                    MAX_DISK_CACHE_BYTES));
+        }
+        return sInstance;
+    }
+
+    /**
+     * Show the image at the given URL in the view, straight away if it is in the memory cache
+     * and once it is loaded otherwise. Cancels the request the view had before.
+     */
+    public void load(String url, ImageView view) {
+
+        cancel(view);
+
+        int[] size = getTargetSize(view);
+        String key = url + "@" + size[0] + "x" + size[1];
+        Bitmap bitmap = mMemoryCache.get(key);
+
+        if (bitmap != null) {
+            view.setImageBitmap(bitmap);
+            return;
+        }
+
+        view.setImageDrawable(null);
+
+        Request request = new Request(url, key, size[0], size[1], view);
+        mRequests.put(view, request);
+        request.mFuture = mExecutor.submit(request);
+    }
+
+    /**
+     * Cancel the request of the view, if it has one, such as when its list item is recycled.
+     * An image that is being downloaded is still stored in the disk cache.
+     */
+    public void cancel(ImageView view) {
+
+        Request request = mRequests.remove(view);
+
+        if (request != null) {
+            request.mCancelled = true;
+            request.mFuture.cancel(false);
+
+            // Drop its image if it is waiting for decoding to resume
+            synchronized (mPauseLock) {
+                mPendingDecodes.remove(request);
+            }
+        }
+    }
+
+    /**
+     * Hold back decoding while the list is flung, so the frames are drawn in time.
+     * Downloads go on while decoding is paused, and the images they load are decoded once it
+     * resumes.
+     */
+    public void setPaused(boolean paused) {
+
+        List<Request> pendingDecodes;
+
+        synchronized (mPauseLock) {
+            mPaused = paused;
+            if (paused || mPendingDecodes.isEmpty()) {
+                return;
+            }
+            pendingDecodes = new ArrayList<>(mPendingDecodes);
+            mPendingDecodes.clear();
+        }
+
+        for (Request request : pendingDecodes) {
+            request.mFuture = mExecutor.submit(request);
+        }
+    }
+
+    /**
+     * Release the memory cache when the system runs low on memory, or once the app is in the
+     * background. The thumbnails are decoded again from the disk cache when they are needed.
+     *
+     * @param level is the level given to {@link ComponentCallbacks2#onTrimMemory(int)}
+     */
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                && level < ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)) {
+            mMemoryCache.evictAll();
+        }
+    }
+
+    /**
+     * Returns the largest power of two to divide the width and height of an image by, so that
+     * it still covers the requested width and height. A requested size of 0 keeps the image
+     * at its full size.
+     */
+    static int calculateInSampleSize(int width, int height, int requestedWidth,
+                                     int requestedHeight) {
+
+        int inSampleSize = 1;
+
+        if (requestedWidth <= 0 || requestedHeight <= 0) {
+            return inSampleSize;
+        }
+
+        while (width / (inSampleSize * 2) >= requestedWidth
+                && height / (inSampleSize * 2) >= requestedHeight) {
+            inSampleSize *= 2;
+        }
+
+        return inSampleSize;
+    }
+
+    /**
+     * Returns the width and height to decode for the view: its fixed layout size, or its
+     * measured size, or 0 when it is not known yet.
+     */
+    private static int[] getTargetSize(ImageView view) {
+
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        int width = params != null && params.width > 0 ? params.width : view.getWidth();
+        int height = params != null && params.height > 0 ? params.height : view.getHeight();
+
+        return new int[]{width, height};
+    }
+
+    /**
+     * Decode the image, downsampled to cover the requested size, or return null if it is not
+     * a valid image or there was not enough memory.
+     */
+    private Bitmap decode(byte[] image, int requestedWidth, int requestedHeight) {
+
+        long startNanos = System.nanoTime();
+
+        // Read the size of the image without allocating its pixels
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(image, 0, image.length, options);
+
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight,
+                requestedWidth, requestedHeight);
+
+        // Thumbnails are photos without transparency, so 2 bytes per pixel are enough
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+
+        try {
+            Bitmap bitmap = BitmapFactory.decodeByteArray(image, 0, image.length, options);
+            NewsMetrics.getInstance().recordDecode(System.nanoTime() - startNanos);
+            return bitmap;
+
+        } catch (OutOfMemoryError e) {
+
+            Log.e(LOG_TAG, "Not enough memory to decode a thumbnail", e);
+            mMemoryCache.evictAll();
+            return null;
+        }
+    }
+
+    /**
+     * Download the image at the given URL, or return null if that failed.
+     */
+    private byte[] download(final String url) {
+
+        return mRequestExecutor.execute(new NewsRequestExecutor.Attempt<byte[]>() {
+            @Override
+            public byte[] run(int connectTimeoutMillis, int readTimeoutMillis)
+                    throws IOException {
+
+                NewsHttpClient.Response response = mHttpClient.get(new URL(url),
+                        Collections.<String, String>emptyMap(), connectTimeoutMillis,
+                        readTimeoutMillis);
+
+                try {
+                    int responseCode = response.getCode();
+
+                    if (responseCode == HttpURLConnection.HTTP_OK) {
+                        return readImage(response.getBody());
+                    }
+                    if (responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                        throw new IOException("Error response code: " + responseCode);
+                    }
+
+                    Log.e(LOG_TAG, "Error response code: " + responseCode + " for " + url);
+                    return null;
+
+                } finally {
+                    response.close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Read the whole image, or return null if it is larger than {@link #MAX_IMAGE_BYTES}.
+     */
+    private static byte[] readImage(InputStream in) throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        byte[] buffer = new byte[8192];
+        int read;
+
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+
+            if (out.size() > MAX_IMAGE_BYTES) {
+                Log.e(LOG_TAG, "Thumbnail larger than " + MAX_IMAGE_BYTES + " bytes");
+                return null;
+            }
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Loads one thumbnail for one view, from the disk cache or the network. When decoding is
+     * paused, the loaded image is kept and the request runs again once it resumes.
+     */
+    private final class Request implements Runnable {
+
+        private final String mUrl;
+        private final String mKey;
+        private final int mWidth;
+        private final int mHeight;
+        private final WeakReference<ImageView> mView;
+
+        /**
+         * Set on the main thread when the view no longer wants this thumbnail
+         */
+        volatile boolean mCancelled;
+
+        /**
+         * Set on the main thread to the last submission of this request
+         */
+        Future<?> mFuture;
+
+        /**
+         * The image loaded while decoding was paused, guarded by {@link #mPauseLock}
+         */
+        private byte[] mImage;
+
+        Request(String url, String key, int width, int height, ImageView view) {
+            mUrl = url;
+            mKey = key;
+            mWidth = width;
+            mHeight = height;
+            mView = new WeakReference<>(view);
+        }
+
+        @Override
+        public void run() {
+
+            // Keep the loads from slowing down the main thread
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+
+            if (mCancelled) {
+                return;
+            }
+
+            byte[] image;
+
+            synchronized (mPauseLock) {
+                image = mImage;
+                mImage = null;
+            }
+
+            if (image == null) {
+                image = mDiskCache.get(mUrl);
+            }
+
+            if (image == null) {
+                image = download(mUrl);
+
+                if (image == null) {
+                    return;
+                }
+                mDiskCache.put(mUrl, image);
+            }
+
+            synchronized (mPauseLock) {
+                if (mCancelled) {
+                    return;
+                }
+
+                // Free the thread for other downloads, setPaused(false) submits this again
+                if (mPaused) {
+                    mImage = image;
+                    mPendingDecodes.add(this);
+                    return;
+                }
+            }
+
+            final Bitmap bitmap = decode(image, mWidth, mHeight);
+
+            if (bitmap == null) {
+                return;
+            }
+
+            mMemoryCache.put(mKey, bitmap);
+
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+
+                    ImageView view = mView.get();
+
+                    // The view may be gone, or have been given another news item in the meantime
+                    if (view != null && mRequests.get(view) == Request.this) {
+                        mRequests.remove(view);
+                        view.setImageBitmap(bitmap);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the compressed text storage of {@link ArticleBodyCache}, and the parse of the article
+ * responses it stores. Eviction is checked by DiskLruCacheTest.
+ */
+public class ArticleBodyCacheTest {
+
+    private static final String URL_A = "https://www.theguardian.com/business/2018/sep/25/a";
+    private static final String URL_B = "https://www.theguardian.com/sport/2018/sep/25/b";
+
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = Files.createTempDirectory("article_bodies").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(mDirectory);
+    }
+
+    @Test
+    public void put_thenGet_returnsBody() {
+        ArticleBodyCache cache = new ArticleBodyCache(mDirectory, 1024 * 1024);
+        String body = "Shares rose across Europe on Tuesday. £ and € both gained.";
+
+        assertFalse(cache.contains(URL_A));
+        assertNull(cache.get(URL_A));
+
+        cache.put(URL_A, body);
+
+        assertTrue(cache.contains(URL_A));
+        assertEquals(body, cache.get(URL_A));
+        assertNull(cache.get(URL_B));
+    }
+
+    @Test
+    public void put_storesCompressedBody() {
+        ArticleBodyCache cache = new ArticleBodyCache(mDirectory, 1024 * 1024);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            body.append("Investors welcomed signs that the trade dispute would not escalate. ");
+        }
+
+        cache.put(URL_A, body.toString());
+
+        assertTrue("Stored " + cache.size() + " bytes", cache.size() < body.length() / 4);
+    }
+
+    @Test
+    public void newInstance_readsStoredBodies() {
+        new ArticleBodyCache(mDirectory, 1024 * 1024).put(URL_A, "Stored before a restart");
+
+        ArticleBodyCache cache = new ArticleBodyCache(mDirectory, 1024 * 1024);
+
+        assertTrue(cache.contains(URL_A));
+        assertEquals("Stored before a restart", cache.get(URL_A));
+    }
+
+    @Test
+    public void extractBodyText_readsBodyField() throws IOException {
+        InputStream in = ArticleBodyCacheTest.class.getClassLoader()
+                .getResourceAsStream("guardian_item_body.json");
+
+        assertEquals("Shares rose across Europe on Tuesday. Investors welcomed signs that the "
+                + "trade dispute would not escalate further.", QueryUtils.extractBodyText(in));
+    }
+
+    @Test
+    public void extractBodyText_withoutBodyField_returnsNull() {
+        String json = "{\"response\":{\"status\":\"ok\",\"content\":{\"fields\":{}}}}";
+
+        assertNull(QueryUtils.extractBodyText(
+                new ByteArrayInputStream(json.getBytes(Charset.forName("UTF-8")))));
+    }
+
+    @Test
+    public void buildArticleUrl_usesPathOfWebUrl() {
+        assertEquals("https://content.guardianapis.com/business/2018/sep/25/a"
+                        + "?show-fields=bodyText&api-key=8444fda7-1779-4b41-8b4d-29fa2a30f115",
+                QueryUtils.buildArticleUrl(URL_A));
+        assertNull(QueryUtils.buildArticleUrl("not a url"));
+        assertNull(QueryUtils.buildArticleUrl("https://www.theguardian.com/"));
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.android.newsapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives {@link BackoffSyncPolicy} with a fake clock.
+ */
+public class BackoffSyncPolicyTest {
+
+    private static final long MINUTE = 60 * 1000;
+    private static final long INTERVAL = 60 * MINUTE;
+
+    private FakeClock mClock;
+    private BackoffSyncPolicy mPolicy;
+
+    @Before
+    public void setUp() {
+        mClock = new FakeClock();
+        mClock.mNow = 1000 * INTERVAL;
+        mPolicy = new BackoffSyncPolicy(mClock, INTERVAL, MINUTE, 16 * MINUTE, 0, 0, 0);
+    }
+
+    @Test
+    public void neverSynced_isDueNow() {
+        assertTrue(mPolicy.isSyncDue());
+        assertEquals(0, mPolicy.getNextSyncDelay());
+    }
+
+    @Test
+    public void afterSuccess_waitsOneInterval() {
+        mPolicy.onSyncSucceeded();
+
+        assertFalse(mPolicy.isSyncDue());
+        assertEquals(INTERVAL, mPolicy.getNextSyncDelay());
+
+        mClock.mNow += INTERVAL - 1;
+        assertFalse(mPolicy.isSyncDue());
+
+        mClock.mNow += 1;
+        assertTrue(mPolicy.isSyncDue());
+    }
+
+    @Test
+    public void afterFailures_backsOffExponentiallyUpToTheMaximum() {
+        long[] expectedDelays = {MINUTE, 2 * MINUTE, 4 * MINUTE, 8 * MINUTE, 16 * MINUTE, 16 * MINUTE};
+
+        for (long expectedDelay : expectedDelays) {
+            mPolicy.onSyncFailed();
+            assertEquals(expectedDelay, mPolicy.getNextSyncDelay());
+            mClock.mNow += expectedDelay;
+            assertTrue(mPolicy.isSyncDue());
+        }
+    }
+
+    @Test
+    public void successAfterFailures_resetsTheBackoff() {
+        mPolicy.onSyncFailed();
+        mPolicy.onSyncFailed();
+        mPolicy.onSyncSucceeded();
+        mPolicy.onSyncFailed();
+
+        assertEquals(1, mPolicy.getFailureCount());
+        assertEquals(MINUTE, mPolicy.getNextSyncDelay());
+    }
+
+    @Test
+    public void backoff_neverExceedsTheInterval() {
+        BackoffSyncPolicy policy = new BackoffSyncPolicy(mClock, 5 * MINUTE, MINUTE,
+                INTERVAL, 0, 0, 0);
+
+        for (int i = 0; i < 40; i++) {
+            policy.onSyncFailed();
+        }
+
+        assertEquals(5 * MINUTE, policy.getNextSyncDelay());
+    }
+
+    @Test
+    public void savedState_isRestored() {
+        mPolicy.onSyncFailed();
+        mPolicy.onSyncFailed();
+
+        BackoffSyncPolicy restored = new BackoffSyncPolicy(mClock, INTERVAL, MINUTE, 16 * MINUTE,
+                mPolicy.getLastSuccessTime(), mPolicy.getLastAttemptTime(), mPolicy.getFailureCount());
+
+        assertEquals(mPolicy.getNextSyncTime(), restored.getNextSyncTime());
+    }
+
+    private static final class FakeClock implements Clock {
+        long mNow;
+
+        @Override
+        public long currentTimeMillis() {
+            return mNow;
+        }
+    }
+}
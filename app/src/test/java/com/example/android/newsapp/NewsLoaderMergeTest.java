@@ -0,0 +1,83 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how {@link NewsLoader} merges the news items of a delta reload or of the next page
+ * into the ones it already holds.
+ */
+public class NewsLoaderMergeTest {
+
+    @Test
+    public void mergeByUrl_putsNewItemsFirstAndReplacesHeldOnes() {
+        List<News> heldItems = Arrays.asList(news("b", "2018-09-24"), news("c", "2018-09-23"));
+        List<News> newItems = Arrays.asList(news("a", "2018-09-25"), news("b", "2018-09-25"));
+
+        List<News> newsItems = NewsLoader.mergeByUrl(newItems, heldItems);
+
+        assertEquals(Arrays.asList("a", "b", "c"), urls(newsItems));
+        assertEquals("2018-09-25", newsItems.get(1).getDate());
+    }
+
+    @Test
+    public void mergeByUrl_nothingNew_keepsHeldItems() {
+        List<News> heldItems = Arrays.asList(news("a", "2018-09-25"), news("b", "2018-09-24"));
+
+        List<News> newsItems = NewsLoader.mergeByUrl(Collections.<News>emptyList(), heldItems);
+
+        assertEquals(Arrays.asList("a", "b"), urls(newsItems));
+    }
+
+    @Test
+    public void mergeIntoFirstPage_keepsHeldPageBoundaries() {
+        List<List<News>> heldPages = Arrays.asList(
+                Arrays.asList(news("b", "2018-09-24"), news("c", "2018-09-23")),
+                Arrays.asList(news("d", "2018-09-22"), news("e", "2018-09-21")));
+        List<News> newItems = Arrays.asList(news("a", "2018-09-25"), news("d", "2018-09-25"));
+
+        List<List<News>> pages = NewsLoader.mergeIntoFirstPage(newItems, heldPages);
+
+        assertEquals(2, pages.size());
+        assertEquals(Arrays.asList("a", "d", "b", "c"), urls(pages.get(0)));
+        assertEquals(Arrays.asList("e"), urls(pages.get(1)));
+    }
+
+    @Test
+    public void appendByUrl_skipsItemsAlreadyHeld() {
+        List<News> heldItems = Arrays.asList(news("a", "2018-09-25"), news("b", "2018-09-24"));
+        List<News> pageItems = Arrays.asList(news("b", "2018-09-24"), news("c", "2018-09-23"));
+
+        List<News> newsItems = NewsLoader.appendByUrl(heldItems, pageItems);
+
+        assertEquals(Arrays.asList("a", "b", "c"), urls(newsItems));
+    }
+
+    @Test
+    public void findNewestPublicationTime_ignoresItemsWithoutDate() {
+        List<News> newsItems = Arrays.asList(
+                news("a", "2018-09-24"), news("b", ""), news("c", "2018-09-25"));
+
+        assertEquals(NewsDates.parse("2018-09-25"), NewsLoader.findNewestPublicationTime(newsItems));
+        assertEquals(NewsDates.NO_PUBLICATION_TIME,
+                NewsLoader.findNewestPublicationTime(Collections.singletonList(news("a", ""))));
+    }
+
+    private static News news(String url, String date) {
+        return new News("Business", "Title " + url, "", NewsDates.parse(date), url);
+    }
+
+    private static List<String> urls(List<News> newsItems) {
+        List<String> urls = new ArrayList<>();
+        for (News news : newsItems) {
+            urls.add(news.getUrl());
+        }
+        return urls;
+    }
+}
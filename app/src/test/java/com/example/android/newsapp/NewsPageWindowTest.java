@@ -0,0 +1,274 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link NewsPageWindow} keeps only the pages around the position looked at in
+ * memory, loads the evicted ones again when scrolled back to, and that its heap use stays the
+ * same however many pages are scrolled through.
+ */
+public class NewsPageWindowTest {
+
+    private static final int PAGE_SIZE = 30;
+    private static final int MAX_RESIDENT_PAGES = 5;
+
+    /**
+     * Long enough that a page takes about half a megabyte, so an evicted page that is still
+     * held shows up in the heap
+     */
+    private static final int TITLE_LENGTH = 8 * 1024;
+
+    /**
+     * Pages loaded again by the window, by number
+     */
+    private final List<Integer> mLoadedPages = new ArrayList<>();
+
+    private final NewsPageWindow mWindow = new NewsPageWindow(new NewsPageWindow.PageSource() {
+        @Override
+        public List<News> loadPage(int page) {
+            mLoadedPages.add(page);
+            return page(page, PAGE_SIZE);
+        }
+    }, MAX_RESIDENT_PAGES);
+
+    @Test
+    public void appendPage_evictsPagesFarBehind() {
+        for (int page = 0; page < 20; page++) {
+            mWindow.appendPage(page(page, PAGE_SIZE));
+        }
+
+        List<News> newsItems = mWindow.snapshot();
+
+        assertEquals(20, mWindow.getPageCount());
+        assertEquals(MAX_RESIDENT_PAGES, mWindow.getResidentPageCount());
+        assertEquals(20 * PAGE_SIZE, newsItems.size());
+        assertNull(newsItems.get(0));
+        assertNull(newsItems.get(15 * PAGE_SIZE - 1));
+        assertEquals("page-15-item-0", newsItems.get(15 * PAGE_SIZE).getUrl());
+        assertEquals("page-19-item-29", newsItems.get(20 * PAGE_SIZE - 1).getUrl());
+    }
+
+    @Test
+    public void moveTo_loadsEvictedPagesAgainNearestFirst() {
+        for (int page = 0; page < 20; page++) {
+            mWindow.appendPage(page(page, PAGE_SIZE));
+        }
+
+        assertTrue(mWindow.moveTo(3 * PAGE_SIZE + 7));
+
+        // The page looked at first, then the ones next to it, within the window of pages 1 to 5
+        assertEquals(Arrays.asList(3, 4, 2, 5, 1), mLoadedPages);
+        assertEquals(MAX_RESIDENT_PAGES, mWindow.getResidentPageCount());
+
+        List<News> newsItems = mWindow.snapshot();
+        assertNull(newsItems.get(0));
+        assertEquals("page-1-item-0", newsItems.get(PAGE_SIZE).getUrl());
+        assertEquals("page-3-item-7", newsItems.get(3 * PAGE_SIZE + 7).getUrl());
+        assertNull(newsItems.get(6 * PAGE_SIZE));
+    }
+
+    @Test
+    public void moveTo_withinWindow_loadsNothing() {
+        for (int page = 0; page < 20; page++) {
+            mWindow.appendPage(page(page, PAGE_SIZE));
+        }
+
+        assertFalse(mWindow.moveTo(19 * PAGE_SIZE));
+        assertTrue(mLoadedPages.isEmpty());
+    }
+
+    @Test
+    public void snapshot_doesNotChangeWithTheWindow() {
+        mWindow.appendPage(page(0, PAGE_SIZE));
+        List<News> newsItems = mWindow.snapshot();
+
+        for (int page = 1; page < 20; page++) {
+            mWindow.appendPage(page(page, PAGE_SIZE));
+        }
+
+        assertEquals(PAGE_SIZE, newsItems.size());
+        assertEquals("page-0-item-0", newsItems.get(0).getUrl());
+    }
+
+    @Test
+    public void moveTo_pageLoadedWithOtherSize_movesFollowingPositions() {
+        final List<News> shorterPage = page(0, PAGE_SIZE - 10);
+        NewsPageWindow window = new NewsPageWindow(new NewsPageWindow.PageSource() {
+            @Override
+            public List<News> loadPage(int page) {
+                return page == 0 ? shorterPage : page(page, PAGE_SIZE);
+            }
+        }, 1);
+
+        window.appendPage(page(0, PAGE_SIZE));
+        window.appendPage(page(1, PAGE_SIZE));
+        window.moveTo(0);
+
+        List<News> newsItems = window.snapshot();
+        assertEquals(2 * PAGE_SIZE - 10, newsItems.size());
+        assertEquals("page-0-item-19", newsItems.get(PAGE_SIZE - 11).getUrl());
+        assertNull(newsItems.get(PAGE_SIZE - 10));
+    }
+
+    @Test
+    public void reset_keepsPageBoundariesAndTheFirstPages() {
+
+        // Merged pages hold as many news items as their feeds returned
+        NewsPageWindow window = new NewsPageWindow(new NewsPageWindow.PageSource() {
+            @Override
+            public List<News> loadPage(int page) {
+                return page(page, PAGE_SIZE - page);
+            }
+        }, MAX_RESIDENT_PAGES);
+
+        List<List<News>> storedPages = new ArrayList<>();
+        List<News> storedItems = new ArrayList<>();
+        for (int page = 0; page < 8; page++) {
+            storedPages.add(page(page, PAGE_SIZE - page));
+            storedItems.addAll(storedPages.get(page));
+        }
+
+        window.reset(storedPages);
+        int residentCount = window.getResidentItems().size();
+
+        assertEquals(8, window.getPageCount());
+        assertEquals(MAX_RESIDENT_PAGES, window.getResidentPageCount());
+        assertEquals(storedItems.subList(0, residentCount), window.getResidentItems());
+        assertEquals("page-4-item-0",
+                window.snapshot().get(residentCount - (PAGE_SIZE - 4)).getUrl());
+        assertNull(window.snapshot().get(residentCount));
+
+        // The evicted pages come back at the same positions
+        window.moveTo(storedItems.size() - 1);
+        assertEquals(storedItems.size(), window.size());
+        assertEquals("page-5-item-0", window.snapshot().get(residentCount).getUrl());
+    }
+
+    @Test
+    public void restore_withSnapshot_restoresItsPages() {
+        for (int page = 0; page < 20; page++) {
+            mWindow.appendPage(page(page, PAGE_SIZE));
+        }
+        List<News> newsItems = mWindow.snapshot();
+
+        NewsPageWindow window = new NewsPageWindow(null, MAX_RESIDENT_PAGES);
+        window.restore(newsItems);
+
+        assertEquals(20, window.getPageCount());
+        assertEquals(newsItems, window.snapshot());
+        assertFalse(window.isFullyResident());
+    }
+
+    @Test
+    public void reset_empty_hasNoPages() {
+        mWindow.reset(Collections.<List<News>>emptyList());
+
+        assertEquals(0, mWindow.size());
+        assertTrue(mWindow.snapshot().isEmpty());
+        assertFalse(mWindow.moveTo(0));
+    }
+
+    @Test
+    public void scrollingThroughManyPages_keepsHeapUseFlat() {
+
+        // Scroll down the way the list does: append the next page, then look at its end
+        List<News> newsItems = null;
+        long heapAfterWarmUp = 0;
+
+        for (int page = 0; page < 150; page++) {
+            mWindow.appendPage(page(page, PAGE_SIZE));
+            mWindow.moveTo(mWindow.size() - 1);
+            newsItems = mWindow.snapshot();
+
+            if (page == 20) {
+                heapAfterWarmUp = usedHeap();
+            }
+        }
+
+        long heapAfterScrolling = usedHeap();
+        long pageBytes = (long) PAGE_SIZE * TITLE_LENGTH * 2;
+
+        System.out.println("Heap after 20 pages " + heapAfterWarmUp + " bytes, after 150 pages "
+                + heapAfterScrolling + " bytes, a page is about " + pageBytes + " bytes");
+
+        assertEquals(150 * PAGE_SIZE, newsItems.size());
+        assertEquals(MAX_RESIDENT_PAGES, mWindow.getResidentPageCount());
+        assertTrue("Heap grew by " + (heapAfterScrolling - heapAfterWarmUp) + " bytes over 130 pages",
+                heapAfterScrolling - heapAfterWarmUp < pageBytes);
+
+        // Scrolling all the way back brings the first page back
+        mWindow.moveTo(0);
+        assertEquals("page-0-item-0", mWindow.snapshot().get(0).getUrl());
+        assertEquals(MAX_RESIDENT_PAGES, mWindow.getResidentPageCount());
+    }
+
+    @Test
+    public void scrollingWithSearchIndex_findsEvictedNewsWithoutKeepingThem() {
+        final List<WeakReference<News>> created = new ArrayList<>();
+        NewsPageWindow window = new NewsPageWindow(new NewsPageWindow.PageSource() {
+            @Override
+            public List<News> loadPage(int page) {
+                return track(page(page, PAGE_SIZE), created);
+            }
+        }, MAX_RESIDENT_PAGES);
+        NewsSearchIndex index = new NewsSearchIndex();
+
+        // Index the resident pages after every page, the way the loader does
+        for (int page = 0; page < 100; page++) {
+            window.appendPage(track(page(page, PAGE_SIZE), created));
+            window.moveTo(window.size() - 1);
+            index.addAll(window.getResidentItems());
+        }
+
+        usedHeap();
+        int reachable = 0;
+        for (WeakReference<News> news : created) {
+            if (news.get() != null) {
+                reachable++;
+            }
+        }
+
+        assertEquals(100 * PAGE_SIZE, created.size());
+        assertEquals(100 * PAGE_SIZE, index.size());
+        assertTrue(reachable + " news items are still reachable",
+                reachable <= MAX_RESIDENT_PAGES * PAGE_SIZE);
+        assertEquals(PAGE_SIZE, index.search("page99author").size());
+
+        // Evicted long ago, and still found by their URLs
+        assertEquals(Arrays.asList("page-0-item-3"), index.search("page0author3"));
+    }
+
+    private static List<News> track(List<News> newsItems, List<WeakReference<News>> created) {
+        for (News news : newsItems) {
+            created.add(new WeakReference<>(news));
+        }
+        return newsItems;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static List<News> page(int page, int size) {
+        List<News> newsItems = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            char[] title = new char[TITLE_LENGTH];
+            Arrays.fill(title, 'a');
+            newsItems.add(new News("Section", new String(title), "Page" + page + "Author" + i,
+                    NewsDates.parse("2018-09-25T10:00:00Z"), "page-" + page + "-item-" + i));
+        }
+        return newsItems;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.android.newsapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives {@link NewsResultCache} with a fake clock.
+ */
+public class NewsResultCacheTest {
+
+    private static final long TIME_TO_LIVE = 1000;
+
+    private long mNow;
+    private NewsResultCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new NewsResultCache(new Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return mNow;
+            }
+        }, 10, TIME_TO_LIVE);
+    }
+
+    @Test
+    public void get_freshResult_isHit() {
+        List<News> newsItems = newsItems("a", 3);
+        mCache.put("a", newsItems);
+
+        mNow += TIME_TO_LIVE - 1;
+
+        assertSame(newsItems, mCache.get("a"));
+        assertEquals(1, mCache.getHitCount());
+        assertEquals(0, mCache.getMissCount());
+    }
+
+    @Test
+    public void get_staleResult_isMissAndRemoved() {
+        mCache.put("a", newsItems("a", 3));
+
+        mNow += TIME_TO_LIVE;
+
+        assertNull(mCache.get("a"));
+        assertEquals(0, mCache.getNewsCount());
+        assertEquals(1, mCache.getMissCount());
+    }
+
+    @Test
+    public void put_overCapacity_evictsLeastRecentlyUsed() {
+        mCache.put("a", newsItems("a", 4));
+        mCache.put("b", newsItems("b", 4));
+
+        // "a" is now more recently used than "b"
+        assertNotNull(mCache.get("a"));
+
+        mCache.put("c", newsItems("c", 4));
+
+        assertNotNull(mCache.get("a"));
+        assertNull(mCache.get("b"));
+        assertNotNull(mCache.get("c"));
+        assertEquals(8, mCache.getNewsCount());
+    }
+
+    @Test
+    public void put_sameUrl_replacesResult() {
+        mCache.put("a", newsItems("a", 4));
+        List<News> newsItems = newsItems("a", 6);
+        mCache.put("a", newsItems);
+
+        assertSame(newsItems, mCache.get("a"));
+        assertEquals(6, mCache.getNewsCount());
+    }
+
+    @Test
+    public void put_resultLargerThanCache_isNotCached() {
+        mCache.put("a", newsItems("a", 4));
+        mCache.put("b", newsItems("b", 11));
+
+        assertNull(mCache.get("b"));
+        assertNotNull(mCache.get("a"));
+    }
+
+    private static List<News> newsItems(String url, int count) {
+        List<News> newsItems = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            newsItems.add(new News("Business", "Title", "", NewsDates.NO_PUBLICATION_TIME,
+                    url + "/" + i));
+        }
+        return newsItems;
+    }
+}
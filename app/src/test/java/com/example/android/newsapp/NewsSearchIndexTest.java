@@ -0,0 +1,148 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the queries answered by {@link NewsSearchIndex}, and how fast they are over
+ * as many news items as the {@link NewsStore} keeps.
+ */
+public class NewsSearchIndexTest {
+
+    private static final int LARGE_INDEX_SIZE = NewsStore.MAX_STORED_NEWS;
+
+    private static final String[] SECTIONS = {"Business", "Sport", "Technology", "World news"};
+    private static final String[] WORDS = {"markets", "football", "economy", "election", "tennis",
+            "inflation", "transfer", "startup", "climate", "budget", "cricket", "banking"};
+
+    @Test
+    public void search_matchesWordPrefixesIgnoringCase() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        index.addAll(Arrays.asList(
+                news("a", "Business", "Markets rally as inflation falls", "Larry Elliott", 1),
+                news("b", "Sport", "Football transfer window closes", "", 2)));
+
+        assertEquals(urls("a"), index.search("MARK"));
+        assertEquals(urls("b"), index.search("sport"));
+        assertEquals(urls("a"), index.search("elliott"));
+        assertTrue(index.search("cricket").isEmpty());
+        assertTrue(index.search("  ,, ").isEmpty());
+    }
+
+    @Test
+    public void search_everyWordMustMatch_newestFirst() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        index.addAll(Arrays.asList(
+                news("a", "Business", "Markets rally as inflation falls", "", 1),
+                news("b", "Business", "Inflation hits markets", "", 3),
+                news("c", "Business", "Inflation rises again", "", 2)));
+
+        assertEquals(urls("b", "a"), index.search("infl mark"));
+        assertEquals(urls("b", "c", "a"), index.search("inflation business"));
+    }
+
+    @Test
+    public void search_maxResults_keepsNewest() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        index.addAll(Arrays.asList(
+                news("a", "Business", "Inflation falls", "", 1),
+                news("b", "Business", "Inflation hits markets", "", 3),
+                news("c", "Business", "Inflation rises again", "", 2)));
+
+        assertEquals(urls("b", "c"), index.search("inflation", 2));
+    }
+
+    @Test
+    public void addAll_sameUrlAndWords_updatesPublicationTime() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        index.addAll(Arrays.asList(
+                news("a", "Business", "Inflation falls", "", 1),
+                news("b", "Business", "Inflation hits markets", "", 2)));
+        index.addAll(Arrays.asList(news("a", "Business", "Inflation falls", "", 3)));
+
+        assertEquals(urls("a", "b"), index.search("inflation"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void addAll_sameUrl_replacesIndexedWords() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        index.addAll(Arrays.asList(news("a", "Business", "Draft headline", "", 1)));
+        index.addAll(Arrays.asList(news("a", "Business", "Final headline", "", 1)));
+
+        assertTrue(index.search("draft").isEmpty());
+        assertEquals(urls("a"), index.search("final"));
+        assertEquals(urls("a"), index.search("headline"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void addAll_manyReplacements_stillAnswersTheSame() {
+        NewsSearchIndex index = new NewsSearchIndex();
+
+        for (int round = 0; round < 5; round++) {
+            List<News> newsItems = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                newsItems.add(news("url" + i, "Business", "Round" + round + " story " + i, "", i));
+            }
+            index.addAll(newsItems);
+        }
+
+        assertEquals(1000, index.size());
+        assertTrue(index.search("round3").isEmpty());
+        assertEquals(1000, index.search("round4 story").size());
+    }
+
+    @Test
+    public void search_largeIndex_isFast() {
+        NewsSearchIndex index = new NewsSearchIndex();
+        List<News> newsItems = new ArrayList<>();
+
+        for (int i = 0; i < LARGE_INDEX_SIZE; i++) {
+            String title = WORDS[i % WORDS.length] + " " + WORDS[(i / 7) % WORDS.length]
+                    + " story number " + i;
+            newsItems.add(news("url" + i, SECTIONS[i % SECTIONS.length], title,
+                    "Contributor " + i % 500, i));
+        }
+
+        long buildStart = System.nanoTime();
+        index.addAll(newsItems);
+        long buildNanos = System.nanoTime() - buildStart;
+
+        String[] queries = {"infl", "football transfer", "tech startup", "world clim", "cricket 12"};
+
+        // Warm up before timing
+        for (int i = 0; i < 200; i++) {
+            index.search(queries[i % queries.length]);
+        }
+
+        int repetitions = 1000;
+        long searchStart = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            index.search(queries[i % queries.length]);
+        }
+        double microsPerSearch = (System.nanoTime() - searchStart) / 1000.0 / repetitions;
+
+        System.out.println("Indexed " + LARGE_INDEX_SIZE + " news items in "
+                + buildNanos / 1000000 + " ms, " + index.getWordCount() + " words, about "
+                + index.estimateMemoryBytes() / 1024 + " KiB; " + microsPerSearch + " us per search");
+
+        assertFalse(index.search("football infl").isEmpty());
+
+        // Generous bound so a slow build machine does not fail the test
+        assertTrue("Search took " + microsPerSearch + " us", microsPerSearch < 5000);
+    }
+
+    private static News news(String url, String section, String title, String author, long time) {
+        return new News(section, title, author, time, url);
+    }
+
+    private static List<String> urls(String... urls) {
+        return Arrays.asList(urls);
+    }
+}
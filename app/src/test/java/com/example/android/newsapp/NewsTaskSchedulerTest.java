@@ -0,0 +1,232 @@
+package com.example.android.newsapp;
+
+import com.example.android.newsapp.NewsTaskScheduler.Priority;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link NewsTaskScheduler} runs the most urgent tasks first, always keeps a thread
+ * for refreshes, and cancels queued and running tasks.
+ */
+public class NewsTaskSchedulerTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    /**
+     * Released at the end of every test, so the blocked threads go back to the scheduler
+     */
+    private final CountDownLatch mRelease = new CountDownLatch(1);
+
+    @After
+    public void tearDown() {
+        mRelease.countDown();
+    }
+
+    @Test
+    public void queuedTasks_runMostUrgentFirst() throws Exception {
+        NewsTaskScheduler scheduler = new NewsTaskScheduler(2);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        scheduler.submit(Priority.REFRESH, blocker(releaseFirst));
+        scheduler.submit(Priority.REFRESH, blocker(mRelease));
+
+        final List<Priority> order = Collections.synchronizedList(new ArrayList<Priority>());
+        List<NewsTaskScheduler.Task<Void>> tasks = new ArrayList<>();
+        for (Priority priority : new Priority[]{
+                Priority.ENRICHMENT, Priority.NEXT_PAGE, Priority.REFRESH, Priority.NEXT_PAGE}) {
+            tasks.add(scheduler.submit(priority, recorder(priority, order)));
+        }
+
+        assertEquals(2, scheduler.getQueueDepth(Priority.NEXT_PAGE));
+
+        // One thread is freed, and takes the queued tasks one at a time
+        releaseFirst.countDown();
+        for (NewsTaskScheduler.Task<Void> task : tasks) {
+            task.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        assertEquals(Arrays.asList(Priority.REFRESH, Priority.NEXT_PAGE, Priority.NEXT_PAGE,
+                Priority.ENRICHMENT), order);
+        assertEquals(0, scheduler.getQueueDepth(Priority.NEXT_PAGE));
+    }
+
+    @Test
+    public void refresh_neverWaitsBehindLowerPriorities() throws Exception {
+        NewsTaskScheduler scheduler = new NewsTaskScheduler(3);
+        scheduler.submit(Priority.NEXT_PAGE, blocker(mRelease));
+        scheduler.submit(Priority.NEXT_PAGE, blocker(mRelease));
+        scheduler.submit(Priority.NEXT_PAGE, blocker(mRelease));
+
+        // The third page waits, a thread is kept for refreshes
+        awaitRunning(scheduler, Priority.NEXT_PAGE, 2);
+        assertEquals(1, scheduler.getQueueDepth(Priority.NEXT_PAGE));
+
+        NewsTaskScheduler.Task<Priority> refresh =
+                scheduler.submit(Priority.REFRESH, new Callable<Priority>() {
+                    @Override
+                    public Priority call() {
+                        return Priority.REFRESH;
+                    }
+                });
+
+        assertEquals(Priority.REFRESH, refresh.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, scheduler.getQueueDepth(Priority.NEXT_PAGE));
+    }
+
+    @Test
+    public void enrichment_runsOneTaskAtATime() throws Exception {
+        NewsTaskScheduler scheduler = new NewsTaskScheduler(3);
+        scheduler.submit(Priority.ENRICHMENT, blocker(mRelease));
+        scheduler.submit(Priority.ENRICHMENT, blocker(mRelease));
+
+        awaitRunning(scheduler, Priority.ENRICHMENT, 1);
+        Thread.sleep(100);
+
+        assertEquals(1, scheduler.getRunningCount(Priority.ENRICHMENT));
+        assertEquals(1, scheduler.getQueueDepth(Priority.ENRICHMENT));
+    }
+
+    @Test
+    public void cancel_queuedTask_isDroppedWithoutRunning() throws Exception {
+        NewsTaskScheduler scheduler = new NewsTaskScheduler(2);
+        scheduler.submit(Priority.REFRESH, blocker(mRelease));
+        scheduler.submit(Priority.REFRESH, blocker(mRelease));
+
+        final AtomicBoolean ran = new AtomicBoolean();
+        NewsTaskScheduler.Task<Void> task = scheduler.submit(Priority.NEXT_PAGE,
+                new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        ran.set(true);
+                        return null;
+                    }
+                });
+
+        assertTrue(task.cancel(true));
+        assertEquals(0, scheduler.getQueueDepth(Priority.NEXT_PAGE));
+
+        task.runIfQueued();
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void cancel_runningTask_interruptsItAndNotTheNextTask() throws Exception {
+        NewsTaskScheduler scheduler = new NewsTaskScheduler(2);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+
+        NewsTaskScheduler.Task<Void> task = scheduler.submit(Priority.REFRESH,
+                new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        started.countDown();
+                        try {
+                            mRelease.await();
+                        } catch (InterruptedException e) {
+                            interrupted.set(true);
+                        }
+                        return null;
+                    }
+                });
+
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        task.cancel(true);
+
+        try {
+            task.get();
+            fail("The task was cancelled");
+        } catch (CancellationException e) {
+            // Expected
+        }
+
+        // Both threads must be free of the interrupt, whichever takes the next tasks
+        for (int i = 0; i < 4; i++) {
+            NewsTaskScheduler.Task<Boolean> next = scheduler.submit(Priority.REFRESH,
+                    new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() {
+                            return Thread.currentThread().isInterrupted();
+                        }
+                    });
+            assertFalse(next.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+
+        awaitRunning(scheduler, Priority.REFRESH, 0);
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    public void runIfQueued_everyThreadBusy_runsOnCallingThread() throws Exception {
+        NewsTaskScheduler scheduler = new NewsTaskScheduler(2);
+        scheduler.submit(Priority.REFRESH, blocker(mRelease));
+        scheduler.submit(Priority.REFRESH, blocker(mRelease));
+        awaitRunning(scheduler, Priority.REFRESH, 2);
+
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        NewsTaskScheduler.Task<Void> task = scheduler.submit(Priority.REFRESH,
+                new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        thread.set(Thread.currentThread());
+                        return null;
+                    }
+                });
+
+        task.runIfQueued();
+
+        assertTrue(task.isDone());
+        assertSame(Thread.currentThread(), thread.get());
+        assertEquals(0, scheduler.getQueueDepth(Priority.REFRESH));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_oneThread_isRejected() {
+        new NewsTaskScheduler(1);
+    }
+
+    /**
+     * Returns a task that blocks its thread until the latch is released.
+     */
+    private static Callable<Void> blocker(final CountDownLatch release) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() throws InterruptedException {
+                release.await();
+                return null;
+            }
+        };
+    }
+
+    private static Callable<Void> recorder(final Priority priority, final List<Priority> order) {
+        return new Callable<Void>() {
+            @Override
+            public Void call() {
+                order.add(priority);
+                return null;
+            }
+        };
+    }
+
+    private static void awaitRunning(NewsTaskScheduler scheduler, Priority priority, int count)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (scheduler.getRunningCount(priority) != count) {
+            assertTrue("Running " + scheduler.getRunningCount(priority) + " of " + priority,
+                    System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
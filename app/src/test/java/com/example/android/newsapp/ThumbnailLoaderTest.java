@@ -0,0 +1,54 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how far {@link ThumbnailLoader} downsamples the thumbnails, and that the thumbnail
+ * URLs it loads are parsed from the Guardian responses.
+ */
+public class ThumbnailLoaderTest {
+
+    @Test
+    public void calculateInSampleSize_keepsImageCoveringView() {
+
+        // A Guardian thumbnail is 500x300, the list item shows it at 100dp x 60dp
+        assertEquals(1, ThumbnailLoader.calculateInSampleSize(500, 300, 400, 240));
+        assertEquals(1, ThumbnailLoader.calculateInSampleSize(500, 300, 300, 180));
+        assertEquals(2, ThumbnailLoader.calculateInSampleSize(500, 300, 200, 120));
+        assertEquals(4, ThumbnailLoader.calculateInSampleSize(500, 300, 100, 60));
+        assertEquals(8, ThumbnailLoader.calculateInSampleSize(2000, 1200, 150, 90));
+    }
+
+    @Test
+    public void calculateInSampleSize_usesTheDimensionClosestToTheView() {
+
+        // A tall image is only divided as long as its width still covers the view
+        assertEquals(2, ThumbnailLoader.calculateInSampleSize(500, 2000, 200, 120));
+    }
+
+    @Test
+    public void calculateInSampleSize_unknownOrLargerView_keepsFullSize() {
+        assertEquals(1, ThumbnailLoader.calculateInSampleSize(500, 300, 0, 0));
+        assertEquals(1, ThumbnailLoader.calculateInSampleSize(500, 300, 1000, 600));
+    }
+
+    @Test
+    public void extractFeatureFromJson_readsThumbnailUrl() {
+        String json = "{\"response\":{\"results\":["
+                + "{\"webTitle\":\"With\",\"webUrl\":\"https://www.theguardian.com/a\","
+                + "\"fields\":{\"thumbnail\":\"https://media.guim.co.uk/a/500.jpg\"}},"
+                + "{\"webTitle\":\"Without\",\"webUrl\":\"https://www.theguardian.com/b\"}]}}";
+
+        List<News> newsItems = QueryUtils.extractFeatureFromJson(json);
+
+        assertEquals(2, newsItems.size());
+        assertTrue(newsItems.get(0).hasThumbnail());
+        assertEquals("https://media.guim.co.uk/a/500.jpg", newsItems.get(0).getThumbnailUrl());
+        assertFalse(newsItems.get(1).hasThumbnail());
+        assertEquals("", newsItems.get(1).getThumbnailUrl());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.android.newsapp;
+
+/**
+ * Source of the current time, so code that depends on it can be tested without waiting.
+ */
+public interface Clock {
+
+    /**
+     * {@link Clock} that reads the system time
+     */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * Returns the current time in milliseconds since the epoch.
+     */
+    long currentTimeMillis();
+}
@@ -0,0 +1,397 @@
+package com.example.android.newsapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Disk cache of values by key, such as downloads by URL. The total size of the stored values
+ * is bounded, and the least recently used ones are evicted first.
+ * <p>
+ * Every value is stored in a file of its own, named after the MD5 hash of its key, after the
+ * key itself to guard against two keys sharing a hash. A value is written to a temporary file
+ * that is renamed into place once it is complete, so it can be read outside the lock and is
+ * never seen half written. Reading a value updates the last modified time of its file, so the
+ * eviction order survives a restart. Files left over by unfinished writes are deleted the
+ * first time the cache is used.
+ */
+public final class DiskLruCache {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = DiskLruCache.class.getSimpleName();
+
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Directory the values are stored in
+     */
+    private final File mDirectory;
+
+    /**
+     * Maximum total size of the stored files, in bytes
+     */
+    private final long mMaxBytes;
+
+    /**
+     * Size of every stored file by file name key, ordered from least to most recently used.
+     * Built from the directory the first time the cache is used.
+     */
+    private LinkedHashMap<String, Long> mEntries;
+
+    /**
+     * Total size of the stored files, in bytes
+     */
+    private long mSize;
+
+    /**
+     * Constructs a new {@link DiskLruCache}.
+     *
+     * @param directory is where the values are stored, it is created if needed
+     * @param maxBytes  is the maximum total size of the stored files
+     */
+    public DiskLruCache(File directory, long maxBytes) {
+        mDirectory = directory;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Returns whether a value is stored for the given key.
+     */
+    public synchronized boolean contains(String key) {
+        return ensureIndex().containsKey(fileNameFor(key));
+    }
+
+    /**
+     * Returns the value stored for the given key, or null if there is none.
+     * This reads from disk, so it must not be called on the main thread.
+     */
+    public byte[] get(String key) {
+
+        InputStream in = open(key);
+
+        if (in == null) {
+            return null;
+        }
+
+        try {
+            ByteArrayOutputStream value = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                value.write(buffer, 0, read);
+            }
+            return value.toByteArray();
+
+        } catch (IOException e) {
+
+            NewsLog.e(LOG_TAG, "Problem reading a cached value", e);
+            remove(key);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Returns a stream reading the value stored for the given key, which must be closed, or
+     * null if there is none. This reads from disk, so it must not be called on the main thread.
+     */
+    public InputStream open(String key) {
+
+        String fileName = fileNameFor(key);
+        File file = new File(mDirectory, fileName + ENTRY_SUFFIX);
+
+        synchronized (this) {
+
+            // Looking the key up also marks the entry as the most recently used
+            if (ensureIndex().get(fileName) == null) {
+                return null;
+            }
+
+            // Remember the use on disk too, so the eviction order survives a restart
+            file.setLastModified(System.currentTimeMillis());
+        }
+
+        // Files are only replaced by renaming a new one, so they can be read outside the lock
+        DataInputStream in = null;
+
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+            if (!in.readUTF().equals(key)) {
+                closeQuietly(in);
+                return null;
+            }
+
+            return in;
+
+        } catch (IOException e) {
+
+            NewsLog.e(LOG_TAG, "Problem opening a cached value", e);
+            closeQuietly(in);
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Store the value for the given key, replacing the stored one.
+     * This writes to disk, so it must not be called on the main thread.
+     */
+    public void put(String key, byte[] value) {
+
+        Editor editor = null;
+
+        try {
+            editor = edit(key);
+            editor.getOutputStream().write(value);
+            editor.commit();
+
+        } catch (IOException e) {
+
+            NewsLog.e(LOG_TAG, "Problem storing a value", e);
+        } finally {
+            if (editor != null) {
+                editor.abort();
+            }
+        }
+    }
+
+    /**
+     * Start writing a new value for the given key. The stored value, if any, is only replaced
+     * when {@link Editor#commit()} is called. This writes to disk, so it must not be called on
+     * the main thread.
+     */
+    public Editor edit(String key) throws IOException {
+
+        synchronized (this) {
+            ensureIndex();
+        }
+
+        return new Editor(key);
+    }
+
+    /**
+     * Remove the value stored for the given key, if there is one.
+     */
+    public synchronized void remove(String key) {
+        ensureIndex();
+        removeFile(fileNameFor(key));
+    }
+
+    /**
+     * Returns the total size of the stored files, in bytes.
+     */
+    public synchronized long size() {
+        ensureIndex();
+        return mSize;
+    }
+
+    /**
+     * Read the stored files from the directory, oldest first, and delete leftover ones.
+     */
+    private LinkedHashMap<String, Long> ensureIndex() {
+
+        if (mEntries != null) {
+            return mEntries;
+        }
+
+        mEntries = new LinkedHashMap<>(16, 0.75f, true);
+        mSize = 0;
+
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            NewsLog.e(LOG_TAG, "Unable to create the cache directory " + mDirectory);
+            return mEntries;
+        }
+
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return mEntries;
+        }
+
+        // The last modified time of a file is updated when it is read
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long difference = a.lastModified() - b.lastModified();
+                return difference < 0 ? -1 : (difference > 0 ? 1 : 0);
+            }
+        });
+
+        for (File file : files) {
+            String name = file.getName();
+
+            if (name.endsWith(ENTRY_SUFFIX)) {
+                mEntries.put(name.substring(0, name.length() - ENTRY_SUFFIX.length()),
+                        file.length());
+                mSize += file.length();
+            } else {
+
+                // An unfinished write
+                deleteFile(file);
+            }
+        }
+
+        trimToSize();
+        return mEntries;
+    }
+
+    /**
+     * Store a value that was completely written to {@code tempFile}.
+     */
+    private synchronized void commit(String key, File tempFile) throws IOException {
+
+        String fileName = fileNameFor(key);
+        ensureIndex();
+        removeFile(fileName);
+
+        File file = new File(mDirectory, fileName + ENTRY_SUFFIX);
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Unable to rename " + tempFile + " to " + file);
+        }
+
+        mEntries.put(fileName, file.length());
+        mSize += file.length();
+        trimToSize();
+    }
+
+    /**
+     * Evict the least recently used files until the cache fits in its maximum size.
+     */
+    private void trimToSize() {
+
+        Iterator<Map.Entry<String, Long>> iterator = mEntries.entrySet().iterator();
+
+        while (mSize > mMaxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            iterator.remove();
+            mSize -= eldest.getValue();
+            deleteFile(new File(mDirectory, eldest.getKey() + ENTRY_SUFFIX));
+        }
+    }
+
+    /**
+     * Remove the entry with the given file name key, if there is one.
+     */
+    private void removeFile(String fileName) {
+
+        Long size = mEntries.remove(fileName);
+        if (size != null) {
+            mSize -= size;
+        }
+
+        deleteFile(new File(mDirectory, fileName + ENTRY_SUFFIX));
+    }
+
+    private static void deleteFile(File file) {
+        if (file.exists() && !file.delete()) {
+            NewsLog.e(LOG_TAG, "Unable to delete " + file);
+        }
+    }
+
+    /**
+     * Returns the file name used for the given key: the hex MD5 hash of the key.
+     */
+    private static String fileNameFor(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            byte[] hash = digest.digest(key.getBytes(UTF_8));
+            return String.format("%032x", new BigInteger(1, hash));
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+
+        } catch (IOException e) {
+
+            NewsLog.e(LOG_TAG, "Problem closing a cache file", e);
+        }
+    }
+
+    /**
+     * Writes a new value to a temporary file. The value only becomes visible in the cache
+     * once {@link #commit()} is called, and {@link #abort()} discards it otherwise.
+     */
+    public final class Editor {
+
+        private final String mKey;
+        private File mTempFile;
+        private final DataOutputStream mTempOut;
+
+        private Editor(String key) throws IOException {
+            mKey = key;
+            mTempFile = File.createTempFile("entry", TEMP_SUFFIX, mDirectory);
+
+            try {
+                mTempOut = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(mTempFile)));
+                mTempOut.writeUTF(key);
+
+            } catch (IOException e) {
+                deleteFile(mTempFile);
+                throw e;
+            }
+        }
+
+        /**
+         * Returns the stream to write the value to.
+         */
+        public OutputStream getOutputStream() {
+            return mTempOut;
+        }
+
+        /**
+         * Store the value written so far, replacing the stored one.
+         */
+        public void commit() throws IOException {
+
+            mTempOut.close();
+            DiskLruCache.this.commit(mKey, mTempFile);
+            mTempFile = null;
+        }
+
+        /**
+         * Discard the value, unless it was committed. Can be called after {@link #commit()},
+         * so it can be called in a finally block.
+         */
+        public void abort() {
+            if (mTempFile != null) {
+                closeQuietly(mTempOut);
+                deleteFile(mTempFile);
+                mTempFile = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.android.newsapp;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * {@link NewsPlatform} of a plain Java virtual machine: log messages are written to the
+ * standard error stream, and the CPU time is read from the {@link ThreadMXBean}.
+ */
+final class JvmPlatform extends NewsPlatform {
+
+    /**
+     * Log messages of a lower priority are dropped
+     */
+    private final int mMinPriority;
+
+    JvmPlatform(int minPriority) {
+        mMinPriority = minPriority;
+    }
+
+    @Override
+    public void log(int priority, String tag, String message, Throwable throwable) {
+
+        if (priority < mMinPriority) {
+            return;
+        }
+
+        String level = priority >= ERROR ? "E" : priority >= WARN ? "W" : "D";
+
+        synchronized (System.err) {
+            System.err.println(level + "/" + tag + ": " + message);
+            if (throwable != null) {
+                throwable.printStackTrace();
+            }
+        }
+    }
+
+    @Override
+    public long threadCpuTimeNanos() {
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        return threads.isCurrentThreadCpuTimeSupported()
+                ? threads.getCurrentThreadCpuTime() : -1;
+    }
+}
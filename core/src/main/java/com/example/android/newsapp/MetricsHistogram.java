@@ -0,0 +1,165 @@
+package com.example.android.newsapp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of non-negative values, such as latencies in microseconds or sizes in bytes,
+ * that can be recorded from any thread without locking or allocating.
+ * <p>
+ * Like an HDR histogram, values are counted in buckets whose width grows with the value:
+ * every power of two is split into {@link #SUB_BUCKET_COUNT} buckets, so a percentile is
+ * never off by more than an eighth of its value, whatever the range of the values.
+ */
+public final class MetricsHistogram {
+
+    /**
+     * Number of buckets every power of two is split into
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Values below this each have a bucket of their own
+     */
+    private static final int LINEAR_BUCKET_COUNT = SUB_BUCKET_COUNT * 2;
+
+    /**
+     * Enough buckets for every positive long
+     */
+    private static final int BUCKET_COUNT =
+            bucketIndex(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSum = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * Count one value. Negative values are counted as 0.
+     */
+    public void record(long value) {
+
+        value = Math.max(0, value);
+
+        mCounts.incrementAndGet(bucketIndex(value));
+        mCount.incrementAndGet();
+        mSum.addAndGet(value);
+
+        long max = mMax.get();
+        while (value > max && !mMax.compareAndSet(max, value)) {
+            max = mMax.get();
+        }
+    }
+
+    /**
+     * Returns the number of values recorded.
+     */
+    public long getCount() {
+        return mCount.get();
+    }
+
+    /**
+     * Returns the sum of the values recorded.
+     */
+    public long getSum() {
+        return mSum.get();
+    }
+
+    /**
+     * Returns the largest value recorded, or 0 if there is none.
+     */
+    public long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * Returns the average of the values recorded, or 0 if there is none.
+     */
+    public long getMean() {
+        long count = mCount.get();
+        return count == 0 ? 0 : mSum.get() / count;
+    }
+
+    /**
+     * Returns a value that {@code percentile} percent of the recorded values are not above,
+     * rounded up to the end of its bucket, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+
+        // Recording may carry on while the buckets are read, so the total is counted here
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = mCounts.get(i);
+            total += counts[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), mMax.get());
+            }
+        }
+
+        return mMax.get();
+    }
+
+    /**
+     * Forget every value recorded so far.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mCount.set(0);
+        mSum.set(0);
+        mMax.set(0);
+    }
+
+    /**
+     * Returns the bucket counting the given non-negative value.
+     */
+    static int bucketIndex(long value) {
+
+        if (value < LINEAR_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        // Position of the highest bit, then the next SUB_BUCKET_BITS bits below it
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKET_COUNT;
+
+        return LINEAR_BUCKET_COUNT
+                + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Returns the largest value counted by the given bucket.
+     */
+    static long bucketUpperBound(int index) {
+
+        if (index < LINEAR_BUCKET_COUNT) {
+            return index;
+        }
+
+        int exponent = (index - LINEAR_BUCKET_COUNT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS + 1;
+        long subBucket = (index - LINEAR_BUCKET_COUNT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        int shift = exponent - SUB_BUCKET_BITS;
+
+        // The last bucket ends at Long.MAX_VALUE, computing its end would overflow
+        if (subBucket + 1 == SUB_BUCKET_COUNT * 2 && exponent == 62) {
+            return Long.MAX_VALUE;
+        }
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
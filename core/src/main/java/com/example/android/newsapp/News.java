@@ -0,0 +1,196 @@
+package com.example.android.newsapp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A news item. Sections repeat across many news items and there are only a few dozen of
+ * them, so they are stored once in a {@link StringDictionary} and each news item only keeps
+ * their codes. Author(s)/contributor(s) repeat too, but there is no end to them, so only
+ * the strings of the ones seen most recently are shared, and every other string is freed
+ * with the news items holding it.
+ * The publication time is kept as a number and only formatted when it is shown.
+ */
+public class News {
+
+    /**
+     * Codes of the sections the news articles belong to
+     */
+    private static final StringDictionary SECTIONS = new StringDictionary();
+    /**
+     * Number of author(s)/contributor(s) whose string is shared with the next news items
+     */
+    static final int MAX_SHARED_AUTHORS = 512;
+    /**
+     * The author(s)/contributor(s) seen most recently, joined the same way as
+     * {@link #getAuthor()} returns them, least recently seen first. Guarded by itself
+     */
+    private static final Map<String, String> RECENT_AUTHORS =
+            new LinkedHashMap<String, String>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                    return size() > MAX_SHARED_AUTHORS;
+                }
+            };
+    /**
+     * Code of the section the news article belongs to
+     */
+    private final int mSection;
+    /**
+     * Author(s)/contributor(s) who wrote the article, "" if there are none
+     * (article can also mean letters, reviews etc)
+     */
+    private final String mAuthor;
+    /**
+     * Time the article was published on the web, in milliseconds since the epoch,
+     * or {@link NewsDates#NO_PUBLICATION_TIME}
+     */
+    private final long mPublicationTime;
+    /**
+     * Title of the news article (article can also mean letters, reviews etc)
+     */
+    private final String mTitle;
+    /**
+     * Website (web)URL of the news item
+     */
+    private final String mUrl;
+    /**
+     * URL of the thumbnail image of the news item, "" if it has none
+     */
+    private final String mThumbnailUrl;
+
+    /**
+     * Constructs a new {@link News} object without a thumbnail image.
+     *
+     * @see #News(String, String, String, long, String, String)
+     */
+    public News(String section, String title, String author, long publicationTime, String url) {
+        this(section, title, author, publicationTime, url, "");
+    }
+
+    /**
+     * Constructs a new {@link News} object.
+     *
+     * @param section         is the section the news article belongs to (e.g. Music)
+     * @param title           is the title of the article (e.g. Arianna Neikrug: Changes review – a hugely impressive debut)
+     * @param author          who wrote the article. Also known as contributor (e.g. Dave Gelly)
+     * @param publicationTime is when the article was published on the web, in milliseconds since
+     *                        the epoch, or {@link NewsDates#NO_PUBLICATION_TIME} if it is unknown
+     * @param url             is the website URL to the article
+     *                        (e.g. https://www.theguardian.com/music/2018/sep/16/arianna-neikrug-changes-review)
+     * @param thumbnailUrl    is the URL of the thumbnail image of the article, "" if it has none
+     */
+    public News(String section, String title, String author, long publicationTime, String url,
+                String thumbnailUrl) {
+
+        mSection = SECTIONS.encode(section);
+        mTitle = title;
+        mAuthor = shareAuthor(author);
+        mPublicationTime = publicationTime;
+        mUrl = url;
+        mThumbnailUrl = thumbnailUrl == null ? "" : thumbnailUrl;
+    }
+
+    /**
+     * Get the section the news article belongs to
+     */
+    public String getSection() {
+        return SECTIONS.decode(mSection);
+    }
+
+    /**
+     * Get the title of the news article
+     */
+    public String getTitle() {
+        return mTitle;
+    }
+
+    /**
+     * Returns the author who wrote the news article
+     */
+    public String getAuthor() {
+        return mAuthor;
+    }
+
+    /**
+     * Returns whether or not there is an author's/contributor's name
+     */
+    public boolean hasAuthorName() {
+        return !mAuthor.isEmpty();
+    }
+
+    /**
+     * Get the time the news article was published onto the web, in milliseconds since the epoch
+     */
+    public long getPublicationTime() {
+        return mPublicationTime;
+    }
+
+    /**
+     * Get the date the news article was published onto the web (e.g. 2018-09-23).
+     * The date is formatted every time this is called, and is "" if there is no date published.
+     */
+    public String getDate() {
+        return hasDate() ? NewsDates.formatDay(mPublicationTime) : "";
+    }
+
+    /**
+     * Returns whether or not there is a date published
+     */
+    public boolean hasDate() {
+        return mPublicationTime != NewsDates.NO_PUBLICATION_TIME;
+    }
+
+    /**
+     * Returns the website URL to find more information about the news item.
+     */
+    public String getUrl() {
+        return mUrl;
+    }
+
+    /**
+     * Returns the URL of the thumbnail image of the news item, "" if it has none.
+     */
+    public String getThumbnailUrl() {
+        return mThumbnailUrl;
+    }
+
+    /**
+     * Returns whether or not there is a thumbnail image
+     */
+    public boolean hasThumbnail() {
+        return !mThumbnailUrl.isEmpty();
+    }
+
+    /**
+     * Returns whether the other news item shows the same section, title, author(s), date
+     * and thumbnail image.
+     */
+    boolean hasSameContents(News other) {
+        return mSection == other.mSection
+                && mAuthor.equals(other.mAuthor)
+                && mPublicationTime == other.mPublicationTime
+                && mTitle.equals(other.mTitle)
+                && mThumbnailUrl.equals(other.mThumbnailUrl);
+    }
+
+    /**
+     * Returns the string of the given author(s)/contributor(s) already held by a recent news
+     * item, or the given one if there is none.
+     */
+    private static String shareAuthor(String author) {
+
+        if (author == null || author.isEmpty()) {
+            return "";
+        }
+
+        synchronized (RECENT_AUTHORS) {
+            String shared = RECENT_AUTHORS.get(author);
+            if (shared == null) {
+                RECENT_AUTHORS.put(author, author);
+                shared = author;
+            }
+            return shared;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.android.newsapp;
+
+/**
+ * Helper methods to parse and format the publication times of the news items.
+ * <p>
+ * The Guardian API sends times such as "2018-09-25T15:45:34Z". They are read and written
+ * digit by digit, without regular expressions or date formatters, so parsing a news item
+ * does not allocate anything for its date.
+ */
+final class NewsDates {
+
+    /**
+     * Publication time of a news item without a date
+     */
+    static final long NO_PUBLICATION_TIME = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_SECOND = 1000;
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * MILLIS_PER_SECOND;
+
+    /**
+     * Create a private constructor because no one should ever create a {@link NewsDates} object.
+     */
+    private NewsDates() {
+    }
+
+    /**
+     * Returns the time, in milliseconds since the epoch, of a UTC date in the form "yyyy-MM-dd"
+     * optionally followed by "THH:mm:ss". Anything after the seconds, such as "Z", is ignored.
+     * Returns {@link #NO_PUBLICATION_TIME} if the date is missing or malformed.
+     */
+    static long parse(String date) {
+
+        if (date == null || date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return NO_PUBLICATION_TIME;
+        }
+
+        int year = parseDigits(date, 0, 4);
+        int month = parseDigits(date, 5, 2);
+        int day = parseDigits(date, 8, 2);
+
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return NO_PUBLICATION_TIME;
+        }
+
+        long time = daysFromCivil(year, month, day) * MILLIS_PER_DAY;
+
+        // The time of day is optional
+        if (date.length() >= 19 && date.charAt(10) == 'T'
+                && date.charAt(13) == ':' && date.charAt(16) == ':') {
+
+            int hours = parseDigits(date, 11, 2);
+            int minutes = parseDigits(date, 14, 2);
+            int seconds = parseDigits(date, 17, 2);
+
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59
+                    || seconds < 0 || seconds > 60) {
+                return NO_PUBLICATION_TIME;
+            }
+
+            time += ((hours * 60L + minutes) * 60L + seconds) * MILLIS_PER_SECOND;
+        }
+
+        return time;
+    }
+
+    /**
+     * Returns the UTC day of the given time in the form "yyyy-MM-dd".
+     */
+    static String formatDay(long time) {
+        char[] chars = new char[10];
+        writeDay(chars, floorDiv(time, MILLIS_PER_DAY));
+        return new String(chars);
+    }
+
+    /**
+     * Returns the given time in the form "yyyy-MM-ddTHH:mm:ssZ" used by the Guardian API.
+     */
+    static String formatInstant(long time) {
+
+        char[] chars = new char[20];
+        long days = floorDiv(time, MILLIS_PER_DAY);
+        int secondOfDay = (int) ((time - days * MILLIS_PER_DAY) / MILLIS_PER_SECOND);
+
+        writeDay(chars, days);
+        chars[10] = 'T';
+        writeDigits(chars, 11, 2, secondOfDay / 3600);
+        chars[13] = ':';
+        writeDigits(chars, 14, 2, secondOfDay / 60 % 60);
+        chars[16] = ':';
+        writeDigits(chars, 17, 2, secondOfDay % 60);
+        chars[19] = 'Z';
+
+        return new String(chars);
+    }
+
+    /**
+     * Returns the number formed by {@code count} digits of {@code text} starting at
+     * {@code start}, or -1 if one of them is not a digit.
+     */
+    private static int parseDigits(String text, int start, int count) {
+
+        int value = 0;
+
+        for (int i = start; i < start + count; i++) {
+
+            char c = text.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+    private static void writeDigits(char[] chars, int start, int count, int value) {
+        for (int i = start + count - 1; i >= start; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Write the day that is {@code days} after 1970-01-01 in the form "yyyy-MM-dd".
+     */
+    private static void writeDay(char[] chars, long days) {
+
+        // Convert the day count to a civil date, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        writeDigits(chars, 0, 4, (int) year);
+        chars[4] = '-';
+        writeDigits(chars, 5, 2, month);
+        chars[7] = '-';
+        writeDigits(chars, 8, 2, day);
+    }
+
+    /**
+     * Returns the largest value that is not greater than {@code dividend / divisor}.
+     * Math.floorDiv is not available before API level 24.
+     */
+    private static long floorDiv(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        if ((dividend % divisor != 0) && ((dividend ^ divisor) < 0)) {
+            quotient--;
+        }
+        return quotient;
+    }
+
+    /**
+     * Returns the number of days between 1970-01-01 and the given civil date.
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = floorDiv(year, 400);
+        int yearOfEra = (int) (year - era * 400);
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
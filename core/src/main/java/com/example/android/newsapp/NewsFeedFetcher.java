@@ -0,0 +1,353 @@
+package com.example.android.newsapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fetches the same page of several feeds, such as one Guardian search per section, at the same
+ * time and merges them into one list, newest first.
+ * <p>
+ * Every feed is already ordered newest first, so the lists are combined with a k-way merge on
+ * the publication time, and a news item found in more than one feed is only kept once. A feed
+ * that has not answered within the timeout of starting is left out, so one slow feed cannot
+ * hold up the others, while feeds queued behind busy threads still get their full timeout.
+ * A feed still queued one timeout after the fetch began is left out too, so a fetch never
+ * waits longer than twice the timeout however busy the threads are. Interrupting the thread waiting for the feeds cancels every one of them.
+ * <p>
+ * Only the news items of one page are merged, so a list built from several pages is newest
+ * first within each page but not across them: a quiet feed can reach further back in time on
+ * page 1 than a busy feed does on page 2. This keeps every page the same news items however
+ * many pages follow it, which the app relies on to drop pages and download them again.
+ */
+public final class NewsFeedFetcher {
+
+    /**
+     * Downloads and parses a single feed.
+     */
+    public interface Source {
+
+        /**
+         * Returns the news items of the given feed URL, newest first, or null if it failed.
+         */
+        List<News> fetch(String url);
+    }
+
+    /**
+     * The merged news items of one page of every feed.
+     */
+    public static final class Result {
+
+        private final List<News> mNewsItems;
+        private final boolean mComplete;
+
+        /**
+         * Number of news items each feed returned, or -1 for the feeds that were left out
+         */
+        private final int[] mFeedItemCounts;
+
+        Result(List<News> newsItems, boolean complete, int[] feedItemCounts) {
+            mNewsItems = newsItems;
+            mComplete = complete;
+            mFeedItemCounts = feedItemCounts;
+        }
+
+        /**
+         * Returns the merged news items, or null if no feed could be fetched.
+         */
+        public List<News> getNewsItems() {
+            return mNewsItems;
+        }
+
+        /**
+         * Returns whether every feed was fetched in time.
+         */
+        public boolean isComplete() {
+            return mComplete;
+        }
+
+        /**
+         * Returns whether this is the last page of every feed, that is every feed was fetched
+         * and returned fewer than {@code pageSize} news items. The merged news items cannot
+         * tell, as a full page of one feed and a short page of another are merged together.
+         */
+        public boolean isLastPage(int pageSize) {
+
+            for (int count : mFeedItemCounts) {
+
+                // A feed that was left out may have more pages
+                if (count < 0 || count >= pageSize) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * {@link Source} that downloads the feeds through {@link QueryUtils#fetchNewsData(String)}
+     */
+    public static final Source GUARDIAN_SOURCE = new Source() {
+        @Override
+        public List<News> fetch(String url) {
+            return QueryUtils.fetchNewsData(url);
+        }
+    };
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = NewsFeedFetcher.class.getSimpleName();
+
+    /**
+     * Maximum number of feeds that are downloaded at the same time
+     */
+    private static final int FEED_FETCH_THREADS = 4;
+
+    /**
+     * Bounded executor shared by every {@link NewsFeedFetcher} to fetch the feeds concurrently,
+     * running the feeds of the most urgent loads first
+     */
+    private static final ExecutorService FEED_EXECUTOR = new NewsThreadPool(FEED_FETCH_THREADS);
+
+    private final Source mSource;
+    private final long mTimeoutMillis;
+
+    /**
+     * Constructs a new {@link NewsFeedFetcher}.
+     *
+     * @param source        downloads a single feed
+     * @param timeoutMillis is how long to wait for the feeds before leaving out the slow ones
+     */
+    public NewsFeedFetcher(Source source, long timeoutMillis) {
+        mSource = source;
+        mTimeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Fetch every feed URL concurrently and merge their news items, newest first.
+     */
+    public Result fetch(List<String> feedUrls) {
+
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(mTimeoutMillis);
+
+        // Feeds that have not started by then are given up on
+        long startDeadlineNanos = System.nanoTime() + timeoutNanos;
+
+        List<FeedTask> feeds = new ArrayList<>(feedUrls.size());
+
+        for (final String feedUrl : feedUrls) {
+            FeedTask feed = new FeedTask(new Callable<List<News>>() {
+                @Override
+                public List<News> call() {
+                    return mSource.fetch(feedUrl);
+                }
+            });
+            FEED_EXECUTOR.execute(feed);
+            feeds.add(feed);
+        }
+
+        List<List<News>> feedItems = new ArrayList<>(feeds.size());
+        int[] feedItemCounts = new int[feeds.size()];
+        boolean complete = true;
+
+        for (int i = 0; i < feeds.size(); i++) {
+
+            List<News> newsItems = null;
+
+            try {
+                newsItems = feeds.get(i).await(timeoutNanos, startDeadlineNanos);
+
+            } catch (TimeoutException e) {
+
+                feeds.get(i).cancel(true);
+                NewsMetrics.getInstance().recordFeedTimeout();
+                NewsLog.w(LOG_TAG, "Feed timed out: " + feedUrls.get(i));
+            } catch (InterruptedException e) {
+
+                // Nobody wants the page any more, so stop downloading and parsing every feed
+                Thread.currentThread().interrupt();
+                for (FeedTask feed : feeds) {
+                    feed.cancel(true);
+                }
+                NewsLog.d(LOG_TAG, "Cancelled fetching " + feedUrls);
+                Arrays.fill(feedItemCounts, -1);
+                return new Result(null, false, feedItemCounts);
+            } catch (ExecutionException e) {
+
+                NewsLog.e(LOG_TAG, "Problem fetching " + feedUrls.get(i), e);
+            }
+
+            if (newsItems == null) {
+                complete = false;
+                feedItemCounts[i] = -1;
+            } else {
+                feedItems.add(newsItems);
+                feedItemCounts[i] = newsItems.size();
+            }
+        }
+
+        if (feedItems.isEmpty()) {
+            return new Result(null, false, feedItemCounts);
+        }
+
+        return new Result(merge(feedItems), complete, feedItemCounts);
+    }
+
+    /**
+     * Merge lists of news items that are each ordered newest first into one list ordered
+     * newest first, keeping only the first news item with each URL.
+     */
+    static List<News> merge(List<List<News>> feeds) {
+
+        if (feeds.size() == 1) {
+            return removeDuplicates(feeds.get(0));
+        }
+
+        int size = 0;
+        PriorityQueue<FeedCursor> cursors = new PriorityQueue<>(Math.max(1, feeds.size()));
+
+        for (int i = 0; i < feeds.size(); i++) {
+            List<News> feed = feeds.get(i);
+            size += feed.size();
+            if (!feed.isEmpty()) {
+                cursors.add(new FeedCursor(feed, i));
+            }
+        }
+
+        List<News> newsItems = new ArrayList<>(size);
+        Set<String> urls = new HashSet<>();
+
+        // Take the newest remaining news item of all the feeds until they are all used up
+        while (!cursors.isEmpty()) {
+
+            FeedCursor cursor = cursors.poll();
+            News news = cursor.current();
+
+            if (urls.add(news.getUrl())) {
+                newsItems.add(news);
+            }
+
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        return newsItems;
+    }
+
+    private static List<News> removeDuplicates(List<News> feed) {
+
+        Set<String> urls = new HashSet<>();
+        List<News> newsItems = new ArrayList<>(feed.size());
+
+        for (News news : feed) {
+            if (urls.add(news.getUrl())) {
+                newsItems.add(news);
+            }
+        }
+
+        return newsItems.size() == feed.size() ? feed : Collections.unmodifiableList(newsItems);
+    }
+
+    /**
+     * Fetch of one feed, which remembers when it started running so its timeout is counted
+     * from then rather than from when it was queued.
+     */
+    private static final class FeedTask extends FutureTask<List<News>> {
+
+        /**
+         * {@link System#nanoTime()} when the fetch started, valid once {@link #mStarted} is set
+         */
+        private volatile long mStartNanos;
+        private volatile boolean mStarted;
+
+        FeedTask(Callable<List<News>> callable) {
+            super(callable);
+        }
+
+        @Override
+        public void run() {
+            mStartNanos = System.nanoTime();
+            mStarted = true;
+            super.run();
+        }
+
+        /**
+         * Wait for the news items of the feed until {@code timeoutNanos} after it started, or
+         * until {@code startDeadlineNanos} if it has not started by then.
+         */
+        List<News> await(long timeoutNanos, long startDeadlineNanos)
+                throws InterruptedException, ExecutionException, TimeoutException {
+
+            while (true) {
+                long deadlineNanos = mStarted ? mStartNanos + timeoutNanos : startDeadlineNanos;
+
+                try {
+                    return get(Math.max(0, deadlineNanos - System.nanoTime()),
+                            TimeUnit.NANOSECONDS);
+
+                } catch (TimeoutException e) {
+
+                    // A feed that started meanwhile gets its own timeout
+                    deadlineNanos = mStarted ? mStartNanos + timeoutNanos : startDeadlineNanos;
+
+                    if (System.nanoTime() - deadlineNanos >= 0) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Position in one feed during a merge. Cursors are ordered by the publication time of their
+     * current news item, newest first, and then by feed so equal times keep a stable order.
+     */
+    private static final class FeedCursor implements Comparable<FeedCursor> {
+
+        private final List<News> mFeed;
+        private final int mFeedIndex;
+        private int mPosition;
+
+        FeedCursor(List<News> feed, int feedIndex) {
+            mFeed = feed;
+            mFeedIndex = feedIndex;
+        }
+
+        News current() {
+            return mFeed.get(mPosition);
+        }
+
+        /**
+         * Move to the next news item, returning false once the feed is used up.
+         */
+        boolean advance() {
+            mPosition++;
+            return mPosition < mFeed.size();
+        }
+
+        @Override
+        public int compareTo(FeedCursor other) {
+            long time = current().getPublicationTime();
+            long otherTime = other.current().getPublicationTime();
+
+            if (time != otherTime) {
+                return time > otherTime ? -1 : 1;
+            }
+
+            return mFeedIndex < other.mFeedIndex ? -1 : (mFeedIndex == other.mFeedIndex ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package com.example.android.newsapp;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.ProtocolException;
+import java.net.URL;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Makes the HTTP requests to the Guardian API.
+ * <p>
+ * Connections are never disconnected after a successful request. Instead the response body
+ * is read to the end and closed, which hands the connection back to the pool kept by
+ * {@link HttpURLConnection}, so the next request to the same host skips the TCP and TLS
+ * handshakes. Responses are requested gzip compressed and decompressed while they are read.
+ * <p>
+ * A request is cancelled by interrupting the thread making it. The body stops being read,
+ * and the connection is dropped instead of drained. A blocking read does not notice an
+ * interrupt on its own, so threads made by {@link #THREAD_FACTORY} also close the socket of
+ * the request they are making when they are interrupted.
+ */
+public final class NewsHttpClient {
+
+    /**
+     * Largest number of unread body bytes drained when a response is closed early.
+     * Anything bigger is cheaper to drop together with its connection.
+     */
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+    /**
+     * Makes threads that close the socket of the request they are making when they are
+     * interrupted, for example by {@link java.util.concurrent.Future#cancel(boolean)}
+     */
+    public static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new RequestThread(runnable);
+        }
+    };
+
+    /**
+     * Milliseconds to wait for a connection to be established
+     */
+    private final int mConnectTimeoutMillis;
+
+    /**
+     * Milliseconds to wait for data while the response is being read
+     */
+    private final int mReadTimeoutMillis;
+
+    /**
+     * Constructs a new {@link NewsHttpClient}.
+     *
+     * @param connectTimeoutMillis is how long to wait for a connection to be established
+     * @param readTimeoutMillis    is how long to wait for data while reading the response
+     */
+    public NewsHttpClient(int connectTimeoutMillis, int readTimeoutMillis) {
+        mConnectTimeoutMillis = connectTimeoutMillis;
+        mReadTimeoutMillis = readTimeoutMillis;
+    }
+
+    /**
+     * Send a GET request to the given URL with the given extra request headers.
+     * The returned {@link Response} must be closed.
+     */
+    public Response get(URL url, Map<String, String> requestHeaders) throws IOException {
+        return get(url, requestHeaders, mConnectTimeoutMillis, mReadTimeoutMillis);
+    }
+
+    /**
+     * Send a GET request to the given URL with the given extra request headers and timeouts
+     * instead of the ones of this client. The returned {@link Response} must be closed.
+     */
+    public Response get(URL url, Map<String, String> requestHeaders, int connectTimeoutMillis,
+                        int readTimeoutMillis) throws IOException {
+
+        long startNanos = System.nanoTime();
+
+        HttpURLConnection urlConnection = (HttpURLConnection) url.openConnection();
+        RequestThread.setConnection(urlConnection);
+
+        try {
+            // The request may have been cancelled before the connection could be closed by it
+            throwIfInterrupted();
+
+            urlConnection.setReadTimeout(readTimeoutMillis);
+            urlConnection.setConnectTimeout(connectTimeoutMillis);
+            urlConnection.setRequestMethod("GET");
+
+            // Setting the header ourselves turns off transparent decompression,
+            // so the response is decompressed in Response.getBody() instead
+            urlConnection.setRequestProperty("Accept-Encoding", "gzip");
+
+            for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
+                urlConnection.setRequestProperty(header.getKey(), header.getValue());
+            }
+
+            // Opens the socket, or takes a connection from the pool
+            urlConnection.connect();
+            long connectedNanos = System.nanoTime();
+
+            // Waits for the status line, which is the first byte of the response
+            int responseCode = urlConnection.getResponseCode();
+            long firstByteNanos = System.nanoTime();
+
+            Timings timings = new Timings(startNanos, connectedNanos, firstByteNanos);
+            return new Response(urlConnection, responseCode, timings);
+
+        } catch (IOException e) {
+
+            // The connection is in an unknown state, so it must not be reused
+            RequestThread.setConnection(null);
+            urlConnection.disconnect();
+            throwIfInterrupted();
+            throw e;
+        }
+    }
+
+    /**
+     * Throw an {@link InterruptedIOException} if the calling thread has been interrupted.
+     * The interrupt is left set, so the callers further up can see it too.
+     */
+    static void throwIfInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Request cancelled");
+        }
+    }
+
+    /**
+     * The response to a GET request. Closing it returns the connection to the pool.
+     */
+    public static final class Response implements Closeable {
+
+        private final HttpURLConnection mUrlConnection;
+        private final int mResponseCode;
+        private final Timings mTimings;
+        private CountingInputStream mRawBody;
+        private boolean mClosed;
+
+        private Response(HttpURLConnection urlConnection, int responseCode, Timings timings) {
+            mUrlConnection = urlConnection;
+            mResponseCode = responseCode;
+            mTimings = timings;
+        }
+
+        /**
+         * Returns the HTTP status code, for example 200
+         */
+        public int getCode() {
+            return mResponseCode;
+        }
+
+        /**
+         * Returns the value of the given response header, or null if it is not set
+         */
+        public String getHeader(String name) {
+            return mUrlConnection.getHeaderField(name);
+        }
+
+        /**
+         * Returns the decompressed response body.
+         */
+        public InputStream getBody() throws IOException {
+
+            InputStream body = mResponseCode >= 400
+                    ? mUrlConnection.getErrorStream()
+                    : mUrlConnection.getInputStream();
+
+            if (body == null) {
+                return null;
+            }
+
+            mRawBody = new CountingInputStream(body, mUrlConnection.getContentLength());
+
+            String contentEncoding = mUrlConnection.getContentEncoding();
+            if (contentEncoding != null
+                    && contentEncoding.toLowerCase(Locale.US).equals("gzip")) {
+                return new GZIPInputStream(mRawBody);
+            }
+
+            return mRawBody;
+        }
+
+        /**
+         * Returns how long each phase of the request took. The body phase is only
+         * known once the response has been closed.
+         */
+        public Timings getTimings() {
+            return mTimings;
+        }
+
+        /**
+         * Read what is left of the body and close it, so the connection can be reused.
+         * If the request was cancelled, the connection is dropped instead.
+         */
+        @Override
+        public void close() {
+
+            if (mClosed) {
+                return;
+            }
+
+            mClosed = true;
+            RequestThread.setConnection(null);
+
+            try {
+                // Nobody wants the rest of the body, so it is not downloaded
+                throwIfInterrupted();
+
+                if (mRawBody == null) {
+                    getBody();
+                }
+                if (mRawBody != null) {
+                    mRawBody.drain(MAX_DRAIN_BYTES);
+                    mRawBody.closeConnectionStream();
+                    mTimings.mBodyBytes = mRawBody.mCount;
+                }
+
+                // The rest of the body was too big to drain, the connection is dropped
+                if (mRawBody != null && !mRawBody.mEndReached) {
+                    mUrlConnection.disconnect();
+                }
+
+            } catch (IOException e) {
+
+                mUrlConnection.disconnect();
+                if (mRawBody != null) {
+                    mTimings.mBodyBytes = mRawBody.mCount;
+                }
+            }
+
+            mTimings.mClosedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * How long each phase of a request took: connecting (name lookup, TCP and TLS
+     * handshakes, or nothing when a pooled connection was reused), waiting for the first
+     * byte of the response, and reading the body.
+     * {@link HttpURLConnection} does not report the TLS handshake on its own, so it is
+     * part of the connect phase.
+     */
+    public static final class Timings {
+
+        private final long mStartNanos;
+        private final long mConnectedNanos;
+        private final long mFirstByteNanos;
+        private volatile long mClosedNanos;
+        private volatile long mBodyBytes;
+
+        private Timings(long startNanos, long connectedNanos, long firstByteNanos) {
+            mStartNanos = startNanos;
+            mConnectedNanos = connectedNanos;
+            mFirstByteNanos = firstByteNanos;
+        }
+
+        /**
+         * Returns the time spent connecting, in milliseconds
+         */
+        public long getConnectMillis() {
+            return getConnectNanos() / 1000000;
+        }
+
+        /**
+         * Returns the time from sending the request to receiving the status line,
+         * in milliseconds
+         */
+        public long getFirstByteMillis() {
+            return getFirstByteNanos() / 1000000;
+        }
+
+        /**
+         * Returns the time spent reading the body, in milliseconds
+         */
+        public long getBodyMillis() {
+            return getBodyNanos() / 1000000;
+        }
+
+        long getConnectNanos() {
+            return mConnectedNanos - mStartNanos;
+        }
+
+        long getFirstByteNanos() {
+            return mFirstByteNanos - mConnectedNanos;
+        }
+
+        long getBodyNanos() {
+            return mClosedNanos == 0 ? 0 : mClosedNanos - mFirstByteNanos;
+        }
+
+        /**
+         * Returns the number of body bytes received, before decompression
+         */
+        public long getBodyBytes() {
+            return mBodyBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "connect=" + getConnectMillis() + "ms"
+                    + " firstByte=" + getFirstByteMillis() + "ms"
+                    + " body=" + getBodyMillis() + "ms"
+                    + " bytes=" + getBodyBytes();
+        }
+    }
+
+    /**
+     * Thread that closes the connection of the request it is making when it is interrupted,
+     * which makes a blocking connect or read fail straight away instead of at its timeout.
+     */
+    private static final class RequestThread extends Thread {
+
+        /**
+         * Number of connections closed at the same time
+         */
+        private static final int DISCONNECT_THREADS = 2;
+
+        /**
+         * Closes the connections of interrupted threads. Some implementations of
+         * {@link HttpURLConnection#disconnect()} wait for a read in progress, and the thread
+         * interrupting may be the main thread, so it never closes them itself.
+         */
+        private static final Executor DISCONNECT_EXECUTOR =
+                new NewsThreadPool(DISCONNECT_THREADS, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "NewsHttpClient-disconnect");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+        /**
+         * Connection of the request being made, or null
+         */
+        private volatile HttpURLConnection mConnection;
+
+        RequestThread(Runnable runnable) {
+            super(runnable, "NewsHttpClient");
+
+            // Idle threads are kept for a while, which must not keep a JVM from exiting
+            setDaemon(true);
+        }
+
+        /**
+         * Remember the connection of the request made by the calling thread, if it is a
+         * {@link RequestThread}, or forget it with null.
+         */
+        static void setConnection(HttpURLConnection connection) {
+            Thread thread = Thread.currentThread();
+            if (thread instanceof RequestThread) {
+                ((RequestThread) thread).mConnection = connection;
+            }
+        }
+
+        @Override
+        public void interrupt() {
+            super.interrupt();
+
+            // Closes the socket, so the thread is not left blocked on it
+            final HttpURLConnection connection = mConnection;
+            if (connection != null) {
+                DISCONNECT_EXECUTOR.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        connection.disconnect();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read from the network and remembers whether the end was reached.
+     * Closing it does nothing, so a parser closing the body cannot stop the rest from
+     * being drained by {@link Response#close()}. Reading stops once the thread is interrupted.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        /**
+         * Length of the body given by the server, or -1 if it is not known
+         */
+        private final long mExpectedLength;
+
+        private long mCount;
+        private boolean mEndReached;
+
+        CountingInputStream(InputStream in, long expectedLength) {
+            super(in);
+            mExpectedLength = expectedLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+            throwIfInterrupted();
+            int b = super.read();
+            if (b == -1) {
+                onEnd();
+            } else {
+                mCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            throwIfInterrupted();
+            int read = super.read(buffer, offset, count);
+            if (read == -1) {
+                onEnd();
+            } else {
+                mCount += read;
+            }
+            return read;
+        }
+
+        /**
+         * Called when the stream of the connection ends. Throws if it ended before the
+         * whole body was received, so a body cut short never passes for a complete one.
+         */
+        private void onEnd() throws IOException {
+
+            // A connection closed by an interrupt may look like the end of the body
+            throwIfInterrupted();
+
+            if (mExpectedLength >= 0 && mCount < mExpectedLength) {
+                throw new ProtocolException("The body ended after " + mCount + " of "
+                        + mExpectedLength + " bytes");
+            }
+
+            mEndReached = true;
+        }
+
+        @Override
+        public void close() {
+            // Only Response.close() may close the connection's stream
+        }
+
+        /**
+         * Close the stream of the connection.
+         */
+        void closeConnectionStream() throws IOException {
+            super.close();
+        }
+
+        /**
+         * Read and discard up to {@code limit} bytes, stopping at the end of the stream.
+         */
+        void drain(int limit) throws IOException {
+            byte[] buffer = new byte[4096];
+            int drained = 0;
+            while (!mEndReached && drained <= limit) {
+                int read = read(buffer, 0, buffer.length);
+                if (read > 0) {
+                    drained += read;
+                }
+            }
+        }
+    }
+}
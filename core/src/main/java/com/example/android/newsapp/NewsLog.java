@@ -0,0 +1,31 @@
+package com.example.android.newsapp;
+
+/**
+ * Log messages of the fetch/parse core, written by the installed {@link NewsPlatform}.
+ * The methods are named after the ones of android.util.Log.
+ */
+final class NewsLog {
+
+    private NewsLog() {
+    }
+
+    static void d(String tag, String message) {
+        NewsPlatform.getInstance().log(NewsPlatform.DEBUG, tag, message, null);
+    }
+
+    static void w(String tag, String message) {
+        NewsPlatform.getInstance().log(NewsPlatform.WARN, tag, message, null);
+    }
+
+    static void w(String tag, String message, Throwable throwable) {
+        NewsPlatform.getInstance().log(NewsPlatform.WARN, tag, message, throwable);
+    }
+
+    static void e(String tag, String message) {
+        NewsPlatform.getInstance().log(NewsPlatform.ERROR, tag, message, null);
+    }
+
+    static void e(String tag, String message, Throwable throwable) {
+        NewsPlatform.getInstance().log(NewsPlatform.ERROR, tag, message, throwable);
+    }
+}
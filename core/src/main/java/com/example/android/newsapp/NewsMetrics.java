@@ -0,0 +1,307 @@
+package com.example.android.newsapp;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency histograms for every phase of getting news items on the screen:
+ * connecting, waiting for the first byte, downloading and parsing a response, the whole
+ * load of the NewsLoader, binding a list item in the NewsAdapter, decoding a thumbnail in
+ * the ThumbnailLoader, and waiting in the queue of the NewsTaskScheduler.
+ * <p>
+ * Recording never locks or allocates, so it is done on every request and every bind.
+ * The numbers are shown by the MetricsActivity of the app, and written by
+ * {@link #dump(PrintWriter)}. Latencies are recorded in microseconds.
+ */
+public final class NewsMetrics {
+
+    private static final NewsMetrics sInstance = new NewsMetrics();
+
+    /**
+     * Time spent connecting, which includes the name lookup and the TCP and TLS handshakes
+     */
+    private final MetricsHistogram mConnectMicros = new MetricsHistogram();
+
+    /**
+     * Time from sending a request to receiving the status line of the response
+     */
+    private final MetricsHistogram mFirstByteMicros = new MetricsHistogram();
+
+    /**
+     * Time spent reading a response body. The body is parsed while it is read, so this
+     * includes the parse.
+     */
+    private final MetricsHistogram mDownloadMicros = new MetricsHistogram();
+
+    /**
+     * CPU time of the thread parsing a response, which leaves out the time spent waiting
+     * for the network
+     */
+    private final MetricsHistogram mParseMicros = new MetricsHistogram();
+
+    /**
+     * Time spent in NewsLoader.loadInBackground()
+     */
+    private final MetricsHistogram mLoadMicros = new MetricsHistogram();
+
+    /**
+     * Time spent binding a news item to a list item
+     */
+    private final MetricsHistogram mBindMicros = new MetricsHistogram();
+
+    /**
+     * Time spent decoding a thumbnail image
+     */
+    private final MetricsHistogram mDecodeMicros = new MetricsHistogram();
+
+    /**
+     * Time a task of the NewsTaskScheduler waited in its queue before a thread took it
+     */
+    private final MetricsHistogram mQueueWaitMicros = new MetricsHistogram();
+
+    /**
+     * Number of tasks queued in the lane of every task submitted to the
+     * NewsTaskScheduler, including it
+     */
+    private final MetricsHistogram mQueueDepth = new MetricsHistogram();
+
+    /**
+     * Size of every response body received, before decompression
+     */
+    private final MetricsHistogram mPayloadBytes = new MetricsHistogram();
+
+    /**
+     * Number of news items in every parsed response
+     */
+    private final MetricsHistogram mParsedItems = new MetricsHistogram();
+
+    /**
+     * Number of news items delivered by every load
+     */
+    private final MetricsHistogram mLoadedItems = new MetricsHistogram();
+
+    private final AtomicLong mRequestCount = new AtomicLong();
+    private final AtomicLong mFailedRequestCount = new AtomicLong();
+    private final AtomicLong mCancelledRequestCount = new AtomicLong();
+    private final AtomicLong mNotModifiedCount = new AtomicLong();
+    private final AtomicLong mFeedTimeoutCount = new AtomicLong();
+    private final AtomicLong mRetryCount = new AtomicLong();
+    private final AtomicLong mHedgedRequestCount = new AtomicLong();
+    private final AtomicLong mCoalescedRequestCount = new AtomicLong();
+
+    /**
+     * Returns the {@link NewsMetrics} shared by the whole process.
+     */
+    public static NewsMetrics getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Returns the CPU time used so far by the calling thread, in nanoseconds, or -1 if it is
+     * not known. Used to time phases that share their thread with network waits.
+     */
+    static long threadCpuTimeNanos() {
+        return NewsPlatform.getInstance().threadCpuTimeNanos();
+    }
+
+    /**
+     * Record the phases of a completed HTTP request.
+     */
+    public void recordRequest(NewsHttpClient.Timings timings) {
+        mRequestCount.incrementAndGet();
+        mConnectMicros.record(TimeUnit.NANOSECONDS.toMicros(timings.getConnectNanos()));
+        mFirstByteMicros.record(TimeUnit.NANOSECONDS.toMicros(timings.getFirstByteNanos()));
+        mDownloadMicros.record(TimeUnit.NANOSECONDS.toMicros(timings.getBodyNanos()));
+        mPayloadBytes.record(timings.getBodyBytes());
+    }
+
+    /**
+     * Count a request that did not return any news items.
+     */
+    public void recordFailedRequest() {
+        mFailedRequestCount.incrementAndGet();
+    }
+
+    /**
+     * Count a request that was given up on before it finished.
+     */
+    public void recordCancelledRequest() {
+        mCancelledRequestCount.incrementAndGet();
+    }
+
+    /**
+     * Count a request answered with "304 Not Modified".
+     */
+    public void recordNotModified() {
+        mNotModifiedCount.incrementAndGet();
+    }
+
+    /**
+     * Count a feed that was left out of a page because it was too slow.
+     */
+    public void recordFeedTimeout() {
+        mFeedTimeoutCount.incrementAndGet();
+    }
+
+    /**
+     * Count a request that is made again after an attempt failed.
+     */
+    public void recordRetry() {
+        mRetryCount.incrementAndGet();
+    }
+
+    /**
+     * Count a second attempt started because the first one was slow.
+     */
+    public void recordHedgedRequest() {
+        mHedgedRequestCount.incrementAndGet();
+    }
+
+    /**
+     * Count a request that shared the download of the same URL already in flight.
+     */
+    public void recordCoalescedRequest() {
+        mCoalescedRequestCount.incrementAndGet();
+    }
+
+    /**
+     * Record the parse of a response.
+     *
+     * @param startCpuNanos is {@link #threadCpuTimeNanos()} when the parse started
+     * @param itemCount     is the number of news items parsed
+     */
+    public void recordParse(long startCpuNanos, int itemCount) {
+        long endCpuNanos = threadCpuTimeNanos();
+        if (startCpuNanos >= 0 && endCpuNanos >= startCpuNanos) {
+            mParseMicros.record(TimeUnit.NANOSECONDS.toMicros(endCpuNanos - startCpuNanos));
+        }
+        mParsedItems.record(itemCount);
+    }
+
+    /**
+     * Record a load of the NewsLoader that took {@code nanos} and delivered
+     * {@code itemCount} news items.
+     */
+    public void recordLoad(long nanos, int itemCount) {
+        mLoadMicros.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        mLoadedItems.record(itemCount);
+    }
+
+    /**
+     * Record the bind of one list item that took {@code nanos}.
+     */
+    public void recordBind(long nanos) {
+        mBindMicros.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Record the decode of one thumbnail image that took {@code nanos}.
+     */
+    public void recordDecode(long nanos) {
+        mDecodeMicros.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Record a task of the NewsTaskScheduler taken by a thread after waiting
+     * {@code nanos} in its queue.
+     */
+    public void recordQueueWait(long nanos) {
+        mQueueWaitMicros.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Record a task submitted to the NewsTaskScheduler with {@code depth} tasks queued
+     * in its lane, including it.
+     */
+    public void recordQueueDepth(int depth) {
+        mQueueDepth.record(depth);
+    }
+
+    /**
+     * Returns the number of HTTP requests recorded.
+     */
+    public long getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    /**
+     * Returns the time spent binding list items, in microseconds.
+     */
+    public MetricsHistogram getBindMicros() {
+        return mBindMicros;
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset() {
+        for (MetricsHistogram histogram : new MetricsHistogram[]{mConnectMicros, mFirstByteMicros,
+                mDownloadMicros, mParseMicros, mLoadMicros, mBindMicros, mDecodeMicros,
+                mQueueWaitMicros, mQueueDepth, mPayloadBytes, mParsedItems, mLoadedItems}) {
+            histogram.reset();
+        }
+        mRequestCount.set(0);
+        mFailedRequestCount.set(0);
+        mCancelledRequestCount.set(0);
+        mNotModifiedCount.set(0);
+        mFeedTimeoutCount.set(0);
+        mRetryCount.set(0);
+        mHedgedRequestCount.set(0);
+        mCoalescedRequestCount.set(0);
+    }
+
+    /**
+     * Write every counter, and the count, mean, percentiles and maximum of every histogram,
+     * as plain text.
+     */
+    public void dump(PrintWriter writer) {
+
+        writer.println("requests=" + mRequestCount.get()
+                + " failed=" + mFailedRequestCount.get()
+                + " cancelled=" + mCancelledRequestCount.get()
+                + " notModified=" + mNotModifiedCount.get()
+                + " feedTimeouts=" + mFeedTimeoutCount.get()
+                + " retries=" + mRetryCount.get()
+                + " hedged=" + mHedgedRequestCount.get()
+                + " coalesced=" + mCoalescedRequestCount.get());
+        writer.println(String.format("%-14s %7s %9s %9s %9s %9s %9s",
+                "", "count", "mean", "p50", "p90", "p99", "max"));
+
+        dumpHistogram(writer, "connect us", mConnectMicros);
+        dumpHistogram(writer, "firstByte us", mFirstByteMicros);
+        dumpHistogram(writer, "download us", mDownloadMicros);
+        dumpHistogram(writer, "parseCpu us", mParseMicros);
+        dumpHistogram(writer, "load us", mLoadMicros);
+        dumpHistogram(writer, "bind us", mBindMicros);
+        dumpHistogram(writer, "decode us", mDecodeMicros);
+        dumpHistogram(writer, "queueWait us", mQueueWaitMicros);
+        dumpHistogram(writer, "queue depth", mQueueDepth);
+        dumpHistogram(writer, "payload B", mPayloadBytes);
+        dumpHistogram(writer, "parsed items", mParsedItems);
+        dumpHistogram(writer, "loaded items", mLoadedItems);
+    }
+
+    /**
+     * Returns the text written by {@link #dump(PrintWriter)}.
+     */
+    public String getReport() {
+        StringWriter report = new StringWriter();
+        PrintWriter writer = new PrintWriter(report);
+        dump(writer);
+        writer.flush();
+        return report.toString();
+    }
+
+    private static void dumpHistogram(PrintWriter writer, String name,
+                                      MetricsHistogram histogram) {
+        writer.println(String.format("%-14s %7d %9d %9d %9d %9d %9d", name,
+                histogram.getCount(),
+                histogram.getMean(),
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(90),
+                histogram.getValueAtPercentile(99),
+                histogram.getMax()));
+    }
+}
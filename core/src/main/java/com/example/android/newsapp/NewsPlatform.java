@@ -0,0 +1,58 @@
+package com.example.android.newsapp;
+
+/**
+ * What the fetch/parse core needs from the platform it runs on: writing log messages and
+ * reading the CPU time of a thread. The app installs the Android version when it starts, and
+ * anywhere else, such as the unit tests and the load test, a plain Java version is used.
+ */
+public abstract class NewsPlatform {
+
+    /**
+     * Priorities of the log messages, with the same values as the ones of android.util.Log
+     */
+    public static final int DEBUG = 3;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    private static volatile NewsPlatform sInstance;
+
+    /**
+     * Returns the installed {@link NewsPlatform}, or the plain Java one if none was installed.
+     */
+    public static NewsPlatform getInstance() {
+
+        NewsPlatform platform = sInstance;
+
+        if (platform == null) {
+            synchronized (NewsPlatform.class) {
+                if (sInstance == null) {
+                    sInstance = new JvmPlatform(WARN);
+                }
+                platform = sInstance;
+            }
+        }
+
+        return platform;
+    }
+
+    /**
+     * Use the given {@link NewsPlatform} from now on. Called once, before anything is fetched.
+     */
+    public static void setInstance(NewsPlatform platform) {
+        sInstance = platform;
+    }
+
+    /**
+     * Write a log message.
+     *
+     * @param priority  is {@link #DEBUG}, {@link #WARN} or {@link #ERROR}
+     * @param throwable is the cause of the message, or null
+     */
+    public abstract void log(int priority, String tag, String message, Throwable throwable);
+
+    /**
+     * Returns the CPU time used so far by the calling thread, in nanoseconds, or -1 if it is
+     * not known.
+     */
+    public abstract long threadCpuTimeNanos();
+}
@@ -0,0 +1,281 @@
+package com.example.android.newsapp;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs idempotent requests, such as the GET requests to the Guardian API, so that they
+ * cope with slow and flaky mobile networks.
+ * <p>
+ * The timeouts are derived from the latencies seen so far instead of being fixed. An attempt
+ * that fails with an {@link IOException} is retried after an exponential backoff with full
+ * jitter. With hedging turned on, a second attempt is started when the first one is slower
+ * than 95% of the attempts seen so far, and whichever succeeds first is used.
+ * <p>
+ * Interrupting the calling thread cancels the request: the attempts running are cancelled,
+ * and no more are made.
+ */
+public final class NewsRequestExecutor {
+
+    /**
+     * One attempt at a request.
+     */
+    public interface Attempt<T> {
+
+        /**
+         * Make the request with the given timeouts. Throw an {@link IOException} if the request
+         * may succeed when it is made again, and return null if it failed for good.
+         */
+        T run(int connectTimeoutMillis, int readTimeoutMillis) throws IOException;
+    }
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = NewsRequestExecutor.class.getSimpleName();
+
+    /**
+     * Timeouts used until enough latencies have been seen
+     */
+    static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 15000;
+    static final int DEFAULT_READ_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * Derived timeouts are never shorter than this, so a run of fast responses cannot make
+     * them too short for a slower network, and never longer than the default ones
+     */
+    static final int MIN_TIMEOUT_MILLIS = 2000;
+
+    /**
+     * Derived timeouts are this many times the 99th percentile of the latency they cover
+     */
+    private static final int TIMEOUT_PERCENTILE_FACTOR = 3;
+
+    /**
+     * Number of successful attempts needed before the timeouts are derived and hedging starts
+     */
+    static final int MIN_SAMPLES = 20;
+
+    /**
+     * Number of attempts that run on their own threads at the same time: the first attempt and
+     * the hedge of as many requests as {@link QueryUtils} makes at once
+     */
+    private static final int ATTEMPT_THREADS = 2 * QueryUtils.MAX_CONCURRENT_REQUESTS;
+
+    /**
+     * Attempts run on their own threads when they can be hedged. Cancelling an attempt closes
+     * its connection.
+     */
+    private static final ExecutorService ATTEMPT_EXECUTOR = new NewsThreadPool(ATTEMPT_THREADS);
+
+    private final int mMaxAttempts;
+    private final long mBaseBackoffMillis;
+    private final long mMaxBackoffMillis;
+    private final boolean mHedging;
+    private final Random mRandom;
+
+    /**
+     * Latencies of successful attempts, in milliseconds
+     */
+    private final MetricsHistogram mConnectMillis = new MetricsHistogram();
+    private final MetricsHistogram mFirstByteMillis = new MetricsHistogram();
+    private final MetricsHistogram mAttemptMillis = new MetricsHistogram();
+
+    /**
+     * Constructs a new {@link NewsRequestExecutor}.
+     *
+     * @param maxAttempts       is the number of times a request is made before giving up
+     * @param baseBackoffMillis is the longest wait before the first retry, doubled on every retry
+     * @param maxBackoffMillis  is the longest wait before any retry
+     * @param hedging           is whether a second attempt is started when the first one is slow
+     * @param random            picks the waits between the retries
+     */
+    public NewsRequestExecutor(int maxAttempts, long baseBackoffMillis, long maxBackoffMillis,
+                               boolean hedging, Random random) {
+        mMaxAttempts = maxAttempts;
+        mBaseBackoffMillis = baseBackoffMillis;
+        mMaxBackoffMillis = maxBackoffMillis;
+        mHedging = hedging;
+        mRandom = random;
+    }
+
+    /**
+     * Run the request until an attempt succeeds, fails for good, or every attempt is used up.
+     * Returns the result of the successful attempt, or null.
+     */
+    public <T> T execute(Attempt<T> attempt) {
+
+        for (int i = 0; i < mMaxAttempts; i++) {
+
+            if (i > 0) {
+                long backoffMillis = getBackoffMillis(i);
+                NewsLog.d(LOG_TAG, "Retrying in " + backoffMillis + " ms");
+                NewsMetrics.getInstance().recordRetry();
+
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+
+            try {
+                return mHedging && mAttemptMillis.getCount() >= MIN_SAMPLES
+                        ? runHedged(attempt) : runTimed(attempt);
+
+            } catch (IOException e) {
+
+                // The request was cancelled, so it is not retried
+                if (Thread.currentThread().isInterrupted()) {
+                    NewsLog.d(LOG_TAG, "Request cancelled");
+                    return null;
+                }
+
+                NewsLog.w(LOG_TAG, "Attempt " + (i + 1) + " of " + mMaxAttempts + " failed", e);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Record the latencies of a request answered with 200 or 304, in milliseconds, from which
+     * the timeouts are derived. Error responses are not recorded.
+     */
+    public void recordLatency(long connectMillis, long firstByteMillis) {
+        mConnectMillis.record(connectMillis);
+        mFirstByteMillis.record(firstByteMillis);
+    }
+
+    /**
+     * Returns the connect timeout for the next attempt.
+     */
+    public int getConnectTimeoutMillis() {
+        return deriveTimeout(mConnectMillis, DEFAULT_CONNECT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Returns the read timeout for the next attempt.
+     */
+    public int getReadTimeoutMillis() {
+        return deriveTimeout(mFirstByteMillis, DEFAULT_READ_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Returns how long an attempt runs before a second one is started, the 95th percentile
+     * of the attempts seen so far.
+     */
+    long getHedgeDelayMillis() {
+        return Math.max(1, mAttemptMillis.getValueAtPercentile(95));
+    }
+
+    /**
+     * Returns a random wait before the given retry, up to {@link #mBaseBackoffMillis} doubled
+     * once per retry and never more than {@link #mMaxBackoffMillis}.
+     */
+    long getBackoffMillis(int retry) {
+        long ceiling = mBaseBackoffMillis << Math.min(retry - 1, 20);
+        ceiling = Math.min(mMaxBackoffMillis, ceiling);
+        return (long) (mRandom.nextDouble() * ceiling);
+    }
+
+    private static int deriveTimeout(MetricsHistogram latencies, int defaultTimeoutMillis) {
+
+        if (latencies.getCount() < MIN_SAMPLES) {
+            return defaultTimeoutMillis;
+        }
+
+        long timeoutMillis = latencies.getValueAtPercentile(99) * TIMEOUT_PERCENTILE_FACTOR;
+        return (int) Math.max(MIN_TIMEOUT_MILLIS, Math.min(defaultTimeoutMillis, timeoutMillis));
+    }
+
+    /**
+     * Run one attempt on the calling thread and record how long it took if it succeeded.
+     */
+    private <T> T runTimed(Attempt<T> attempt) throws IOException {
+
+        long startNanos = System.nanoTime();
+        T result = attempt.run(getConnectTimeoutMillis(), getReadTimeoutMillis());
+
+        if (result != null) {
+            mAttemptMillis.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        }
+
+        return result;
+    }
+
+    /**
+     * Run one attempt, and a second one if the first is still running after the hedge delay.
+     * Returns the result of the first attempt to succeed. The other attempt is cancelled,
+     * or left to finish if it cannot be interrupted.
+     */
+    private <T> T runHedged(final Attempt<T> attempt) throws IOException {
+
+        CompletionService<T> attempts = new ExecutorCompletionService<>(ATTEMPT_EXECUTOR);
+        Callable<T> call = new Callable<T>() {
+            @Override
+            public T call() throws IOException {
+                return runTimed(attempt);
+            }
+        };
+
+        Future<T> first = attempts.submit(call);
+        Future<T> second = null;
+        IOException failure;
+        int running = 1;
+
+        try {
+            Future<T> done = attempts.poll(getHedgeDelayMillis(), TimeUnit.MILLISECONDS);
+
+            if (done == null) {
+                NewsLog.d(LOG_TAG, "Hedging a request slower than " + getHedgeDelayMillis() + " ms");
+                NewsMetrics.getInstance().recordHedgedRequest();
+                second = attempts.submit(call);
+                running++;
+                done = attempts.take();
+            }
+
+            while (true) {
+                running--;
+
+                try {
+                    // A result, or a failure for good, ends the request
+                    return done.get();
+
+                } catch (ExecutionException e) {
+
+                    if (e.getCause() instanceof IOException) {
+                        failure = (IOException) e.getCause();
+                    } else {
+                        failure = new IOException(e.getCause());
+                    }
+                }
+
+                // Both attempts may fail, then the request is retried
+                if (running == 0) {
+                    throw failure;
+                }
+
+                done = attempts.take();
+            }
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the request", e);
+        } finally {
+            first.cancel(true);
+            if (second != null) {
+                second.cancel(true);
+            }
+        }
+    }
+}
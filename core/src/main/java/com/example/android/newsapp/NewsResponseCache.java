@@ -0,0 +1,304 @@
+package com.example.android.newsapp;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Disk cache of Guardian API responses used to make conditional GET requests.
+ * <p>
+ * For every cached URL the response body is stored together with its "ETag" and
+ * "Last-Modified" validators in a {@link DiskLruCache}. When the server answers
+ * "304 Not Modified" the previously parsed list of {@link News} is reused, so nothing is
+ * downloaded or parsed again. The total size of the stored responses is bounded, and the
+ * least recently used responses are evicted first.
+ */
+public final class NewsResponseCache {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = NewsResponseCache.class.getSimpleName();
+
+    /**
+     * Number of parsed responses kept in memory for "304 Not Modified" answers
+     */
+    private static final int MAX_PARSED_ENTRIES = 8;
+
+    /**
+     * Stored responses by URL: the validators, followed by the body
+     */
+    private final DiskLruCache mDiskCache;
+
+    /**
+     * The most recently parsed responses by URL. Guarded by this cache
+     */
+    private final Map<String, List<News>> mParsed =
+            new LinkedHashMap<String, List<News>>(MAX_PARSED_ENTRIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<News>> eldest) {
+                    return size() > MAX_PARSED_ENTRIES;
+                }
+            };
+
+    /**
+     * Constructs a new {@link NewsResponseCache}.
+     *
+     * @param directory is where the responses are stored, it is created if needed
+     * @param maxBytes  is the maximum total size of the stored responses
+     */
+    public NewsResponseCache(File directory, long maxBytes) {
+        mDiskCache = new DiskLruCache(directory, maxBytes);
+    }
+
+    /**
+     * Returns the validators stored for the given URL, or null if it is not cached.
+     */
+    public Validators getValidators(String url) {
+
+        DataInputStream in = openResponse(url);
+
+        if (in == null) {
+            return null;
+        }
+
+        try {
+            return new Validators(emptyToNull(in.readUTF()), emptyToNull(in.readUTF()));
+
+        } catch (IOException e) {
+
+            NewsLog.e(LOG_TAG, "Problem reading the cached validators", e);
+            remove(url);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Returns the parsed list of {@link News} for the given URL after the server confirmed
+     * it has not been modified. The body is only read from disk when the parsed list
+     * is no longer held in memory. Returns null if the URL is not cached.
+     */
+    public List<News> getNotModified(String url) {
+
+        // Parsed lists are only used while their body is still on disk
+        if (!mDiskCache.contains(url)) {
+            synchronized (this) {
+                mParsed.remove(url);
+            }
+            return null;
+        }
+
+        synchronized (this) {
+            List<News> newsItems = mParsed.get(url);
+            if (newsItems != null) {
+                return newsItems;
+            }
+        }
+
+        DataInputStream in = openResponse(url);
+        List<News> newsItems = null;
+
+        if (in == null) {
+            return null;
+        }
+
+        try {
+            // Skip the validators, the body follows them
+            in.readUTF();
+            in.readUTF();
+            newsItems = QueryUtils.extractFeatureFromStream(in);
+
+        } catch (IOException e) {
+
+            NewsLog.e(LOG_TAG, "Problem reading the cached response", e);
+        } finally {
+            closeQuietly(in);
+        }
+
+        if (newsItems == null) {
+            remove(url);
+            return null;
+        }
+
+        newsItems = Collections.unmodifiableList(newsItems);
+
+        synchronized (this) {
+            mParsed.put(url, newsItems);
+        }
+
+        return newsItems;
+    }
+
+    /**
+     * Start storing a new response for the given URL. Returns null if the response has
+     * no validators, because it could never be revalidated.
+     */
+    public Editor edit(String url, String eTag, String lastModified) {
+
+        if (eTag == null && lastModified == null) {
+            return null;
+        }
+
+        return new Editor(url, eTag, lastModified);
+    }
+
+    /**
+     * Returns the total size of the stored responses, in bytes.
+     */
+    public long size() {
+        return mDiskCache.size();
+    }
+
+    private DataInputStream openResponse(String url) {
+        InputStream in = mDiskCache.open(url);
+        return in == null ? null : new DataInputStream(in);
+    }
+
+    private void remove(String url) {
+        mDiskCache.remove(url);
+        synchronized (this) {
+            mParsed.remove(url);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+
+        } catch (IOException e) {
+
+            NewsLog.e(LOG_TAG, "Problem closing a cache file", e);
+        }
+    }
+
+    /**
+     * The "ETag" and "Last-Modified" values a response was stored with.
+     */
+    public static final class Validators {
+
+        private final String mETag;
+        private final String mLastModified;
+
+        Validators(String eTag, String lastModified) {
+            mETag = eTag;
+            mLastModified = lastModified;
+        }
+
+        /**
+         * Returns the value to send in the "If-None-Match" header, or null
+         */
+        public String getETag() {
+            return mETag;
+        }
+
+        /**
+         * Returns the value to send in the "If-Modified-Since" header, or null
+         */
+        public String getLastModified() {
+            return mLastModified;
+        }
+    }
+
+    /**
+     * Writes a response body to the cache while it is being parsed. The body only
+     * becomes visible in the cache once {@link #commit(List)} is called.
+     */
+    public final class Editor {
+
+        private final String mUrl;
+        private final String mETag;
+        private final String mLastModified;
+        private DiskLruCache.Editor mDiskEditor;
+
+        private Editor(String url, String eTag, String lastModified) {
+            mUrl = url;
+            mETag = eTag;
+            mLastModified = lastModified;
+        }
+
+        /**
+         * Returns a stream that reads the given response body and copies every byte
+         * into the cache.
+         */
+        public InputStream wrap(InputStream body) throws IOException {
+
+            mDiskEditor = mDiskCache.edit(mUrl);
+
+            final DataOutputStream out = new DataOutputStream(mDiskEditor.getOutputStream());
+            out.writeUTF(mETag == null ? "" : mETag);
+            out.writeUTF(mLastModified == null ? "" : mLastModified);
+
+            return new FilterInputStream(body) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b != -1) {
+                        out.write(b);
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int count) throws IOException {
+                    int read = super.read(buffer, offset, count);
+                    if (read > 0) {
+                        out.write(buffer, offset, read);
+                    }
+                    return read;
+                }
+
+                @Override
+                public long skip(long count) throws IOException {
+                    // Skipped bytes must still be copied, so read them instead
+                    byte[] buffer = new byte[(int) Math.min(count, 8192)];
+                    int read = read(buffer, 0, buffer.length);
+                    return read < 0 ? 0 : read;
+                }
+            };
+        }
+
+        /**
+         * Store the body that was read through {@link #wrap(InputStream)} together with
+         * the list of {@link News} that was parsed from it. Returns the unmodifiable list
+         * that later "304 Not Modified" answers will reuse.
+         */
+        public List<News> commit(List<News> newsItems) throws IOException {
+
+            mDiskEditor.commit();
+            newsItems = Collections.unmodifiableList(newsItems);
+
+            synchronized (NewsResponseCache.this) {
+                mParsed.put(mUrl, newsItems);
+            }
+
+            return newsItems;
+        }
+
+        /**
+         * Discard the partially written body.
+         */
+        public void abort() {
+            if (mDiskEditor != null) {
+                mDiskEditor.abort();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.android.newsapp;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of threads running the work a request fans out to, such as the feeds of a page
+ * or the attempts of a hedged request.
+ * <p>
+ * A task runs with the thread priority of the thread that submitted it, and queued tasks are
+ * taken highest priority first, then in the order they were submitted. The app runs its loads
+ * with the thread priority of their {@code NewsTaskScheduler} lane, so the lane is passed down
+ * through every pool the load uses, and a page the user waits for never queues behind one
+ * fetched ahead of time.
+ * <p>
+ * The pools only wait on pools further down a request, never on one above, so bounding them
+ * cannot make them wait for each other forever. Idle threads stop after a while.
+ */
+public final class NewsThreadPool extends ThreadPoolExecutor {
+
+    /**
+     * How long an idle thread is kept
+     */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Order in which the tasks were submitted, to run tasks of the same priority first come
+     * first served
+     */
+    private final AtomicLong mSequence = new AtomicLong();
+
+    /**
+     * Constructs a new {@link NewsThreadPool} whose threads are made by
+     * {@link NewsHttpClient#THREAD_FACTORY}, so cancelling a running task closes the connection
+     * of its request.
+     *
+     * @param threadCount is the number of tasks run at the same time
+     */
+    public NewsThreadPool(int threadCount) {
+        this(threadCount, NewsHttpClient.THREAD_FACTORY);
+    }
+
+    /**
+     * Constructs a new {@link NewsThreadPool}.
+     *
+     * @param threadCount   is the number of tasks run at the same time
+     * @param threadFactory makes the threads, which must be daemon threads so an idle pool
+     *                      does not keep a JVM from exiting
+     */
+    public NewsThreadPool(int threadCount, ThreadFactory threadFactory) {
+        super(threadCount, threadCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), threadFactory);
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+        super.execute(new PrioritizedTask(runnable, Thread.currentThread().getPriority(),
+                mSequence.getAndIncrement()));
+    }
+
+    /**
+     * A task with the thread priority it runs with.
+     */
+    private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+
+        private final Runnable mRunnable;
+        private final int mPriority;
+        private final long mSequence;
+
+        PrioritizedTask(Runnable runnable, int priority, long sequence) {
+            mRunnable = runnable;
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        @Override
+        public void run() {
+
+            Thread thread = Thread.currentThread();
+            int threadPriority = thread.getPriority();
+            thread.setPriority(mPriority);
+
+            try {
+                mRunnable.run();
+            } finally {
+                thread.setPriority(threadPriority);
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+
+            if (mPriority != other.mPriority) {
+                return mPriority > other.mPriority ? -1 : 1;
+            }
+
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,786 @@
+package com.example.android.newsapp;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+
+/**
+ * Helper methods related to requesting and receiving news data from The Guardian api.
+ */
+public final class QueryUtils {
+
+    /**
+     * Tag for the log messages
+     */
+    private static final String LOG_TAG = QueryUtils.class.getSimpleName();
+
+    /**
+     * Cache used to make conditional requests, or null to always download the full response
+     */
+    private static volatile NewsResponseCache sResponseCache;
+
+    /**
+     * HTTP client shared by every request, so connections to the Guardian API are reused
+     */
+    private static final NewsHttpClient sHttpClient = new NewsHttpClient(
+            NewsRequestExecutor.DEFAULT_CONNECT_TIMEOUT_MILLIS,
+            NewsRequestExecutor.DEFAULT_READ_TIMEOUT_MILLIS);
+
+    /**
+     * Retries and hedges every request, with timeouts derived from the latencies seen so far.
+     * A request is made at most 3 times, waiting up to 0.5s and then 1s before the retries.
+     */
+    private static final NewsRequestExecutor sRequestExecutor =
+            new NewsRequestExecutor(3, 500 /* milliseconds */, 4000 /* milliseconds */,
+                    true, new Random());
+    /**
+     * Maximum number of news requests downloaded and parsed at the same time, twice the feeds
+     * the app fetches at once
+     */
+    static final int MAX_CONCURRENT_REQUESTS = 8;
+
+    /**
+     * Requests for the same URL that are made at the same time share one download and parse.
+     * Once every caller has given up on a request, it is cancelled and its connection closed.
+     */
+    private static final SingleFlight<List<News>> sInFlightRequests =
+            new SingleFlight<>(new NewsThreadPool(MAX_CONCURRENT_REQUESTS));
+
+    /**
+     * Create a private constructor because no one should ever create a {@link QueryUtils} object.
+     * This class is only meant to hold static variables and methods, which can be accessed
+     * directly from the class name QueryUtils (and an object instance of QueryUtils is not needed).
+     */
+    private QueryUtils() {
+    }
+
+    /**
+     * Set the cache used to revalidate responses with "If-None-Match" and
+     * "If-Modified-Since" requests. Pass null to disable caching.
+     */
+    public static void setResponseCache(NewsResponseCache responseCache) {
+        sResponseCache = responseCache;
+    }
+
+    /**
+     * Returns the cache used to revalidate responses, or null if there is none.
+     */
+    public static NewsResponseCache getResponseCache() {
+        return sResponseCache;
+    }
+
+    /**
+     * Returns the URL that searches one section of the Guardian dataset for the news items
+     * shown by the app, newest first, with {@code pageSize} news items per page.
+     */
+    public static String buildSectionUrl(String section, int pageSize) {
+
+        //The URL to the Guardian API is built by hand, as android.net.Uri is not available
+        //outside of Android, with its parameters encoded the same way
+        //Below is the URL path and parameters:
+        //Parameters:
+        //"section", get the articles of one section (e.g. business or sport)
+        //"order-by", arranges the news items starting from the newest articles
+        //"show-tags", which gets the author(s)/contributor(s)
+        //            of the article
+        //"show-fields", which gets the URL of the thumbnail image of the article
+        //"page-size", the number of articles per page (the loader adds the "page" parameter,
+        //            and "from-date" once it holds news items) and lastly the api-key
+        //            to access the data
+        //Full URL: "https://content.guardianapis.com/search?
+        //           section=business&from-date=2018&order-by=newest&show-tags=contributor&
+        //           show-fields=thumbnail&page-size=20&api-key=8444fda7-1779-4b41-8b4d-29fa2a30f115"
+        return "https://content.guardianapis.com/search"
+                + "?section=" + encodeQueryParameter(section)
+                + "&order-by=newest"
+                + "&show-tags=contributor"
+                + "&show-fields=thumbnail"
+                + "&page-size=" + pageSize
+                + "&api-key=8444fda7-1779-4b41-8b4d-29fa2a30f115";
+    }
+
+    /**
+     * Returns the value encoded for a query parameter, the way android.net.Uri encodes it:
+     * UTF-8, with only letters, digits and "_-!.~'()*" left as they are.
+     */
+    static String encodeQueryParameter(String value) {
+
+        String encoded;
+
+        try {
+            encoded = URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+
+        // URLEncoder encodes form data, which differs in a few characters
+        return encoded.replace("+", "%20")
+                .replace("%21", "!")
+                .replace("%27", "'")
+                .replace("%28", "(")
+                .replace("%29", ")")
+                .replace("%7E", "~");
+    }
+
+    /**
+     * Returns one feed URL per section, as built by {@link #buildSectionUrl(String, int)}.
+     */
+    public static List<String> buildFeedUrls(String[] sections, int pageSize) {
+
+        List<String> feedUrls = new ArrayList<>(sections.length);
+
+        for (String section : sections) {
+            feedUrls.add(buildSectionUrl(section, pageSize));
+        }
+
+        return feedUrls;
+    }
+
+    /**
+     * Returns the URL of the Guardian API item that holds the text of the article published
+     * at {@code webUrl}, or null if {@code webUrl} is not a valid URL.
+     */
+    public static String buildArticleUrl(String webUrl) {
+
+        //The item has the same path as the article on the Guardian website:
+        //"https://www.theguardian.com/business/2018/sep/25/some-article" becomes
+        //"https://content.guardianapis.com/business/2018/sep/25/some-article?
+        // show-fields=bodyText&api-key=8444fda7-1779-4b41-8b4d-29fa2a30f115"
+        //The URL is built by hand, as android.net.Uri is not available outside of Android
+        String path;
+
+        try {
+            path = new URL(webUrl).getPath();
+
+        } catch (MalformedURLException e) {
+
+            NewsLog.e(LOG_TAG, "Problem building the article URL ", e);
+            return null;
+        }
+
+        if (path.isEmpty() || path.equals("/")) {
+            return null;
+        }
+
+        return "https://content.guardianapis.com" + path
+                + "?show-fields=bodyText&api-key=8444fda7-1779-4b41-8b4d-29fa2a30f115";
+    }
+
+    /**
+     * Download the text of the article published at {@code webUrl}, or return null if that
+     * failed. Network errors and server errors are retried by the {@link NewsRequestExecutor}.
+     * Responses are not stored in the response cache, the ArticleBodyCache of the app keeps the
+     * text itself.
+     */
+    public static String fetchArticleBody(String webUrl) {
+
+        String articleUrl = buildArticleUrl(webUrl);
+        final URL url = articleUrl == null ? null : createUrl(articleUrl);
+
+        // If the URL is null, then return early.
+        if (url == null) {
+            return null;
+        }
+
+        return sRequestExecutor.execute(new NewsRequestExecutor.Attempt<String>() {
+            @Override
+            public String run(int connectTimeoutMillis, int readTimeoutMillis)
+                    throws IOException {
+
+                NewsHttpClient.Response response = sHttpClient.get(url,
+                        new LinkedHashMap<String, String>(), connectTimeoutMillis,
+                        readTimeoutMillis);
+
+                try {
+                    int responseCode = response.getCode();
+
+                    if (responseCode == HttpURLConnection.HTTP_OK) {
+                        return extractBodyText(response.getBody());
+                    }
+                    if (responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR
+                            || responseCode == HttpURLConnection.HTTP_CLIENT_TIMEOUT
+                            || responseCode == 429) {
+                        throw new IOException("Error response code: " + responseCode);
+                    }
+
+                    NewsLog.e(LOG_TAG, "Error response code: " + responseCode);
+                    return null;
+
+                } finally {
+                    response.close();
+                    NewsMetrics.getInstance().recordRequest(response.getTimings());
+                    NewsLog.d(LOG_TAG, "GET " + url + " " + response.getTimings());
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the "response.content.fields.bodyText" of a Guardian item response, or null if
+     * the response has none.
+     */
+    static String extractBodyText(InputStream inputStream) {
+
+        JsonReader reader = new JsonReader(
+                new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        String bodyText = null;
+
+        try {
+            // Walk down "response", "content" and "fields", skipping everything else
+            String[] path = {"response", "content", "fields", "bodyText"};
+            int depth = 0;
+
+            reader.beginObject();
+
+            while (depth < path.length && reader.hasNext()) {
+
+                if (!reader.nextName().equals(path[depth])) {
+                    reader.skipValue();
+                } else if (depth == path.length - 1) {
+                    bodyText = reader.nextString();
+                    depth++;
+                } else {
+                    reader.beginObject();
+                    depth++;
+                }
+            }
+
+        } catch (IOException | IllegalStateException e) {
+
+            NewsLog.e(LOG_TAG, "Problem parsing the article JSON", e);
+        } finally {
+            closeQuietly(reader);
+        }
+
+        return bodyText == null || bodyText.isEmpty() ? null : bodyText;
+    }
+
+    /**
+     * Query the Guardian dataset and return a list of {@link News} objects.
+     * If the same URL is already being requested, its result is shared instead of
+     * downloading it again, so the list returned must not be modified.
+     */
+    public static List<News> fetchNewsData(final String requestUrl) {
+
+        try {
+            return sInFlightRequests.execute(normalizeUrl(requestUrl),
+                    new Callable<List<News>>() {
+                        @Override
+                        public List<News> call() {
+
+                            // Create URL object
+                            URL url = createUrl(requestUrl);
+
+                            // Perform HTTP request to the URL and parse the JSON response
+                            // as it arrives
+                            List<News> newsList = makeHttpRequest(url);
+
+                            // Return the list of {@link News}
+                            return newsList;
+                        }
+                    });
+
+        } catch (InterruptedException e) {
+
+            // The caller gave up, the request is cancelled once nobody else waits for it
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+
+            NewsLog.e(LOG_TAG, "Problem fetching " + requestUrl, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the URL with a lower case scheme and host, its query parameters sorted and
+     * without a fragment, so URLs asking for the same thing are equal.
+     */
+    static String normalizeUrl(String url) {
+
+        if (url == null) {
+            return "";
+        }
+
+        int fragmentStart = url.indexOf('#');
+        if (fragmentStart >= 0) {
+            url = url.substring(0, fragmentStart);
+        }
+
+        int queryStart = url.indexOf('?');
+        String base = queryStart >= 0 ? url.substring(0, queryStart) : url;
+
+        // Scheme and host are case insensitive, the path is not
+        int authorityStart = base.indexOf("://");
+        if (authorityStart >= 0) {
+            int pathStart = base.indexOf('/', authorityStart + 3);
+            int authorityEnd = pathStart >= 0 ? pathStart : base.length();
+            base = base.substring(0, authorityEnd).toLowerCase(Locale.US)
+                    + base.substring(authorityEnd);
+        }
+
+        if (queryStart < 0 || queryStart == url.length() - 1) {
+            return base;
+        }
+
+        String[] parameters = url.substring(queryStart + 1).split("&");
+        Arrays.sort(parameters);
+
+        StringBuilder normalized = new StringBuilder(url.length()).append(base);
+        char separator = '?';
+
+        for (String parameter : parameters) {
+            if (!parameter.isEmpty()) {
+                normalized.append(separator).append(parameter);
+                separator = '&';
+            }
+        }
+
+        return normalized.toString();
+    }
+
+    /**
+     * Returns new URL object from the given string URL.
+     */
+    private static URL createUrl(String stringUrl) {
+        URL url = null;
+
+        try {
+            url = new URL(stringUrl);
+
+        } catch (MalformedURLException e) {
+
+            NewsLog.e(LOG_TAG, "Problem building the URL ", e);
+        }
+
+        return url;
+    }
+
+    /**
+     * Make an HTTP request to the given URL and return the list of {@link News} parsed
+     * straight from the response body, or null if the request failed. Network errors and
+     * server errors are retried by the {@link NewsRequestExecutor}.
+     */
+    private static List<News> makeHttpRequest(final URL url) {
+
+        // If the URL is null, then return early.
+        if (url == null) {
+
+            return null;
+        }
+
+        List<News> newsItems = sRequestExecutor.execute(
+                new NewsRequestExecutor.Attempt<List<News>>() {
+                    @Override
+                    public List<News> run(int connectTimeoutMillis, int readTimeoutMillis)
+                            throws IOException {
+                        return makeHttpAttempt(url, connectTimeoutMillis, readTimeoutMillis);
+                    }
+                });
+
+        if (newsItems == null && Thread.currentThread().isInterrupted()) {
+            NewsMetrics.getInstance().recordCancelledRequest();
+        } else if (newsItems == null) {
+            NewsMetrics.getInstance().recordFailedRequest();
+        }
+
+        return newsItems;
+    }
+
+    /**
+     * Make one attempt at the HTTP request to the given URL. Throws an {@link IOException} if
+     * the attempt failed in a way that may not happen again, such as a network error, a timeout
+     * or a server error, and returns null if it failed for good.
+     */
+    private static List<News> makeHttpAttempt(URL url, int connectTimeoutMillis,
+                                              int readTimeoutMillis) throws IOException {
+
+        List<News> newsItems = null;
+        String requestUrl = url.toString();
+        NewsResponseCache responseCache = sResponseCache;
+        NewsResponseCache.Validators validators = null;
+        NewsResponseCache.Editor cacheEditor = null;
+        NewsHttpClient.Response response = null;
+
+        // Only the latencies of the responses that were handled set the timeouts, an error
+        // response may come back faster or slower than a normal one
+        boolean handled = false;
+
+        // If there is a cached response, ask the server to only send it again if it changed
+        Map<String, String> requestHeaders = new LinkedHashMap<>();
+        if (responseCache != null) {
+            validators = responseCache.getValidators(requestUrl);
+        }
+        if (validators != null && validators.getETag() != null) {
+            requestHeaders.put("If-None-Match", validators.getETag());
+        }
+        if (validators != null && validators.getLastModified() != null) {
+            requestHeaders.put("If-Modified-Since", validators.getLastModified());
+        }
+
+        try {
+            response = sHttpClient.get(url, requestHeaders, connectTimeoutMillis, readTimeoutMillis);
+
+            int responseCode = response.getCode();
+
+            // If the response has not been modified (response code 304),
+            // then reuse the news items parsed from the cached response.
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && validators != null) {
+                newsItems = responseCache.getNotModified(requestUrl);
+
+                if (newsItems == null) {
+                    NewsLog.e(LOG_TAG, "Cached response missing for " + requestUrl);
+                } else {
+                    NewsMetrics.getInstance().recordNotModified();
+                }
+                handled = true;
+
+            // If the request was successful (response code 200),
+            // then parse the input stream while it is being read.
+            } else if (responseCode == HttpURLConnection.HTTP_OK) {
+                InputStream inputStream = response.getBody();
+
+                // Copy the body into the cache while it is parsed
+                if (responseCache != null) {
+                    cacheEditor = responseCache.edit(requestUrl,
+                            response.getHeader("ETag"), response.getHeader("Last-Modified"));
+                }
+
+                // The parse shares its thread with the network reads, so its CPU time is recorded
+                long parseStartCpuNanos = NewsMetrics.threadCpuTimeNanos();
+
+                try {
+                    if (cacheEditor != null) {
+                        newsItems = extractFeatureFromStream(cacheEditor.wrap(inputStream));
+
+                        // Only a body parsed to its end is complete enough to be cached
+                        newsItems = cacheEditor.commit(newsItems);
+                        cacheEditor = null;
+                    } else {
+                        newsItems = extractFeatureFromStream(inputStream);
+                    }
+                } catch (MalformedJsonException e) {
+
+                    // The server sent a body that is not a search response, which another
+                    // attempt would get again. A connection dropped in the middle of the body
+                    // is another IOException, and is retried.
+                    NewsLog.e(LOG_TAG, "Problem parsing the news JSON results", e);
+                    return null;
+                }
+
+                NewsMetrics.getInstance().recordParse(parseStartCpuNanos, newsItems.size());
+                handled = true;
+
+            // The server is failing or overloaded (5xx, 408 or 429), so the request can be retried
+            } else if (responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR
+                    || responseCode == HttpURLConnection.HTTP_CLIENT_TIMEOUT
+                    || responseCode == 429) {
+
+                throw new IOException("Error response code: " + responseCode);
+            } else {
+
+                NewsLog.e(LOG_TAG, "Error response code: " + responseCode);
+            }
+        } finally {
+            if (cacheEditor != null) {
+
+                // The body was not stored completely, so it must not be cached
+                cacheEditor.abort();
+            }
+            if (response != null) {
+
+                // Closing the response hands the connection back to the pool to be reused
+                response.close();
+                NewsHttpClient.Timings timings = response.getTimings();
+                NewsMetrics.getInstance().recordRequest(timings);
+                if (handled) {
+                    sRequestExecutor.recordLatency(timings.getConnectMillis(),
+                            timings.getFirstByteMillis());
+                }
+                NewsLog.d(LOG_TAG, "GET " + requestUrl + " " + timings);
+            }
+        }
+
+        return newsItems;
+    }
+
+    /**
+     * Return a list of {@link News} objects that has been built up from
+     * parsing the given JSON response, or null if it is not a valid search response.
+     */
+    static List<News> extractFeatureFromJson(String newsJSON) {
+
+        // If the JSON string is empty or null, then return early.
+        if (newsJSON == null || newsJSON.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return extractFeatureFromReader(new JsonReader(new StringReader(newsJSON)));
+
+        } catch (InterruptedIOException e) {
+
+            // The thread was interrupted, and is left interrupted for its caller to see
+            return null;
+        } catch (IOException e) {
+
+            // If there's a problem with the way the JSON is formatted, print the error message
+            // to the logs, so the app doesn't crash.
+            NewsLog.e(LOG_TAG, "Problem parsing the news JSON results", e);
+            return null;
+        }
+    }
+
+    /**
+     * Return a list of {@link News} objects parsed token by token from the given
+     * {@link InputStream}. The whole response is never held in memory at once.
+     * The list is only returned once the whole response has been read, so a response cut
+     * short never passes for a complete one.
+     *
+     * @throws MalformedJsonException if the response is not a valid search response
+     * @throws InterruptedIOException if the thread was interrupted, the parse then stops
+     *                                before the next news item
+     * @throws IOException            if the response could not be read to its end
+     */
+    static List<News> extractFeatureFromStream(InputStream inputStream) throws IOException {
+
+        InputStreamReader inputStreamReader = new InputStreamReader(inputStream, Charset.forName("UTF-8"));
+        return extractFeatureFromReader(new JsonReader(inputStreamReader));
+    }
+
+    /**
+     * Walk the Guardian search response and create a {@link News} object for every item
+     * in "response.results". Fields the app does not use are skipped without being built.
+     * Nothing is returned unless the response was read up to its closing brace.
+     *
+     * @throws MalformedJsonException if the response is not a valid search response
+     */
+    private static List<News> extractFeatureFromReader(JsonReader reader) throws IOException {
+
+        // Create an empty ArrayList that we can start adding news items to.
+        List<News> newsItems = new ArrayList<>();
+
+        // Scratch buffer used to join the authors/contributors of each news item.
+        // It belongs to this call only, so several responses can be parsed at the same time.
+        StringBuilder builder = new StringBuilder();
+
+        try {
+            reader.beginObject();
+
+            while (reader.hasNext()) {
+
+                // The key called "response" holds the list of results,
+                // everything else in the top level object is skipped.
+                if (reader.nextName().equals("response")) {
+                    readResponse(reader, newsItems, builder);
+                } else {
+                    reader.skipValue();
+                }
+            }
+
+            reader.endObject();
+
+        } catch (IllegalStateException e) {
+
+            // A value of another type than expected, such as an array instead of an object
+            MalformedJsonException malformed = new MalformedJsonException(e.getMessage());
+            malformed.initCause(e);
+            throw malformed;
+        } finally {
+            closeQuietly(reader);
+        }
+
+        // Return the list of news items
+        return newsItems;
+    }
+
+    /**
+     * Read the "response" object and add a {@link News} for every entry of its "results" array.
+     */
+    private static void readResponse(JsonReader reader, List<News> newsItems, StringBuilder builder)
+            throws IOException {
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+
+            // Extract the JSONArray associated with the key called "results",
+            // which represents a list of results (or news items) such as: "id",
+            // "type", sectionId" etc.
+            if (reader.nextName().equals("results")) {
+
+                reader.beginArray();
+
+                while (reader.hasNext()) {
+
+                    // Stop between two news items once the parse is no longer wanted
+                    NewsHttpClient.throwIfInterrupted();
+                    newsItems.add(readNews(reader, builder));
+                }
+
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+
+        reader.endObject();
+    }
+
+    /**
+     * Read a single news item from the "results" array.
+     */
+    private static News readNews(JsonReader reader, StringBuilder builder) throws IOException {
+
+        String sectionName = "";
+        String webTitle = "";
+        long webPublicationTime = NewsDates.NO_PUBLICATION_TIME;
+        String url = "";
+        String thumbnailUrl = "";
+
+        //authorWebTitle ="", if the article has no "tags"
+        String authorWebTitle = "";
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+
+            switch (reader.nextName()) {
+                case "sectionName":
+                    sectionName = reader.nextString();
+                    break;
+                case "webTitle":
+                    webTitle = reader.nextString();
+                    break;
+                case "webPublicationDate":
+                    //Parse the date and time of day without splitting the string:
+                    //For example: "2018-09-25T15:45:34Z" from JSON Primitive: "webPublicationDate"
+                    //becomes the milliseconds since the epoch, stored in long webPublicationTime
+                    webPublicationTime = NewsDates.parse(reader.nextString());
+                    break;
+                case "webUrl":
+                    url = reader.nextString();
+                    break;
+                case "tags":
+                    // "tags" holds the author(s)/contributor(s) of the article
+                    authorWebTitle = readAuthors(reader, builder);
+                    break;
+                case "fields":
+                    // "fields" holds the URL of the thumbnail image, when the article has one
+                    thumbnailUrl = readThumbnailUrl(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+
+        reader.endObject();
+
+        // Create a new {@link News} object with the sectionName,webTitle,
+        // authorWebTitle,webPublicationTime,url,thumbnailUrl from the JSON response.
+        return new News(sectionName, webTitle, authorWebTitle, webPublicationTime, url,
+                thumbnailUrl);
+    }
+
+    /**
+     * Read the "fields" object and return its "thumbnail", or "" if there is none.
+     */
+    private static String readThumbnailUrl(JsonReader reader) throws IOException {
+
+        String thumbnailUrl = "";
+
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("thumbnail")) {
+                thumbnailUrl = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+
+        reader.endObject();
+
+        return thumbnailUrl;
+    }
+
+    /**
+     * Read the "tags" array and join the "webTitle" of every author/contributor.
+     * If there is more than one author, each name is followed by a new line.
+     */
+    private static String readAuthors(JsonReader reader, StringBuilder builder) throws IOException {
+
+        //Remove current authors/contributors' data before new data is appended
+        builder.setLength(0);
+
+        int authorCount = 0;
+
+        reader.beginArray();
+
+        while (reader.hasNext()) {
+
+            reader.beginObject();
+
+            while (reader.hasNext()) {
+
+                // "webTitle" contains the author/contributor's name for the news article
+                if (reader.nextName().equals("webTitle")) {
+
+                    if (authorCount > 0) {
+                        builder.append("\n");
+                    }
+                    builder.append(reader.nextString());
+                    authorCount++;
+                } else {
+                    reader.skipValue();
+                }
+            }
+
+            reader.endObject();
+        }
+
+        reader.endArray();
+
+        //If there is more than one author/contributor, the last one is also followed by a new line
+        if (authorCount > 1) {
+            builder.append("\n");
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Close the given {@link JsonReader}, logging instead of throwing if that fails.
+     */
+    private static void closeQuietly(JsonReader reader) {
+        try {
+            reader.close();
+
+        } catch (IOException e) {
+
+            NewsLog.e(LOG_TAG, "Problem closing the JSON reader", e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.android.newsapp;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Makes concurrent calls with the same key share one execution and its result, so the same
+ * Guardian URL requested by a loader and by a background refresh at the same time is only
+ * downloaded and parsed once.
+ * <p>
+ * The call runs on the given executor, not on the thread of any caller, so a caller that is
+ * interrupted stops waiting without affecting the others. Once every caller has stopped
+ * waiting, the call is cancelled. A key can be called again as soon as its call is done.
+ */
+public final class SingleFlight<T> {
+
+    private final Executor mExecutor;
+
+    /**
+     * Calls that are running, by key
+     */
+    private final Map<String, Flight> mFlights = new HashMap<>();
+
+    private final AtomicLong mCoalescedCount = new AtomicLong();
+
+    /**
+     * Constructs a new {@link SingleFlight}.
+     *
+     * @param executor runs the calls
+     */
+    public SingleFlight(Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Run the call, or wait for the one already running with the same key, and return its
+     * result.
+     *
+     * @throws InterruptedException if the calling thread was interrupted while waiting
+     * @throws ExecutionException   if the call threw an exception
+     */
+    public T execute(String key, Callable<T> call) throws InterruptedException,
+            ExecutionException {
+
+        Flight flight;
+        boolean first = false;
+
+        synchronized (mFlights) {
+            flight = mFlights.get(key);
+
+            // A finished call may not have removed itself yet, its result is not shared
+            if (flight == null || flight.isDone()) {
+                flight = new Flight(key, call);
+                mFlights.put(key, flight);
+                first = true;
+            } else {
+                mCoalescedCount.incrementAndGet();
+                NewsMetrics.getInstance().recordCoalescedRequest();
+            }
+
+            flight.mWaiters++;
+        }
+
+        if (first) {
+            mExecutor.execute(flight);
+        }
+
+        try {
+            return flight.get();
+
+        } catch (InterruptedException e) {
+
+            leave(flight);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of calls that shared the execution of an earlier call.
+     */
+    public long getCoalescedCount() {
+        return mCoalescedCount.get();
+    }
+
+    /**
+     * Returns the number of calls running.
+     */
+    public int getInFlightCount() {
+        synchronized (mFlights) {
+            int count = 0;
+            for (Flight flight : mFlights.values()) {
+                if (!flight.isDone()) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Stop waiting for the call, cancelling it if nobody else is waiting.
+     */
+    private void leave(Flight flight) {
+        synchronized (mFlights) {
+            flight.mWaiters--;
+
+            if (flight.mWaiters == 0 && !flight.isDone()) {
+                flight.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * A running call and the number of callers waiting for it.
+     */
+    private final class Flight extends FutureTask<T> {
+
+        private final String mKey;
+
+        /**
+         * Guarded by {@link #mFlights}
+         */
+        int mWaiters;
+
+        Flight(String key, Callable<T> call) {
+            super(call);
+            mKey = key;
+        }
+
+        @Override
+        protected void done() {
+
+            // Later calls with the same key start over
+            synchronized (mFlights) {
+                if (mFlights.get(mKey) == this) {
+                    mFlights.remove(mKey);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.android.newsapp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Gives every distinct string a small int code, so objects that hold one of a few repeated
+ * values, such as the section of a news item, can keep the code instead of their own copy.
+ * <p>
+ * Codes are never reused. Encoding takes a lock, decoding does not.
+ */
+final class StringDictionary {
+
+    private final Map<String, Integer> mCodes = new HashMap<>();
+
+    /**
+     * Strings by code. The array is only replaced by a larger copy, and every entry is written
+     * before {@link #mSize} is increased, so reading the size first makes the entry visible.
+     */
+    private volatile String[] mValues = new String[16];
+
+    private volatile int mSize;
+
+    /**
+     * Returns the code of the given string, giving it the next code if it has none yet.
+     */
+    synchronized int encode(String value) {
+
+        Integer code = mCodes.get(value);
+
+        if (code != null) {
+            return code;
+        }
+
+        int size = mSize;
+        String[] values = mValues;
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            mValues = values;
+        }
+
+        values[size] = value;
+        mCodes.put(value, size);
+        mSize = size + 1;
+
+        return size;
+    }
+
+    /**
+     * Returns the string with the given code.
+     */
+    String decode(int code) {
+
+        if (code < 0 || code >= mSize) {
+            throw new IllegalArgumentException("Unknown code " + code);
+        }
+
+        return mValues[code];
+    }
+
+    /**
+     * Returns the number of distinct strings encoded so far.
+     */
+    int size() {
+        return mSize;
+    }
+}
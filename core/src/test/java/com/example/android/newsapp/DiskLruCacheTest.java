@@ -0,0 +1,149 @@
+package com.example.android.newsapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the storage, eviction and unfinished writes of {@link DiskLruCache}, which the
+ * response, article and thumbnail caches are built on.
+ */
+public class DiskLruCacheTest {
+
+    private static final String URL_A = "https://media.guim.co.uk/a/500.jpg";
+    private static final String URL_B = "https://media.guim.co.uk/b/500.jpg";
+    private static final String URL_C = "https://media.guim.co.uk/c/500.jpg";
+
+    private static final int VALUE_BYTES = 20 * 1024;
+
+    private File mDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        mDirectory = Files.createTempDirectory("disk_lru_cache").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDirectory.delete();
+    }
+
+    @Test
+    public void put_thenGet_returnsValue() {
+        DiskLruCache cache = new DiskLruCache(mDirectory, 1024 * 1024);
+        byte[] value = randomValue(1);
+
+        assertFalse(cache.contains(URL_A));
+        assertNull(cache.get(URL_A));
+
+        cache.put(URL_A, value);
+
+        assertTrue(cache.contains(URL_A));
+        assertTrue(Arrays.equals(value, cache.get(URL_A)));
+        assertNull(cache.get(URL_B));
+    }
+
+    @Test
+    public void newInstance_readsStoredValues() {
+        byte[] value = randomValue(1);
+        new DiskLruCache(mDirectory, 1024 * 1024).put(URL_A, value);
+
+        DiskLruCache cache = new DiskLruCache(mDirectory, 1024 * 1024);
+
+        assertTrue(cache.contains(URL_A));
+        assertTrue(Arrays.equals(value, cache.get(URL_A)));
+    }
+
+    @Test
+    public void put_overMaxSize_evictsLeastRecentlyRead() {
+        DiskLruCache cache = new DiskLruCache(mDirectory, VALUE_BYTES * 5 / 2);
+
+        cache.put(URL_A, randomValue(1));
+        cache.put(URL_B, randomValue(2));
+
+        // Reading A makes B the least recently used
+        assertNotNull(cache.get(URL_A));
+        cache.put(URL_C, randomValue(3));
+
+        assertTrue(cache.contains(URL_A));
+        assertFalse(cache.contains(URL_B));
+        assertTrue(cache.contains(URL_C));
+        assertTrue(cache.size() <= VALUE_BYTES * 5 / 2);
+        assertEquals(2, mDirectory.listFiles().length);
+    }
+
+    @Test
+    public void edit_streamsValueAndOpenReadsIt() throws IOException {
+        DiskLruCache cache = new DiskLruCache(mDirectory, 1024 * 1024);
+        byte[] value = randomValue(1);
+
+        DiskLruCache.Editor editor = cache.edit(URL_A);
+        editor.getOutputStream().write(value, 0, 100);
+        editor.getOutputStream().write(value, 100, value.length - 100);
+        editor.commit();
+        editor.abort();
+
+        InputStream in = cache.open(URL_A);
+        byte[] read = new byte[value.length];
+        int count = 0;
+        while (count < read.length) {
+            count += in.read(read, count, read.length - count);
+        }
+
+        assertEquals(-1, in.read());
+        in.close();
+        assertTrue(Arrays.equals(value, read));
+    }
+
+    @Test
+    public void edit_aborted_keepsStoredValueAndLeavesNoFile() throws IOException {
+        DiskLruCache cache = new DiskLruCache(mDirectory, 1024 * 1024);
+        byte[] value = randomValue(1);
+        cache.put(URL_A, value);
+
+        DiskLruCache.Editor editor = cache.edit(URL_A);
+        editor.getOutputStream().write(randomValue(2), 0, 1000);
+        editor.abort();
+
+        assertTrue(Arrays.equals(value, cache.get(URL_A)));
+        assertEquals(1, mDirectory.listFiles().length);
+    }
+
+    @Test
+    public void newInstance_deletesUnfinishedWrites() throws IOException {
+        DiskLruCache.Editor editor = new DiskLruCache(mDirectory, 1024 * 1024).edit(URL_A);
+        editor.getOutputStream().write(randomValue(1));
+
+        // The app stopped before committing
+        DiskLruCache cache = new DiskLruCache(mDirectory, 1024 * 1024);
+
+        assertFalse(cache.contains(URL_A));
+        assertEquals(0, cache.size());
+        assertEquals(0, mDirectory.listFiles().length);
+        editor.abort();
+    }
+
+    /**
+     * Returns bytes that do not compress, standing in for a downloaded image.
+     */
+    private static byte[] randomValue(long seed) {
+        byte[] value = new byte[VALUE_BYTES];
+        new Random(seed).nextBytes(value);
+        return value;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the buckets and percentiles of {@link MetricsHistogram}.
+ */
+public class MetricsHistogramTest {
+
+    @Test
+    public void buckets_coverEveryValueWithinAnEighth() {
+        long previousUpperBound = -1;
+
+        for (int index = 0; index <= MetricsHistogram.bucketIndex(Long.MAX_VALUE); index++) {
+            long upperBound = MetricsHistogram.bucketUpperBound(index);
+            long lowerBound = previousUpperBound + 1;
+
+            assertEquals(index, MetricsHistogram.bucketIndex(lowerBound));
+            assertEquals(index, MetricsHistogram.bucketIndex(upperBound));
+            assertTrue(upperBound - lowerBound <= lowerBound / 8);
+            previousUpperBound = upperBound;
+        }
+
+        assertEquals(Long.MAX_VALUE, previousUpperBound);
+    }
+
+    @Test
+    public void percentiles_areWithinAnEighthOfTheValue() {
+        MetricsHistogram histogram = new MetricsHistogram();
+
+        for (int value = 1; value <= 10000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(5000, histogram.getMean());
+        assertEquals(10000, histogram.getMax());
+        assertEquals(5000, histogram.getValueAtPercentile(50), 5000 / 8);
+        assertEquals(9900, histogram.getValueAtPercentile(99), 9900 / 8);
+        assertEquals(10000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void reset_forgetsEveryValue() {
+        MetricsHistogram histogram = new MetricsHistogram();
+        histogram.record(42);
+        histogram.record(-1);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
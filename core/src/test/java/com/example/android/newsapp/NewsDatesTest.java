@@ -0,0 +1,46 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link NewsDates} reads and writes the Guardian API's dates the same way
+ * {@link SimpleDateFormat} does.
+ */
+public class NewsDatesTest {
+
+    @Test
+    public void parse_dateAndTime_matchesSimpleDateFormat() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        String[] dates = {"2018-09-25T15:45:34Z", "2000-02-29T00:00:00Z", "1999-12-31T23:59:59Z",
+                "2024-03-01T12:30:00Z", "1970-01-01T00:00:00Z"};
+
+        for (String date : dates) {
+            long time = NewsDates.parse(date);
+            assertEquals(date, format.parse(date).getTime(), time);
+            assertEquals(date, NewsDates.formatInstant(time));
+            assertEquals(date.substring(0, 10), NewsDates.formatDay(time));
+        }
+    }
+
+    @Test
+    public void parse_dateOnly_isStartOfDay() {
+        assertEquals(NewsDates.parse("2018-09-25T00:00:00Z"), NewsDates.parse("2018-09-25"));
+    }
+
+    @Test
+    public void parse_missingOrMalformed_hasNoPublicationTime() {
+        assertEquals(NewsDates.NO_PUBLICATION_TIME, NewsDates.parse(null));
+        assertEquals(NewsDates.NO_PUBLICATION_TIME, NewsDates.parse(""));
+        assertEquals(NewsDates.NO_PUBLICATION_TIME, NewsDates.parse("25/09/2018"));
+        assertEquals(NewsDates.NO_PUBLICATION_TIME, NewsDates.parse("2018-13-25T15:45:34Z"));
+        assertEquals(NewsDates.NO_PUBLICATION_TIME, NewsDates.parse("2018-09-25T15:4x:34Z"));
+    }
+}
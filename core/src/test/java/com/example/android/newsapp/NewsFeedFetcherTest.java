@@ -0,0 +1,238 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how {@link NewsFeedFetcher} merges several feeds and copes with feeds that fail
+ * or are too slow.
+ */
+public class NewsFeedFetcherTest {
+
+    @Test
+    public void merge_ordersNewestFirstAcrossFeeds() {
+        List<News> business = Arrays.asList(news("b1", "2018-09-25"), news("b2", "2018-09-22"));
+        List<News> sport = Arrays.asList(news("s1", "2018-09-24"), news("s2", "2018-09-23"));
+
+        List<News> newsItems = NewsFeedFetcher.merge(Arrays.asList(business, sport));
+
+        assertEquals(Arrays.asList("b1", "s1", "s2", "b2"), urls(newsItems));
+    }
+
+    @Test
+    public void merge_keepsNewsItemInSeveralFeedsOnce() {
+        List<News> business = Arrays.asList(news("a", "2018-09-25"), news("b", "2018-09-23"));
+        List<News> world = Arrays.asList(news("a", "2018-09-25"), news("c", "2018-09-24"));
+
+        List<News> newsItems = NewsFeedFetcher.merge(Arrays.asList(business, world));
+
+        assertEquals(Arrays.asList("a", "c", "b"), urls(newsItems));
+    }
+
+    @Test
+    public void merge_skipsEmptyFeeds() {
+        List<News> business = Arrays.asList(news("a", "2018-09-25"), news("a", "2018-09-25"));
+
+        assertEquals(Collections.singletonList("a"), urls(NewsFeedFetcher.merge(
+                Arrays.asList(Collections.<News>emptyList(), business))));
+        assertEquals(Collections.singletonList("a"), urls(NewsFeedFetcher.merge(
+                Collections.singletonList(business))));
+    }
+
+    @Test
+    public void fetch_leavesOutSlowFeed() {
+        final CountDownLatch release = new CountDownLatch(1);
+        final Map<String, List<News>> feeds = new HashMap<>();
+        feeds.put("business", Collections.singletonList(news("b", "2018-09-25")));
+        feeds.put("sport", Collections.singletonList(news("s", "2018-09-24")));
+
+        NewsFeedFetcher fetcher = new NewsFeedFetcher(new NewsFeedFetcher.Source() {
+            @Override
+            public List<News> fetch(String url) {
+                if (url.equals("slow")) {
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        return null;
+                    }
+                }
+                return feeds.get(url);
+            }
+        }, 200);
+
+        long start = System.nanoTime();
+        NewsFeedFetcher.Result result = fetcher.fetch(Arrays.asList("business", "slow", "sport"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        assertFalse(result.isComplete());
+        assertEquals(Arrays.asList("b", "s"), urls(result.getNewsItems()));
+        assertTrue("Waited " + elapsedMillis + " ms", elapsedMillis < 5000);
+    }
+
+    @Test
+    public void fetch_moreFeedsThanThreads_countsTimeoutFromFeedStart() {
+        List<String> feedUrls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            feedUrls.add("feed" + i);
+        }
+
+        // Only 4 feeds run at once, so the last 2 start after 400 ms and end after 800 ms,
+        // later than the timeout counted from when they were queued
+        NewsFeedFetcher fetcher = new NewsFeedFetcher(new NewsFeedFetcher.Source() {
+            @Override
+            public List<News> fetch(String url) {
+                try {
+                    Thread.sleep(400);
+                } catch (InterruptedException e) {
+                    return null;
+                }
+                return Collections.singletonList(news(url, "2018-09-25"));
+            }
+        }, 600);
+
+        NewsFeedFetcher.Result result = fetcher.fetch(feedUrls);
+
+        assertTrue(result.isComplete());
+        assertEquals(6, result.getNewsItems().size());
+    }
+
+    @Test(timeout = 10000)
+    public void fetch_threadsBusy_givesUpOnQueuedFeed() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch busy = new CountDownLatch(4);
+
+        // Feeds that ignore being cancelled keep every thread busy until released
+        final NewsFeedFetcher slowFetcher = new NewsFeedFetcher(new NewsFeedFetcher.Source() {
+            @Override
+            public List<News> fetch(String url) {
+                busy.countDown();
+                while (true) {
+                    try {
+                        release.await();
+                        return null;
+                    } catch (InterruptedException e) {
+                        // Keep the thread
+                    }
+                }
+            }
+        }, 10000);
+        Thread slowFetch = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                slowFetcher.fetch(Arrays.asList("slow0", "slow1", "slow2", "slow3"));
+            }
+        });
+        slowFetch.start();
+
+        try {
+            assertTrue(busy.await(5, TimeUnit.SECONDS));
+
+            NewsFeedFetcher fetcher = new NewsFeedFetcher(new NewsFeedFetcher.Source() {
+                @Override
+                public List<News> fetch(String url) {
+                    return Collections.singletonList(news(url, "2018-09-25"));
+                }
+            }, 200);
+
+            long start = System.nanoTime();
+            NewsFeedFetcher.Result result = fetcher.fetch(Collections.singletonList("queued"));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertNull(result.getNewsItems());
+            assertFalse(result.isComplete());
+            assertTrue("Waited " + elapsedMillis + " ms", elapsedMillis < 2000);
+        } finally {
+            release.countDown();
+            slowFetch.join();
+        }
+    }
+
+    @Test
+    public void fetch_ordersNewestFirstWithinEachPageOnly() {
+        final Map<String, List<News>> feeds = new HashMap<>();
+        feeds.put("business&page=1", Arrays.asList(
+                news("b1", "2018-09-25"), news("b2", "2018-09-24")));
+        feeds.put("business&page=2", Arrays.asList(
+                news("b3", "2018-09-23"), news("b4", "2018-09-22")));
+        feeds.put("books&page=1", Arrays.asList(
+                news("k1", "2018-09-20"), news("k2", "2018-09-10")));
+        feeds.put("books&page=2", Arrays.asList(
+                news("k3", "2018-09-05"), news("k4", "2018-09-01")));
+
+        NewsFeedFetcher fetcher = new NewsFeedFetcher(new NewsFeedFetcher.Source() {
+            @Override
+            public List<News> fetch(String url) {
+                return feeds.get(url);
+            }
+        }, 1000);
+
+        List<News> newsItems = new ArrayList<>(fetcher.fetch(
+                Arrays.asList("business&page=1", "books&page=1")).getNewsItems());
+        newsItems.addAll(fetcher.fetch(
+                Arrays.asList("business&page=2", "books&page=2")).getNewsItems());
+
+        // Page 2 is appended as it is, so b3 and b4 follow the older k1 and k2 of page 1
+        assertEquals(Arrays.asList("b1", "b2", "k1", "k2", "b3", "b4", "k3", "k4"),
+                urls(newsItems));
+    }
+
+    @Test
+    public void fetch_lastPageOnlyWhenEveryFeedIsShort() {
+        final Map<String, List<News>> feeds = new HashMap<>();
+        feeds.put("full", Arrays.asList(news("f1", "2018-09-25"), news("f2", "2018-09-24")));
+        feeds.put("short", Collections.singletonList(news("s1", "2018-09-23")));
+        feeds.put("empty", Collections.<News>emptyList());
+
+        NewsFeedFetcher fetcher = new NewsFeedFetcher(new NewsFeedFetcher.Source() {
+            @Override
+            public List<News> fetch(String url) {
+                return feeds.get(url);
+            }
+        }, 1000);
+
+        // The merged page is full, although one feed has run out
+        assertFalse(fetcher.fetch(Arrays.asList("full", "short")).isLastPage(2));
+        assertTrue(fetcher.fetch(Arrays.asList("short", "empty")).isLastPage(2));
+
+        // A feed that failed may still have more pages
+        assertFalse(fetcher.fetch(Arrays.asList("short", "failed")).isLastPage(2));
+    }
+
+    @Test
+    public void fetch_everyFeedFailed_returnsNoNewsItems() {
+        NewsFeedFetcher fetcher = new NewsFeedFetcher(new NewsFeedFetcher.Source() {
+            @Override
+            public List<News> fetch(String url) {
+                return null;
+            }
+        }, 1000);
+
+        NewsFeedFetcher.Result result = fetcher.fetch(Arrays.asList("business", "sport"));
+
+        assertNull(result.getNewsItems());
+        assertFalse(result.isComplete());
+    }
+
+    private static News news(String url, String date) {
+        return new News("Business", "Title " + url, "", NewsDates.parse(date), url);
+    }
+
+    private static List<String> urls(List<News> newsItems) {
+        List<String> urls = new ArrayList<>();
+        for (News news : newsItems) {
+            urls.add(news.getUrl());
+        }
+        return urls;
+    }
+}
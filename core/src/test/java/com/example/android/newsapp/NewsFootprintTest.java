@@ -0,0 +1,118 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures the heap used by 10,000 news items, and checks that the compact {@link News}
+ * takes less than keeping the section, date and author(s) as separate strings per article,
+ * which is what parsing used to produce.
+ */
+public class NewsFootprintTest {
+
+    private static final int ARTICLE_COUNT = 10000;
+    private static final int SECTION_COUNT = 40;
+    private static final int AUTHOR_COUNT = 300;
+
+    @Test
+    public void compactNews_usesLessHeapThanSeparateStrings() {
+
+        long compactBytes = measure(new Factory() {
+            @Override
+            public Object create(int i) {
+                return new News(section(i), title(i), author(i),
+                        NewsDates.parse(publicationDate(i)), url(i));
+            }
+        });
+
+        long stringBytes = measure(new Factory() {
+            @Override
+            public Object create(int i) {
+                return new StringNews(section(i), title(i), author(i),
+                        publicationDate(i).split("T")[0], url(i));
+            }
+        });
+
+        System.out.println("Heap for " + ARTICLE_COUNT + " articles: compact " + compactBytes
+                + " bytes, separate strings " + stringBytes + " bytes");
+
+        assertTrue("Compact news items used " + compactBytes + " bytes, separate strings used "
+                + stringBytes, compactBytes < stringBytes);
+    }
+
+    /**
+     * Returns the growth of the used heap while holding {@link #ARTICLE_COUNT} created objects.
+     * Every string is created anew, as the JSON parser would, so nothing is shared by accident.
+     */
+    private static long measure(Factory factory) {
+
+        // Warm up so the classes and the dictionaries are not counted
+        factory.create(0);
+
+        long before = usedHeap();
+        List<Object> articles = new ArrayList<>(ARTICLE_COUNT);
+
+        for (int i = 0; i < ARTICLE_COUNT; i++) {
+            articles.add(factory.create(i));
+        }
+
+        long after = usedHeap();
+        assertEquals(ARTICLE_COUNT, articles.size());
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String section(int i) {
+        return new String("Section " + i % SECTION_COUNT);
+    }
+
+    private static String title(int i) {
+        return "Headline number " + i + " about the economy, markets and the world of sport";
+    }
+
+    private static String author(int i) {
+        return i % 4 == 0 ? new String("") : "Contributor " + i % AUTHOR_COUNT;
+    }
+
+    private static String publicationDate(int i) {
+        return String.format("2018-09-%02dT%02d:45:34Z", i % 28 + 1, i % 24);
+    }
+
+    private static String url(int i) {
+        return "https://www.theguardian.com/business/2018/sep/25/headline-number-" + i;
+    }
+
+    private interface Factory {
+        Object create(int i);
+    }
+
+    /**
+     * The fields news items were stored in before they were made compact
+     */
+    private static final class StringNews {
+        private final String mSection;
+        private final String mTitle;
+        private final String mAuthor;
+        private final String mDate;
+        private final String mUrl;
+
+        StringNews(String section, String title, String author, String date, String url) {
+            mSection = section;
+            mTitle = title;
+            mAuthor = author;
+            mDate = date;
+            mUrl = url;
+        }
+    }
+}
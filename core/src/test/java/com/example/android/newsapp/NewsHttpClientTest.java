@@ -0,0 +1,110 @@
+package com.example.android.newsapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks gzip decoding and connection reuse of {@link NewsHttpClient} against a local server.
+ */
+public class NewsHttpClientTest {
+
+    private static final String BODY = "{\"response\":{\"results\":[]}}";
+
+    private HttpServer mServer;
+    private final Set<Integer> mClientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                mClientPorts.add(exchange.getRemoteAddress().getPort());
+
+                byte[] body = BODY.getBytes(Charset.forName("UTF-8"));
+                if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+                    gzip.write(body);
+                    gzip.close();
+                    body = compressed.toByteArray();
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                }
+
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop(0);
+    }
+
+    @Test
+    public void get_gzipResponse_isDecompressed() throws IOException {
+        NewsHttpClient client = new NewsHttpClient(5000, 5000);
+
+        NewsHttpClient.Response response = client.get(serverUrl(),
+                Collections.<String, String>emptyMap());
+        String body = readAll(response.getBody());
+        response.close();
+
+        assertEquals(200, response.getCode());
+        assertEquals(BODY, body);
+        assertTrue(response.getTimings().getBodyBytes() > 0);
+    }
+
+    @Test
+    public void get_twice_reusesConnection() throws IOException {
+        NewsHttpClient client = new NewsHttpClient(5000, 5000);
+
+        for (int i = 0; i < 3; i++) {
+            NewsHttpClient.Response response = client.get(serverUrl(),
+                    Collections.<String, String>emptyMap());
+
+            // Only read the start of the body, close() must drain the rest
+            response.getBody().read();
+            response.close();
+        }
+
+        assertEquals(1, mClientPorts.size());
+    }
+
+    private URL serverUrl() throws IOException {
+        return new URL("http://127.0.0.1:" + mServer.getAddress().getPort() + "/search");
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), Charset.forName("UTF-8"));
+    }
+}
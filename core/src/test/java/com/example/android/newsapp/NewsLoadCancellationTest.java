@@ -0,0 +1,183 @@
+package com.example.android.newsapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that cancelling a load by interrupting it stops the work straight away: a download
+ * stops instead of being drained, the parse stops between news items and the feeds are
+ * cancelled.
+ */
+public class NewsLoadCancellationTest {
+
+    /**
+     * How long a cancelled request may take to stop
+     */
+    private static final long STOP_MILLIS = 2000;
+
+    private HttpServer mServer;
+
+    /**
+     * Counted down by the server once it sent the start of the body
+     */
+    private final CountDownLatch mBodyStarted = new CountDownLatch(1);
+    private final CountDownLatch mStopServer = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.setExecutor(Executors.newCachedThreadPool());
+        mServer.createContext("/slow", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+
+                // A chunked body sent a little at a time, like a download on a slow network
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream out = exchange.getResponseBody();
+
+                try {
+                    for (int i = 0; i < 600; i++) {
+                        out.write(new byte[1024]);
+                        out.flush();
+                        mBodyStarted.countDown();
+
+                        if (mStopServer.await(50, TimeUnit.MILLISECONDS)) {
+                            break;
+                        }
+                    }
+                } catch (IOException e) {
+                    // The client closed the connection
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.close();
+            }
+        });
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        mStopServer.countDown();
+        mServer.stop(0);
+    }
+
+    @Test
+    public void interrupt_stopsSlowDownload() throws Exception {
+        final URL url = new URL("http://127.0.0.1:" + mServer.getAddress().getPort() + "/slow");
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread thread = NewsHttpClient.THREAD_FACTORY.newThread(new Runnable() {
+            @Override
+            public void run() {
+                NewsHttpClient client = new NewsHttpClient(30000, 30000);
+                NewsHttpClient.Response response = null;
+
+                try {
+                    response = client.get(url, Collections.<String, String>emptyMap());
+                    InputStream body = response.getBody();
+                    byte[] buffer = new byte[4096];
+                    while (body.read(buffer) != -1) {
+                        // Would take 30 seconds to read to the end
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                } finally {
+                    if (response != null) {
+                        response.close();
+                    }
+                }
+            }
+        });
+        thread.start();
+
+        assertTrue(mBodyStarted.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        long startNanos = System.nanoTime();
+        thread.interrupt();
+        thread.join(STOP_MILLIS);
+
+        assertFalse("Still reading after the interrupt", thread.isAlive());
+        assertTrue(String.valueOf(failure.get()), failure.get() instanceof InterruptedIOException);
+        assertTrue(System.nanoTime() - startNanos < TimeUnit.MILLISECONDS.toNanos(STOP_MILLIS));
+    }
+
+    @Test
+    public void interrupt_stopsParseBetweenNewsItems() throws IOException {
+        byte[] body = QueryUtilsParseBenchmark.readFixture(
+                "benchmark/guardian_search_200_contributors.json");
+
+        Thread.currentThread().interrupt();
+        try {
+            QueryUtils.extractFeatureFromStream(new ByteArrayInputStream(body));
+            fail("The parse went on after the interrupt");
+
+        } catch (InterruptedIOException e) {
+
+            // The parse stopped instead of returning part of the news items
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void interrupt_cancelsEveryFeed() throws InterruptedException {
+        final CountDownLatch feedsStarted = new CountDownLatch(2);
+        final CountDownLatch feedsInterrupted = new CountDownLatch(2);
+
+        final NewsFeedFetcher fetcher = new NewsFeedFetcher(new NewsFeedFetcher.Source() {
+            @Override
+            public List<News> fetch(String url) {
+                feedsStarted.countDown();
+                try {
+                    Thread.sleep(30000);
+                } catch (InterruptedException e) {
+                    feedsInterrupted.countDown();
+                }
+                return null;
+            }
+        }, 30000);
+
+        final AtomicReference<NewsFeedFetcher.Result> result = new AtomicReference<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result.set(fetcher.fetch(Arrays.asList("sport", "world")));
+            }
+        });
+        thread.start();
+
+        assertTrue(feedsStarted.await(5, TimeUnit.SECONDS));
+        thread.interrupt();
+
+        assertTrue("Feeds were not cancelled",
+                feedsInterrupted.await(STOP_MILLIS, TimeUnit.MILLISECONDS));
+        thread.join(STOP_MILLIS);
+        assertNull(result.get().getNewsItems());
+        assertFalse(result.get().isComplete());
+    }
+}
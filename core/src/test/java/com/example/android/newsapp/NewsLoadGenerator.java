@@ -0,0 +1,288 @@
+package com.example.android.newsapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Load test of the fetch/parse core, run with {@code ./gradlew :core:loadTest}.
+ * <p>
+ * A local stub server answers every request with a recorded Guardian response, and a number
+ * of threads fetch and parse it with {@link QueryUtils#fetchNewsData(String)} as fast as they
+ * can, the same way the app does: through the request executor, the HTTP client and the
+ * streaming parser. Every request asks for a page of its own, so none is coalesced with
+ * another. After a warm up, the throughput and the latency percentiles of the requests are
+ * printed, followed by the report of the {@link NewsMetrics}.
+ * <p>
+ * Options:
+ * <pre>
+ * --requests N     number of requests measured (default 5000)
+ * --warmup N       number of requests made before measuring (default 1000)
+ * --concurrency N  number of threads making requests (default 8)
+ * --fixture NAME   response served, from src/test/resources
+ *                  (default benchmark/guardian_search_50_contributors.json)
+ * </pre>
+ */
+public final class NewsLoadGenerator {
+
+    static final String DEFAULT_FIXTURE = "benchmark/guardian_search_50_contributors.json";
+
+    private final int mRequestCount;
+    private final int mWarmupCount;
+    private final int mConcurrency;
+    private final String mFixture;
+
+    /**
+     * Constructs a new {@link NewsLoadGenerator}.
+     *
+     * @param requestCount is the number of requests measured
+     * @param warmupCount  is the number of requests made before measuring
+     * @param concurrency  is the number of threads making requests
+     * @param fixture      is the name of the response served, from the test resources
+     */
+    public NewsLoadGenerator(int requestCount, int warmupCount, int concurrency,
+                             String fixture) {
+
+        if (requestCount < 1 || warmupCount < 0 || concurrency < 1) {
+            throw new IllegalArgumentException("requests=" + requestCount
+                    + " warmup=" + warmupCount + " concurrency=" + concurrency);
+        }
+
+        mRequestCount = requestCount;
+        mWarmupCount = warmupCount;
+        mConcurrency = concurrency;
+        mFixture = fixture;
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int requestCount = 5000;
+        int warmupCount = 1000;
+        int concurrency = 8;
+        String fixture = DEFAULT_FIXTURE;
+
+        for (int i = 0; i < args.length; i++) {
+
+            String option = args[i];
+
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing the value of " + option);
+            }
+
+            String value = args[++i];
+
+            switch (option) {
+                case "--requests":
+                    requestCount = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    warmupCount = Integer.parseInt(value);
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(value);
+                    break;
+                case "--fixture":
+                    fixture = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+
+        new NewsLoadGenerator(requestCount, warmupCount, concurrency, fixture)
+                .run()
+                .print(System.out);
+    }
+
+    /**
+     * Start the stub server, make the warm up requests and then the measured ones, and stop
+     * the server.
+     *
+     * @return the numbers of the measured requests
+     */
+    public Report run() throws IOException, InterruptedException {
+
+        final byte[] body = QueryUtilsParseBenchmark.readFixture(mFixture);
+        final byte[] gzipBody = gzip(body);
+        final int expectedItemCount = QueryUtils.extractFeatureFromJson(
+                new String(body, "UTF-8")).size();
+
+        // Send the response without waiting for the client to acknowledge the headers, which
+        // would add the delayed ACK of the client to every request
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ExecutorService serverExecutor = Executors.newFixedThreadPool(mConcurrency);
+        server.setExecutor(serverExecutor);
+        server.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+
+                byte[] response = body;
+                if ("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                    response = gzipBody;
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                }
+
+                exchange.sendResponseHeaders(200, response.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(response);
+                out.close();
+            }
+        });
+        server.start();
+
+        try {
+            String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort()
+                    + "/search?section=business&page-size=" + expectedItemCount + "&page=";
+
+            AtomicInteger nextPage = new AtomicInteger();
+            runRequests(baseUrl, nextPage, mWarmupCount, expectedItemCount);
+
+            NewsMetrics.getInstance().reset();
+            return runRequests(baseUrl, nextPage, mRequestCount, expectedItemCount);
+
+        } finally {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Make {@code requestCount} requests on {@link #mConcurrency} threads, and wait for them.
+     */
+    private Report runRequests(final String baseUrl, final AtomicInteger nextPage,
+                               final int requestCount, final int expectedItemCount)
+            throws InterruptedException {
+
+        final Report report = new Report();
+        final AtomicInteger remaining = new AtomicInteger(requestCount);
+        List<Thread> threads = new ArrayList<>(mConcurrency);
+
+        for (int i = 0; i < mConcurrency; i++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (remaining.getAndDecrement() > 0) {
+
+                        long startNanos = System.nanoTime();
+                        List<News> newsItems =
+                                QueryUtils.fetchNewsData(baseUrl + nextPage.getAndIncrement());
+                        long nanos = System.nanoTime() - startNanos;
+
+                        report.record(nanos,
+                                newsItems != null && newsItems.size() == expectedItemCount);
+                    }
+                }
+            }, "NewsLoadGenerator-" + i));
+        }
+
+        long startNanos = System.nanoTime();
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        report.mElapsedNanos = System.nanoTime() - startNanos;
+        return report;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write(body);
+        gzip.close();
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Numbers of the requests of one run.
+     */
+    public static final class Report {
+
+        /**
+         * Time from the start of a fetch until its news items are parsed
+         */
+        private final MetricsHistogram mLatencyMicros = new MetricsHistogram();
+
+        private final AtomicLong mFailureCount = new AtomicLong();
+
+        private long mElapsedNanos;
+
+        void record(long nanos, boolean succeeded) {
+            mLatencyMicros.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+            if (!succeeded) {
+                mFailureCount.incrementAndGet();
+            }
+        }
+
+        /**
+         * Returns the number of requests made.
+         */
+        public long getRequestCount() {
+            return mLatencyMicros.getCount();
+        }
+
+        /**
+         * Returns the number of requests that did not return every news item of the response.
+         */
+        public long getFailureCount() {
+            return mFailureCount.get();
+        }
+
+        /**
+         * Returns the latencies of the requests, in microseconds.
+         */
+        public MetricsHistogram getLatencyMicros() {
+            return mLatencyMicros;
+        }
+
+        /**
+         * Returns the number of requests completed per second.
+         */
+        public double getThroughput() {
+            return mElapsedNanos == 0 ? 0
+                    : getRequestCount() * (double) TimeUnit.SECONDS.toNanos(1) / mElapsedNanos;
+        }
+
+        /**
+         * Write the throughput and the latency percentiles, then the report of the
+         * {@link NewsMetrics}.
+         */
+        public void print(PrintStream out) {
+
+            out.println(String.format("requests=%d failed=%d elapsed=%d ms throughput=%.1f req/s",
+                    getRequestCount(), getFailureCount(),
+                    TimeUnit.NANOSECONDS.toMillis(mElapsedNanos), getThroughput()));
+            out.println(String.format("latency us: mean=%d p50=%d p90=%d p99=%d max=%d",
+                    mLatencyMicros.getMean(),
+                    mLatencyMicros.getValueAtPercentile(50),
+                    mLatencyMicros.getValueAtPercentile(90),
+                    mLatencyMicros.getValueAtPercentile(99),
+                    mLatencyMicros.getMax()));
+            out.println();
+
+            PrintWriter writer = new PrintWriter(out);
+            NewsMetrics.getInstance().dump(writer);
+            writer.flush();
+        }
+    }
+}
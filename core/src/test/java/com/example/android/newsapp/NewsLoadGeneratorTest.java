@@ -0,0 +1,23 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a short run of the {@link NewsLoadGenerator} fetches and parses every response,
+ * so the load test never measures failed requests.
+ */
+public class NewsLoadGeneratorTest {
+
+    @Test
+    public void run_everyRequestParsesTheFixture() throws Exception {
+        NewsLoadGenerator.Report report = new NewsLoadGenerator(200, 20, 4,
+                NewsLoadGenerator.DEFAULT_FIXTURE).run();
+
+        assertEquals(200, report.getRequestCount());
+        assertEquals(0, report.getFailureCount());
+        assertTrue(report.getThroughput() > 0);
+        assertTrue(report.getLatencyMicros().getValueAtPercentile(99) > 0);
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.android.newsapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the retries, timeouts and hedging of {@link NewsRequestExecutor} against a local
+ * server that injects faults: server errors, dropped connections and slow responses.
+ */
+public class NewsRequestExecutorTest {
+
+    private static final int FAULT_NONE = 0;
+    private static final int FAULT_SERVER_ERROR = 1;
+    private static final int FAULT_DROP_CONNECTION = 2;
+    private static final int FAULT_SLOW = 3;
+    private static final int FAULT_NOT_FOUND = 4;
+
+    private static final long SLOW_RESPONSE_MILLIS = 2000;
+
+    private HttpServer mServer;
+    private byte[] mBody;
+    private final AtomicInteger mRequestCount = new AtomicInteger();
+
+    /**
+     * Fault injected into every request, indexed by the number of the request, then
+     * {@link #mDefaultFault} once they are used up
+     */
+    private volatile int[] mFaults = new int[0];
+    private volatile int mDefaultFault = FAULT_NONE;
+
+    /**
+     * Share of requests failing with a random fault when {@link #mDefaultFault} is used
+     */
+    private volatile double mRandomFaultRate;
+    private final Random mFaultRandom = new Random(2018);
+
+    @Before
+    public void setUp() throws IOException {
+        mBody = QueryUtilsParseBenchmark.readFixture("guardian_search_multiple_authors.json");
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.setExecutor(Executors.newCachedThreadPool());
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                int request = mRequestCount.getAndIncrement();
+
+                switch (pickFault(request)) {
+                    case FAULT_SERVER_ERROR:
+                        exchange.sendResponseHeaders(503, -1);
+                        exchange.close();
+                        return;
+                    case FAULT_NOT_FOUND:
+                        exchange.sendResponseHeaders(404, -1);
+                        exchange.close();
+                        return;
+                    case FAULT_DROP_CONNECTION:
+                        exchange.close();
+                        return;
+                    case FAULT_SLOW:
+                        try {
+                            Thread.sleep(SLOW_RESPONSE_MILLIS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        break;
+                    default:
+                        break;
+                }
+
+                exchange.sendResponseHeaders(200, mBody.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(mBody);
+                out.close();
+                exchange.close();
+            }
+        });
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        mServer.stop(0);
+    }
+
+    @Test
+    public void fetchNewsData_serverErrorsThenOk_retriesAndSucceeds() {
+        mFaults = new int[]{FAULT_SERVER_ERROR, FAULT_DROP_CONNECTION};
+
+        List<News> newsItems = QueryUtils.fetchNewsData(serverUrl());
+
+        assertNotNull(newsItems);
+        assertEquals(3, newsItems.size());
+        assertEquals(3, mRequestCount.get());
+    }
+
+    @Test
+    public void execute_notFound_isNotRetried() {
+        mDefaultFault = FAULT_NOT_FOUND;
+        NewsRequestExecutor executor = new NewsRequestExecutor(3, 1, 10, false, new Random(1));
+
+        assertNull(executor.execute(new ServerAttempt()));
+        assertEquals(1, mRequestCount.get());
+    }
+
+    @Test
+    public void execute_flakyServer_retriesRaiseSuccessRate() {
+        mRandomFaultRate = 0.3;
+        NewsRequestExecutor once = new NewsRequestExecutor(1, 1, 10, false, new Random(1));
+        NewsRequestExecutor retrying = new NewsRequestExecutor(3, 1, 10, false, new Random(1));
+
+        int requests = 100;
+        int onceSucceeded = 0;
+        int retryingSucceeded = 0;
+
+        for (int i = 0; i < requests; i++) {
+            if (once.execute(new ServerAttempt()) != null) {
+                onceSucceeded++;
+            }
+            if (retrying.execute(new ServerAttempt()) != null) {
+                retryingSucceeded++;
+            }
+        }
+
+        // About 70% and 97% of the requests succeed
+        assertTrue("Without retries " + onceSucceeded, onceSucceeded < 85);
+        assertTrue("With retries " + retryingSucceeded, retryingSucceeded >= 90);
+    }
+
+    @Test
+    public void execute_slowResponse_isHedged() {
+        NewsRequestExecutor executor = new NewsRequestExecutor(1, 1, 10, true, new Random(1));
+
+        // Learn the usual latency of the server
+        for (int i = 0; i < NewsRequestExecutor.MIN_SAMPLES; i++) {
+            assertNotNull(executor.execute(new ServerAttempt()));
+        }
+
+        int warmUpRequests = mRequestCount.get();
+        int[] faults = new int[warmUpRequests + 1];
+        faults[warmUpRequests] = FAULT_SLOW;
+        mFaults = faults;
+
+        long startNanos = System.nanoTime();
+        assertNotNull(executor.execute(new ServerAttempt()));
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1000000;
+
+        assertEquals(warmUpRequests + 2, mRequestCount.get());
+        assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < SLOW_RESPONSE_MILLIS);
+    }
+
+    @Test
+    public void timeouts_areDerivedFromObservedLatencies() {
+        NewsRequestExecutor executor = new NewsRequestExecutor(1, 1, 10, false, new Random(1));
+
+        assertEquals(NewsRequestExecutor.DEFAULT_CONNECT_TIMEOUT_MILLIS,
+                executor.getConnectTimeoutMillis());
+        assertEquals(NewsRequestExecutor.DEFAULT_READ_TIMEOUT_MILLIS,
+                executor.getReadTimeoutMillis());
+
+        for (int i = 0; i < NewsRequestExecutor.MIN_SAMPLES; i++) {
+            executor.recordLatency(100, 1000);
+        }
+
+        // Three times the 99th percentile, but never shorter than the minimum
+        assertEquals(NewsRequestExecutor.MIN_TIMEOUT_MILLIS, executor.getConnectTimeoutMillis());
+        assertEquals(3000, executor.getReadTimeoutMillis(), 3000 / 8);
+    }
+
+    @Test
+    public void backoff_isJitteredAndCapped() {
+        NewsRequestExecutor executor = new NewsRequestExecutor(10, 100, 1000, false,
+                new Random(1));
+
+        for (int retry = 1; retry < 10; retry++) {
+            long backoffMillis = executor.getBackoffMillis(retry);
+            assertTrue(backoffMillis >= 0);
+            assertTrue(backoffMillis <= Math.min(1000, 100 << (retry - 1)));
+        }
+    }
+
+    private int pickFault(int request) {
+        int[] faults = mFaults;
+        if (request < faults.length) {
+            return faults[request];
+        }
+        if (mRandomFaultRate > 0) {
+            synchronized (mFaultRandom) {
+                if (mFaultRandom.nextDouble() < mRandomFaultRate) {
+                    return mFaultRandom.nextBoolean() ? FAULT_SERVER_ERROR : FAULT_DROP_CONNECTION;
+                }
+            }
+        }
+        return mDefaultFault;
+    }
+
+    private String serverUrl() {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort() + "/search";
+    }
+
+    /**
+     * Attempt made the same way as by {@link QueryUtils}, without the response cache.
+     */
+    private class ServerAttempt implements NewsRequestExecutor.Attempt<List<News>> {
+
+        private final NewsHttpClient mClient = new NewsHttpClient(5000, 5000);
+
+        @Override
+        public List<News> run(int connectTimeoutMillis, int readTimeoutMillis)
+                throws IOException {
+
+            NewsHttpClient.Response response = mClient.get(new URL(serverUrl()),
+                    Collections.<String, String>emptyMap(), connectTimeoutMillis,
+                    readTimeoutMillis);
+
+            try {
+                if (response.getCode() >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                    throw new IOException("Error response code: " + response.getCode());
+                }
+                if (response.getCode() != HttpURLConnection.HTTP_OK) {
+                    return null;
+                }
+                InputStream body = response.getBody();
+                return QueryUtils.extractFeatureFromStream(body);
+            } finally {
+                response.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.android.newsapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the conditional GET requests made through {@link NewsResponseCache}
+ * against a local HTTP server.
+ */
+public class NewsResponseCacheTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    private HttpServer mServer;
+    private File mCacheDirectory;
+    private byte[] mBody;
+    private final AtomicInteger mFullResponses = new AtomicInteger();
+    private final AtomicInteger mNotModifiedResponses = new AtomicInteger();
+
+    /**
+     * Number of the next full responses whose connection is dropped in the middle of the body
+     */
+    private final AtomicInteger mTruncatedResponses = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        mBody = readFixture("guardian_search_multiple_authors.json");
+        mCacheDirectory = Files.createTempDirectory("news_responses").toFile();
+
+        mServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mServer.createContext("/search", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    mNotModifiedResponses.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    mFullResponses.incrementAndGet();
+                    exchange.getResponseHeaders().set("ETag", ETAG);
+                    exchange.sendResponseHeaders(200, mBody.length);
+                    OutputStream out = exchange.getResponseBody();
+                    if (mTruncatedResponses.getAndDecrement() > 0) {
+
+                        // Closing before the whole body is written drops the connection
+                        out.write(mBody, 0, mBody.length * 3 / 5);
+                        out.flush();
+                        exchange.close();
+                        return;
+                    }
+                    out.write(mBody);
+                    out.close();
+                }
+                exchange.close();
+            }
+        });
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() {
+        QueryUtils.setResponseCache(null);
+        mServer.stop(0);
+        deleteRecursively(mCacheDirectory);
+    }
+
+    @Test
+    public void notModified_reusesParsedNews() {
+        QueryUtils.setResponseCache(new NewsResponseCache(mCacheDirectory, 1024 * 1024));
+
+        List<News> first = QueryUtils.fetchNewsData(serverUrl());
+        List<News> second = QueryUtils.fetchNewsData(serverUrl());
+
+        assertEquals(1, mFullResponses.get());
+        assertEquals(1, mNotModifiedResponses.get());
+        assertEquals(3, first.size());
+        assertSame(first, second);
+    }
+
+    @Test
+    public void notModified_afterRestart_parsesStoredBody() {
+        QueryUtils.setResponseCache(new NewsResponseCache(mCacheDirectory, 1024 * 1024));
+        List<News> first = QueryUtils.fetchNewsData(serverUrl());
+
+        // A new cache over the same directory only has the body on disk
+        QueryUtils.setResponseCache(new NewsResponseCache(mCacheDirectory, 1024 * 1024));
+        List<News> second = QueryUtils.fetchNewsData(serverUrl());
+
+        assertEquals(1, mNotModifiedResponses.get());
+        assertEquals(first.size(), second.size());
+        assertEquals(first.get(0).getUrl(), second.get(0).getUrl());
+    }
+
+    @Test
+    public void truncatedBody_isRetriedAndNotCached() {
+        QueryUtils.setResponseCache(new NewsResponseCache(mCacheDirectory, 1024 * 1024));
+        mTruncatedResponses.set(1);
+
+        List<News> first = QueryUtils.fetchNewsData(serverUrl());
+
+        // The complete body of the retry is the one cached
+        assertEquals(2, mFullResponses.get());
+        assertEquals(3, first.size());
+
+        QueryUtils.setResponseCache(new NewsResponseCache(mCacheDirectory, 1024 * 1024));
+        List<News> second = QueryUtils.fetchNewsData(serverUrl());
+
+        assertEquals(1, mNotModifiedResponses.get());
+        assertEquals(3, second.size());
+    }
+
+    @Test
+    public void store_truncatedBody_isNotCommitted() throws IOException {
+        NewsResponseCache cache = new NewsResponseCache(mCacheDirectory, 1024 * 1024);
+        NewsResponseCache.Editor editor = cache.edit("https://example.com/a", ETAG, null);
+        InputStream body = editor.wrap(
+                new ByteArrayInputStream(mBody, 0, mBody.length * 3 / 5));
+
+        try {
+            QueryUtils.extractFeatureFromStream(body);
+            fail("A truncated body must not parse");
+        } catch (IOException e) {
+            editor.abort();
+        }
+
+        assertNull(cache.getValidators("https://example.com/a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void store_overMaxSize_evictsLeastRecentlyUsed() throws IOException {
+        // Room for two bodies and their headers, but not for three bodies
+        long maxBytes = 2 * mBody.length + 1024;
+        NewsResponseCache cache = new NewsResponseCache(mCacheDirectory, maxBytes);
+
+        store(cache, "https://example.com/a");
+        store(cache, "https://example.com/b");
+
+        // Using "a" makes "b" the least recently used entry
+        assertNotNull(cache.getValidators("https://example.com/a"));
+        store(cache, "https://example.com/c");
+
+        assertNotNull(cache.getValidators("https://example.com/a"));
+        assertNull(cache.getValidators("https://example.com/b"));
+        assertNotNull(cache.getValidators("https://example.com/c"));
+        assertTrue(cache.size() <= maxBytes);
+    }
+
+    @Test
+    public void edit_withoutValidators_isNotCached() {
+        NewsResponseCache cache = new NewsResponseCache(mCacheDirectory, 1024 * 1024);
+
+        assertNull(cache.edit("https://example.com/a", null, null));
+    }
+
+    private void store(NewsResponseCache cache, String url) throws IOException {
+        NewsResponseCache.Editor editor = cache.edit(url, ETAG, null);
+        InputStream body = editor.wrap(new ByteArrayInputStream(mBody));
+        List<News> newsItems = QueryUtils.extractFeatureFromStream(body);
+        editor.commit(newsItems);
+    }
+
+    private String serverUrl() {
+        return "http://127.0.0.1:" + mServer.getAddress().getPort() + "/search?q=news";
+    }
+
+    private static byte[] readFixture(String name) throws IOException {
+        InputStream in = NewsResponseCacheTest.class.getClassLoader().getResourceAsStream(name);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link NewsThreadPool} passes the thread priority of the submitting thread down
+ * to its tasks and runs the queued ones by that priority.
+ */
+public class NewsThreadPoolTest {
+
+    @Test
+    public void execute_runsTaskWithPriorityOfSubmittingThread() throws Exception {
+        final NewsThreadPool pool = new NewsThreadPool(1);
+
+        assertEquals(Integer.valueOf(Thread.MIN_PRIORITY),
+                submitFrom(Thread.MIN_PRIORITY, pool, new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return Thread.currentThread().getPriority();
+                    }
+                }));
+        assertEquals(Integer.valueOf(Thread.NORM_PRIORITY),
+                submitFrom(Thread.NORM_PRIORITY, pool, new Callable<Integer>() {
+                    @Override
+                    public Integer call() {
+                        return Thread.currentThread().getPriority();
+                    }
+                }));
+        pool.shutdown();
+    }
+
+    @Test
+    public void execute_runsQueuedTasksHighestPriorityFirst() throws Exception {
+        NewsThreadPool pool = new NewsThreadPool(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        // Keep the only thread busy while the other tasks are queued
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        executeFrom(Thread.MIN_PRIORITY, pool, record(order, "enrichment"));
+        executeFrom(Thread.NORM_PRIORITY - 1, pool, record(order, "next page 1"));
+        executeFrom(Thread.NORM_PRIORITY, pool, record(order, "refresh"));
+        executeFrom(Thread.NORM_PRIORITY - 1, pool, record(order, "next page 2"));
+
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList("refresh", "next page 1", "next page 2", "enrichment"), order);
+    }
+
+    private static Runnable record(final List<String> order, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+            }
+        };
+    }
+
+    /**
+     * Submit the callable to the pool from a thread with the given priority and return its
+     * result.
+     */
+    private static <T> T submitFrom(int priority, final NewsThreadPool pool,
+                                    final Callable<T> callable) throws Exception {
+        final List<T> result = new ArrayList<>();
+        final Exception[] failure = new Exception[1];
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    result.add(pool.submit(callable).get());
+                } catch (Exception e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        thread.setPriority(priority);
+        thread.start();
+        thread.join();
+
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return result.get(0);
+    }
+
+    /**
+     * Execute the runnable on the pool from a thread with the given priority.
+     */
+    private static void executeFrom(int priority, final NewsThreadPool pool,
+                                    final Runnable runnable) throws InterruptedException {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pool.execute(runnable);
+            }
+        });
+        thread.setPriority(priority);
+        thread.start();
+        thread.join();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Parses the recorded Guardian responses from many threads at the same time and checks
+ * that every result matches the one produced by a single threaded parse.
+ */
+public class QueryUtilsConcurrencyTest {
+
+    private static final String[] FIXTURES = {
+            "guardian_search_multiple_authors.json",
+            "guardian_search_no_authors.json",
+            "guardian_search_empty.json"
+    };
+
+    private static final int THREAD_COUNT = 8;
+    private static final int PARSES_PER_THREAD = 250;
+
+    @Test
+    public void parse_multipleAuthors_joinsNamesWithNewLines() throws Exception {
+        List<News> newsItems = parseFixture("guardian_search_multiple_authors.json");
+
+        assertEquals(3, newsItems.size());
+        assertEquals("Business", newsItems.get(0).getSection());
+        assertEquals("2018-09-25", newsItems.get(0).getDate());
+        assertEquals("Larry Elliott\nRichard Partington\n", newsItems.get(0).getAuthor());
+        assertEquals("Ewan Murray", newsItems.get(1).getAuthor());
+    }
+
+    @Test
+    public void parse_missingOrEmptyTags_hasNoAuthor() throws Exception {
+        List<News> newsItems = parseFixture("guardian_search_no_authors.json");
+
+        assertEquals(2, newsItems.size());
+        assertFalse(newsItems.get(0).hasAuthorName());
+        assertFalse(newsItems.get(1).hasAuthorName());
+    }
+
+    @Test
+    public void parse_concurrently_matchesSingleThreadedResult() throws Exception {
+        final List<List<News>> expected = new ArrayList<>();
+        for (String fixture : FIXTURES) {
+            expected.add(parseFixture(fixture));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        for (int t = 0; t < THREAD_COUNT; t++) {
+            final int offset = t;
+            results.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    start.await();
+
+                    int mismatches = 0;
+                    for (int i = 0; i < PARSES_PER_THREAD; i++) {
+                        int index = (offset + i) % FIXTURES.length;
+                        if (!sameNews(expected.get(index), parseFixture(FIXTURES[index]))) {
+                            mismatches++;
+                        }
+                    }
+                    return mismatches;
+                }
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<Integer> result : results) {
+            assertEquals(Integer.valueOf(0), result.get(30, TimeUnit.SECONDS));
+        }
+
+        executor.shutdown();
+    }
+
+    private static List<News> parseFixture(String name) throws IOException {
+        InputStream inputStream = QueryUtilsConcurrencyTest.class.getClassLoader()
+                .getResourceAsStream(name);
+        try {
+            return QueryUtils.extractFeatureFromStream(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private static boolean sameNews(List<News> expected, List<News> actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            News a = expected.get(i);
+            News b = actual.get(i);
+            if (!a.getSection().equals(b.getSection())
+                    || !a.getTitle().equals(b.getTitle())
+                    || !a.getAuthor().equals(b.getAuthor())
+                    || !a.getDate().equals(b.getDate())
+                    || !a.getUrl().equals(b.getUrl())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
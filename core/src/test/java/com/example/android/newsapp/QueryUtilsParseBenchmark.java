@@ -0,0 +1,90 @@
+package com.example.android.newsapp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the JSON parser of {@link QueryUtils}, run with {@code ./gradlew :core:jmh}.
+ * <p>
+ * Every recorded Guardian response in {@code src/test/resources/benchmark} is parsed both from
+ * a string and straight from a stream, the way {@link QueryUtils#fetchNewsData(String)} reads
+ * the response body. The responses hold 10 to 200 results, each with one to four contributor
+ * tags or none, so the cost of the tags can be told apart from the cost of the results.
+ * The gc profiler reports the bytes allocated per parse next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class QueryUtilsParseBenchmark {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * Number of results in the response
+     */
+    @Param({"10", "50", "200"})
+    public int resultCount;
+
+    /**
+     * Whether the results have contributor tags
+     */
+    @Param({"contributors", "no_contributors"})
+    public String tags;
+
+    private String mJson;
+    private byte[] mBody;
+
+    @Setup
+    public void readFixture() throws IOException {
+        mBody = readFixture("benchmark/guardian_search_" + resultCount + "_" + tags + ".json");
+        mJson = new String(mBody, UTF_8);
+    }
+
+    @Benchmark
+    public List<News> extractFeatureFromJson() {
+        return QueryUtils.extractFeatureFromJson(mJson);
+    }
+
+    @Benchmark
+    public List<News> extractFeatureFromStream() throws IOException {
+        return QueryUtils.extractFeatureFromStream(new ByteArrayInputStream(mBody));
+    }
+
+    static byte[] readFixture(String name) throws IOException {
+        InputStream in = QueryUtilsParseBenchmark.class.getClassLoader().getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("Missing fixture " + name);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that every recorded response used by {@link QueryUtilsParseBenchmark} parses to the
+ * number of results it is named after, so the benchmark never measures a failed parse.
+ */
+public class QueryUtilsParseBenchmarkTest {
+
+    @Test
+    public void fixtures_parseToEveryResult() throws Exception {
+        for (int resultCount : new int[]{10, 50, 200}) {
+            for (String tags : new String[]{"contributors", "no_contributors"}) {
+
+                byte[] body = QueryUtilsParseBenchmark.readFixture(
+                        "benchmark/guardian_search_" + resultCount + "_" + tags + ".json");
+
+                List<News> fromJson = QueryUtils.extractFeatureFromJson(
+                        new String(body, Charset.forName("UTF-8")));
+                List<News> fromStream =
+                        QueryUtils.extractFeatureFromStream(new ByteArrayInputStream(body));
+
+                assertEquals(resultCount, fromJson.size());
+                assertEquals(resultCount, fromStream.size());
+                assertEquals(tags.equals("contributors"), fromStream.get(0).hasAuthorName());
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.android.newsapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link SingleFlight} shares one call between concurrent callers and cancels it
+ * once they all stop waiting.
+ */
+public class SingleFlightTest {
+
+    private static final int CALLER_COUNT = 8;
+
+    @Test
+    public void execute_concurrentCallers_shareOneCall() throws Exception {
+        final SingleFlight<Object> singleFlight =
+                new SingleFlight<>(Executors.newCachedThreadPool());
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<Object> call = new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                calls.incrementAndGet();
+                release.await();
+                return new Object();
+            }
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLER_COUNT);
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < CALLER_COUNT; i++) {
+            results.add(callers.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return singleFlight.execute("https://content.guardianapis.com/search", call);
+                }
+            }));
+        }
+
+        waitForCoalesced(singleFlight, CALLER_COUNT - 1);
+        release.countDown();
+
+        Object first = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<Object> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+        callers.shutdown();
+
+        // The call is done, so the next one runs again
+        singleFlight.execute("https://content.guardianapis.com/search", call);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void execute_everyCallerInterrupted_cancelsCall() throws Exception {
+        final SingleFlight<Object> singleFlight =
+                new SingleFlight<>(Executors.newCachedThreadPool());
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        final Callable<Object> call = new Callable<Object>() {
+            @Override
+            public Object call() {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(10));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            }
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            results.add(callers.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    return singleFlight.execute("key", call);
+                }
+            }));
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        waitForCoalesced(singleFlight, 1);
+
+        // One caller leaving does not cancel the call the other one waits for
+        results.get(0).cancel(true);
+        assertFalse(interrupted.await(200, TimeUnit.MILLISECONDS));
+
+        results.get(1).cancel(true);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.getInFlightCount());
+        callers.shutdown();
+    }
+
+    @Test
+    public void normalizeUrl_ignoresParameterOrderAndHostCase() {
+        assertEquals(
+                QueryUtils.normalizeUrl("https://content.guardianapis.com/search?section=sport&page=2"),
+                QueryUtils.normalizeUrl("HTTPS://Content.GuardianAPIs.com/search?page=2&section=sport#top"));
+        assertNotEquals(
+                QueryUtils.normalizeUrl("https://content.guardianapis.com/search?page=2"),
+                QueryUtils.normalizeUrl("https://content.guardianapis.com/Search?page=2"));
+        assertEquals("https://content.guardianapis.com/search",
+                QueryUtils.normalizeUrl("https://content.guardianapis.com/search?"));
+    }
+
+    private static void waitForCoalesced(SingleFlight<?> singleFlight, long count)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.getCoalescedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, singleFlight.getCoalescedCount());
+    }
+}